@@ -0,0 +1,82 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each phase of validateAll() over the whole corpus.
+ * <p/>
+ * The corpus classes are described on the first invocation, so filter and validate measure cached
+ * descriptors, the cold variants measure fresh copies of the classes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BeanBenchmarks {
+
+    @Benchmark
+    public Set<Class> resolveClasses(CorpusState state) {
+        return state.classResolver.resolveClasses();
+    }
+
+    @Benchmark
+    public List<Class> filter(CorpusState state) {
+        return new ValidBeanFilter().filter(state.resolvedClasses, state.config);
+    }
+
+    @Benchmark
+    public List<Class> filterCold(CorpusState state, ColdState cold) {
+        return new ValidBeanFilter().filter(cold.classes, state.config);
+    }
+
+    @Benchmark
+    public void getAllDeclaredFieldsMap(CorpusState state, Blackhole blackhole) {
+        for(Class cls : state.classes) {
+            final Map<String, Field> fields = ClassUtil.getAllDeclaredFieldsMap(cls, false, state.config);
+            blackhole.consume(fields);
+        }
+    }
+
+    @Benchmark
+    public void validate(CorpusState state) {
+        for(Class cls : state.classes) {
+            state.autoTestGetterSetter.validate(cls);
+        }
+    }
+
+    @Benchmark
+    public void validateCold(CorpusState state, ColdState cold) {
+        for(Class cls : cold.classes) {
+            state.autoTestGetterSetter.validate(cls);
+        }
+    }
+}
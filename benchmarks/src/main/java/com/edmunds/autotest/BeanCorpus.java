@@ -0,0 +1,174 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+
+/**
+ * Generates a package of bean class files for the benchmarks.
+ * <p/>
+ * Classes are written in chains of the requested depth, each class extending the previous one in its
+ * chain and declaring its own fields with a getter and setter for each.
+ */
+public class BeanCorpus {
+    public static final String ROOT_PACKAGE = "com.edmunds.autotest.corpus";
+
+    private static final String[] FIELD_TYPES = {"I", "J", "Ljava/lang/String;", "D", "Z"};
+
+    private final File directory;
+    private final URLClassLoader classLoader;
+    private final String[] classNames;
+
+    /**
+     * @param classCount the number of classes to generate.
+     * @param fieldCount the number of fields declared by each class.
+     * @param depth      the length of each inheritance chain, 1 for classes that extend Object.
+     * @throws IOException if the class files can't be written.
+     */
+    public BeanCorpus(int classCount, int fieldCount, int depth) throws IOException {
+        this.directory = File.createTempFile("bean-corpus", "");
+        if (!directory.delete() || !directory.mkdirs()) {
+            throw new IOException("Failed to create: " + directory);
+        }
+
+        final File packageDir = new File(directory, ROOT_PACKAGE.replace('.', File.separatorChar));
+        if (!packageDir.mkdirs()) {
+            throw new IOException("Failed to create: " + packageDir);
+        }
+
+        this.classNames = new String[classCount];
+
+        String superName = "java/lang/Object";
+        for(int i = 0; i < classCount; i++) {
+            final int level = i % depth;
+            if (level == 0) {
+                superName = "java/lang/Object";
+            }
+
+            final String name = ROOT_PACKAGE.replace('.', '/') + "/Bean" + i;
+            write(new File(packageDir, "Bean" + i + ".class"), generate(name, superName, level, fieldCount));
+
+            classNames[i] = name.replace('/', '.');
+            superName = name;
+        }
+
+        this.classLoader = new URLClassLoader(new URL[]{directory.toURI().toURL()}, BeanCorpus.class.getClassLoader());
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    public Class[] loadClasses() throws ClassNotFoundException {
+        final Class[] classes = new Class[classNames.length];
+
+        for(int i = 0; i < classNames.length; i++) {
+            classes[i] = classLoader.loadClass(classNames[i]);
+        }
+        return classes;
+    }
+
+    /**
+     * Loads fresh copies of the classes into a new IsolatingClassLoader, so nothing is cached for them yet.
+     */
+    public Class[] loadIsolatedClasses() throws ClassNotFoundException {
+        final ClassLoader loader = new IsolatingClassLoader(classLoader, Arrays.asList(ROOT_PACKAGE));
+        final Class[] classes = new Class[classNames.length];
+
+        for(int i = 0; i < classNames.length; i++) {
+            classes[i] = loader.loadClass(classNames[i]);
+        }
+        return classes;
+    }
+
+    public void delete() throws IOException {
+        classLoader.close();
+        delete(directory);
+    }
+
+    private static void delete(File file) {
+        final File[] children = file.listFiles();
+
+        if (children != null) {
+            for(File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static byte[] generate(String name, String superName, int level, int fieldCount) {
+        final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        for(int i = 0; i < fieldCount; i++) {
+            final String field = "prop" + level + "x" + i;
+            final String property = Character.toUpperCase(field.charAt(0)) + field.substring(1);
+            final Type type = Type.getType(FIELD_TYPES[i % FIELD_TYPES.length]);
+            final String getterPrefix = type.getSort() == Type.BOOLEAN ? "is" : "get";
+
+            cw.visitField(Opcodes.ACC_PRIVATE, field, type.getDescriptor(), null, null).visitEnd();
+
+            mv = cw.visitMethod(Opcodes.ACC_PUBLIC, getterPrefix + property, "()" + type.getDescriptor(), null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, name, field, type.getDescriptor());
+            mv.visitInsn(type.getOpcode(Opcodes.IRETURN));
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+
+            mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "set" + property, "(" + type.getDescriptor() + ")V", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitVarInsn(type.getOpcode(Opcodes.ILOAD), 1);
+            mv.visitFieldInsn(Opcodes.PUTFIELD, name, field, type.getDescriptor());
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void write(File file, byte[] bytes) throws IOException {
+        final FileOutputStream out = new FileOutputStream(file);
+
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fresh copies of the corpus classes for every invocation, so the cold benchmarks find nothing cached for
+ * them in BeanDescriptor or the validators.
+ */
+@State(Scope.Benchmark)
+public class ColdState {
+    List<Class> classes;
+
+    @Setup(Level.Invocation)
+    public void setUp(CorpusState corpus) throws ClassNotFoundException {
+        classes = Arrays.asList(corpus.corpus.loadIsolatedClasses());
+    }
+}
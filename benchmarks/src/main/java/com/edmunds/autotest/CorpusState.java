@@ -0,0 +1,92 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A generated bean corpus shared by the benchmarks of a trial.
+ * <p/>
+ * Use -p classCount=..., -p fieldCount=... (wide beans) and -p depth=... (deep inheritance chains) to
+ * pick a single shape, every combination is run by default.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int classCount;
+
+    @Param({"10", "200"})
+    public int fieldCount;
+
+    @Param({"1", "20"})
+    public int depth;
+
+    BeanCorpus corpus;
+    AutoTestConfig config;
+    ClassResolver classResolver;
+    AutoTestGetterSetter autoTestGetterSetter;
+    Set<Class> resolvedClasses;
+    List<Class> classes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ClassNotFoundException {
+        corpus = new BeanCorpus(classCount, fieldCount, depth);
+        config = new AutoTestConfig(BeanCorpus.ROOT_PACKAGE);
+
+        // Spring resolves classpath resources through the context class loader.
+        final Thread thread = Thread.currentThread();
+        final ClassLoader original = thread.getContextClassLoader();
+        thread.setContextClassLoader(corpus.getClassLoader());
+        try {
+            classResolver = new ClassResolver(corpus.getClassLoader(), config);
+            autoTestGetterSetter = new AutoTestGetterSetter(corpus.getClassLoader(), BeanCorpus.ROOT_PACKAGE);
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+
+        resolvedClasses = classResolver.resolveClasses();
+        classes = Arrays.asList(corpus.loadClasses());
+
+        if (resolvedClasses.size() != classCount) {
+            throw new IllegalStateException("Resolved " + resolvedClasses.size() + " of " + classCount + " classes");
+        }
+    }
+
+    /**
+     * Ends the previous run, so the validators validate every class again instead of skipping those an
+     * earlier invocation already validated.
+     */
+    @Setup(Level.Invocation)
+    public void completeRun() {
+        autoTestGetterSetter.completed(ValidationMetrics.disabled(), null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        corpus.delete();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * Validates each bean as one invocation of a data driven test, extend this with a no argument constructor:
+ * <pre>
+ * public class ModelBeansTest extends AbstractBeanTest {
+ *     public ModelBeansTest() {
+ *         super(new AutoTestGetterSetter(ModelBeansTest.class.getClassLoader(), "com.example.model"));
+ *     }
+ * }
+ * </pre>
+ * <p/>
+ * TestNG 5.8 runs the invocations of a data provider one after another, use BeanTestFactory to
+ * validate beans in parallel.
+ */
+public abstract class AbstractBeanTest {
+    public static final String BEANS = "autotest-beans";
+
+    private final AutoTestGetterSetter autoTest;
+
+    protected AbstractBeanTest(AutoTestGetterSetter autoTest) {
+        this.autoTest = autoTest;
+    }
+
+    @DataProvider(name = BEANS)
+    public Object[][] getBeans() {
+        final List<BeanTest> tests = autoTest.createBeanTests();
+        final Object[][] rows = new Object[tests.size()][];
+
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[] {tests.get(i)};
+        }
+        return rows;
+    }
+
+    @Test(dataProvider = BEANS)
+    public void testBean(BeanTest bean) {
+        bean.validate();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void completeBeans() {
+        autoTest.completeBeanTests();
+    }
+}
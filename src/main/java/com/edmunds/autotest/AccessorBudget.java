@@ -0,0 +1,240 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.fail;
+
+/**
+ * Measures what the getters and setters of one class cost per call, and checks the costs against the
+ * budgets of AutoTestConfig.
+ * <p/>
+ * Each accessor is called getAccessorBudgetIterations() times to warm it up, and then as many times again
+ * while the time and the bytes allocated by the current thread are measured. Allocation is only measured
+ * when ValidationMetrics.isAllocationSupported().
+ */
+public class AccessorBudget {
+    private static final Log log = LogFactory.getLog(AccessorBudget.class);
+
+    // Results are published here so the JIT can neither drop the calls nor the objects they return.
+    private static volatile Object sink;
+    private static volatile long longSink;
+    private static volatile double doubleSink;
+
+    private final Class beanClass;
+    private final AutoTestConfig config;
+    private final BeanContext context;
+    private final List<Cost> costs = new ArrayList<Cost>();
+
+    public AccessorBudget(Class beanClass, AutoTestConfig config) {
+        this.beanClass = beanClass;
+        this.config = config;
+        this.context = null;
+    }
+
+    /**
+     * A budget that records the measurements to ValidationPhase.MEASURE_ACCESSORS through the context.
+     */
+    public AccessorBudget(BeanContext context) {
+        this.beanClass = context.getBeanClass();
+        this.config = context.getConfig();
+        this.context = context;
+    }
+
+    /**
+     * Measures a getter, the field should hold its sample value.
+     *
+     * @param bean   the bean.
+     * @param getter the getter.
+     * @param name   the getter's name.
+     */
+    public void measureGetter(Object bean, MemberAccessor getter, String name)
+            throws IllegalAccessException, InvocationTargetException {
+        final int iterations = config.getAccessorBudgetIterations();
+        final long warmUpBytes = ValidationMetrics.threadAllocatedBytes();
+        final long warmUpNanos = System.nanoTime();
+
+        callGetter(bean, getter, iterations);
+
+        final long startBytes = ValidationMetrics.threadAllocatedBytes();
+        final long startNanos = System.nanoTime();
+        callGetter(bean, getter, iterations);
+        add(name, startNanos, startBytes, iterations);
+        record(warmUpNanos, warmUpBytes);
+    }
+
+    /**
+     * Measures a setter by setting the sample value over and over.
+     *
+     * @param bean   the bean.
+     * @param setter the setter.
+     * @param value  the sample value.
+     * @param name   the setter's name.
+     */
+    public void measureSetter(Object bean, MemberAccessor setter, Object value, String name)
+            throws IllegalAccessException, InvocationTargetException {
+        final int iterations = config.getAccessorBudgetIterations();
+        final long warmUpBytes = ValidationMetrics.threadAllocatedBytes();
+        final long warmUpNanos = System.nanoTime();
+
+        callSetter(bean, setter, value, iterations);
+
+        final long startBytes = ValidationMetrics.threadAllocatedBytes();
+        final long startNanos = System.nanoTime();
+        callSetter(bean, setter, value, iterations);
+        add(name, startNanos, startBytes, iterations);
+        record(warmUpNanos, warmUpBytes);
+    }
+
+    private static void callGetter(Object bean, MemberAccessor getter, int iterations)
+            throws IllegalAccessException, InvocationTargetException {
+        final Class<?> type = getter.getType();
+
+        if (Primitives.isLongType(type)) {
+            long total = 0L;
+            for (int i = 0; i < iterations; i++) {
+                total += getter.getLong(bean);
+            }
+            longSink = total;
+        } else if (Primitives.isDoubleType(type)) {
+            double total = 0D;
+            for (int i = 0; i < iterations; i++) {
+                total += getter.getDouble(bean);
+            }
+            doubleSink = total;
+        } else {
+            for (int i = 0; i < iterations; i++) {
+                sink = getter.get(bean);
+            }
+        }
+    }
+
+    private static void callSetter(Object bean, MemberAccessor setter, Object value, int iterations)
+            throws IllegalAccessException, InvocationTargetException {
+        final Class<?> type = setter.getType();
+
+        if (Primitives.isLongType(type)) {
+            final long longValue = Primitives.toLong(value);
+            for (int i = 0; i < iterations; i++) {
+                setter.setLong(bean, longValue);
+            }
+        } else if (Primitives.isDoubleType(type)) {
+            final double doubleValue = Primitives.toDouble(value);
+            for (int i = 0; i < iterations; i++) {
+                setter.setDouble(bean, doubleValue);
+            }
+        } else {
+            for (int i = 0; i < iterations; i++) {
+                setter.set(bean, value);
+            }
+        }
+    }
+
+    private void add(String name, long startNanos, long startBytes, int iterations) {
+        final long nanos = System.nanoTime() - startNanos;
+        final long bytes = ValidationMetrics.threadAllocatedBytes() - startBytes;
+
+        costs.add(new Cost(name, (double) nanos / iterations, (double) bytes / iterations));
+    }
+
+    private void record(long warmUpNanos, long warmUpBytes) {
+        if (context != null) {
+            context.record(ValidationPhase.MEASURE_ACCESSORS, System.nanoTime() - warmUpNanos,
+                    ValidationMetrics.threadAllocatedBytes() - warmUpBytes);
+        }
+    }
+
+    /**
+     * @return the costs measured so far, in the order the accessors were measured.
+     */
+    public List<Cost> getCosts() {
+        return Collections.unmodifiableList(costs);
+    }
+
+    /**
+     * Logs the report for the class and reports the accessors over budget. Accessors over the allocation
+     * budget fail the class when AutoTestConfig.isFailOnAccessorBudget(), those over the time budget only
+     * when AutoTestConfig.isFailOnAccessorTimeBudget().
+     */
+    public void check() {
+        final StringBuilder report = new StringBuilder("Accessor costs: ").append(beanClass.getName());
+        final StringBuilder overBudget = new StringBuilder();
+        boolean failed = false;
+
+        for (Cost cost : costs) {
+            report.append("\n    ").append(cost);
+
+            final boolean overTime = cost.getNanosPerCall() > config.getMaxAccessorNanosPerCall();
+            final boolean overBytes = cost.getBytesPerCall() > config.getMaxAccessorBytesPerCall();
+
+            if (overTime || overBytes) {
+                overBudget.append("\n    ").append(cost);
+                failed |= (overBytes && config.isFailOnAccessorBudget()) ||
+                        (overTime && config.isFailOnAccessorTimeBudget());
+            }
+        }
+        log.info(report);
+
+        if (overBudget.length() > 0) {
+            final String msg = "Accessors over budget (" + config.getMaxAccessorNanosPerCall() + " ns, " +
+                    config.getMaxAccessorBytesPerCall() + " bytes per call): " + beanClass.getName() + overBudget;
+            log.warn(msg);
+
+            if (failed) {
+                fail(msg);
+            }
+        }
+    }
+
+    /**
+     * The average cost of a call to one accessor.
+     */
+    public static class Cost {
+        private final String name;
+        private final double nanosPerCall;
+        private final double bytesPerCall;
+
+        Cost(String name, double nanosPerCall, double bytesPerCall) {
+            this.name = name;
+            this.nanosPerCall = nanosPerCall;
+            this.bytesPerCall = bytesPerCall;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getNanosPerCall() {
+            return nanosPerCall;
+        }
+
+        public double getBytesPerCall() {
+            return bytesPerCall;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %.1f ns, %.1f bytes per call", name, nanosPerCall, bytesPerCall);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Creates the accessors used to read and write bean properties during validation.
+ */
+public interface AccessorStrategy {
+
+    MemberAccessor forField(Field field);
+
+    /**
+     * Creates an accessor for a getter (no parameters) or a setter (one parameter).
+     *
+     * @param method the getter or setter.
+     * @return the accessor.
+     */
+    MemberAccessor forMethod(Method method);
+}
@@ -15,35 +15,103 @@
  */
 package com.edmunds.autotest;
 
+import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class AutoTestConfig {
     private final String[] DEFAULT_FIELD_OVERRIDE_EXCEPTIONS = {"serialVersionUID", "log", "LOG", "JiBX_bindingList"};
 
-    private final String rootPackage;
+    private final List<String> rootPackages;
     private boolean failOnBadAssignment;
     private boolean validateMethodsOutsideRootPackage;
     private boolean failOnFieldOverride;
     private Set<String> fieldOverrideExceptions;
+    private int parallelism;
+    private int scanParallelism;
+    private boolean prefilterClassFiles;
+    private ClassFilter classFilter;
+    private AccessorStrategy accessorStrategy;
+    private File validationCacheFile;
+    private boolean springResourceScanning;
+    private boolean useBeanIndex;
+    private SampleValueRegistry sampleValues;
+    private int shardIndex;
+    private int shardCount;
+    private File shardTimingsFile;
+    private long classTimeoutMillis;
+    private int isolationChunkSize;
+    private boolean validateEqualsHashCode;
+    private double maxHashCollisionRate;
+    private double minHashBitDispersion;
+    private int accessorBudgetIterations;
+    private double maxAccessorNanosPerCall;
+    private double maxAccessorBytesPerCall;
+    private boolean failOnAccessorBudget;
+    private boolean failOnAccessorTimeBudget;
+    private boolean validateSerialization;
+    private int maxSerializedBytes;
+    private File serializationBaselineFile;
+    private double maxSerializedSizeChange;
+    private boolean memoizeInheritedProperties;
+    private final List<BeanValidator> validators;
 
     public AutoTestConfig(String rootPackage) {
-        this.rootPackage = rootPackage;
+        this(new String[] {rootPackage});
+    }
+
+    public AutoTestConfig(String... rootPackages) {
+        assert rootPackages.length > 0 : "No root packages";
+
+        this.rootPackages = Collections.unmodifiableList(Arrays.asList(rootPackages.clone()));
 
         this.failOnBadAssignment = true;
         this.failOnFieldOverride = true;
 
         this.validateMethodsOutsideRootPackage = false;
 
+        this.parallelism = 1;
+        this.scanParallelism = Runtime.getRuntime().availableProcessors();
+        this.useBeanIndex = true;
+        this.classFilter = new ClassFilter();
+        this.sampleValues = new SampleValueRegistry();
+        this.shardIndex = Integer.getInteger(Sharding.INDEX_PROPERTY, 0);
+        this.shardCount = Integer.getInteger(Sharding.COUNT_PROPERTY, 1);
+        this.accessorStrategy = new MethodHandleAccessorStrategy();
+        this.maxHashCollisionRate = 0.5D;
+        this.maxAccessorNanosPerCall = 1000D;
+        this.maxAccessorBytesPerCall = 0D;
+        this.failOnAccessorBudget = true;
+        this.failOnAccessorTimeBudget = false;
+        this.maxSerializedSizeChange = 0.5D;
+        this.memoizeInheritedProperties = true;
+        this.validators = new CopyOnWriteArrayList<BeanValidator>(Arrays.asList(
+                new GetterSetterValidator(), new EqualsHashCodeValidator(), new SerializationValidator()));
+
         this.fieldOverrideExceptions = new HashSet<String>();
 
         Collections.addAll(this.fieldOverrideExceptions,
                 DEFAULT_FIELD_OVERRIDE_EXCEPTIONS);
     }
 
+    /**
+     * @return the first root package.
+     */
     public String getRootPackage() {
-        return rootPackage;
+        return rootPackages.get(0);
+    }
+
+    /**
+     * Classes under any of these packages are resolved and validated in a single run.
+     *
+     * @return the root packages.
+     */
+    public List<String> getRootPackages() {
+        return rootPackages;
     }
 
     public boolean isFailOnBadAssignment() {
@@ -77,4 +145,435 @@ public class AutoTestConfig {
     public void setFieldOverrideExceptions(Set<String> fieldOverrideExceptions) {
         this.fieldOverrideExceptions = fieldOverrideExceptions;
     }
+
+    /**
+     * The number of threads used by validateAll(), a value of 1 (the default) validates serially.
+     *
+     * @return the validation parallelism.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        assert parallelism > 0 : "Parallelism must be positive: " + parallelism;
+
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * The number of classpath roots the ClassResolver scans at the same time, defaults to the number of
+     * processors. Classes are only loaded once every root has been scanned.
+     *
+     * @return the scan parallelism.
+     */
+    public int getScanParallelism() {
+        return scanParallelism;
+    }
+
+    public void setScanParallelism(int scanParallelism) {
+        assert scanParallelism > 0 : "Scan parallelism must be positive: " + scanParallelism;
+
+        this.scanParallelism = scanParallelism;
+    }
+
+    /**
+     * When set the ClassResolver reads each class file before loading it and skips classes that can't
+     * be beans (abstract, interface, member, local or synthetic classes, classes without a no argument
+     * constructor and classes without fields), so those are never loaded or initialized.
+     *
+     * @return true if class files are filtered before loading.
+     */
+    public boolean isPrefilterClassFiles() {
+        return prefilterClassFiles;
+    }
+
+    public void setPrefilterClassFiles(boolean prefilterClassFiles) {
+        this.prefilterClassFiles = prefilterClassFiles;
+    }
+
+    /**
+     * Include and exclude rules applied by the ClassResolver before loading, by default every class under
+     * the root packages is loaded. Use these to skip generated code such as JiBX bindings.
+     *
+     * @return the class filter.
+     */
+    public ClassFilter getClassFilter() {
+        return classFilter;
+    }
+
+    public void setClassFilter(ClassFilter classFilter) {
+        this.classFilter = classFilter;
+    }
+
+    /**
+     * How fields, getters and setters are accessed, defaults to MethodHandleAccessorStrategy.
+     *
+     * @return the accessor strategy.
+     */
+    public AccessorStrategy getAccessorStrategy() {
+        return accessorStrategy;
+    }
+
+    public void setAccessorStrategy(AccessorStrategy accessorStrategy) {
+        this.accessorStrategy = accessorStrategy;
+    }
+
+    /**
+     * When set, classes that passed validation are recorded in this file and skipped by later runs
+     * until their class file, a super class file or this config changes.
+     *
+     * @return the validation cache file or null if caching is disabled (the default).
+     */
+    public File getValidationCacheFile() {
+        return validationCacheFile;
+    }
+
+    public void setValidationCacheFile(File validationCacheFile) {
+        this.validationCacheFile = validationCacheFile;
+    }
+
+    /**
+     * By default the ClassResolver walks directories and jar files itself, when set it uses Spring's
+     * PathMatchingResourcePatternResolver instead. Classpath roots that aren't directories or jar files
+     * always use Spring.
+     *
+     * @return true if Spring is used to find the class files.
+     */
+    public boolean isSpringResourceScanning() {
+        return springResourceScanning;
+    }
+
+    public void setSpringResourceScanning(boolean springResourceScanning) {
+        this.springResourceScanning = springResourceScanning;
+    }
+
+    /**
+     * When set (the default) a classpath root with a BeanIndex is not scanned, the beans listed in the
+     * index are loaded instead and checked by the ValidBeanFilter like any other class. A root whose class
+     * files no longer match its index is scanned.
+     *
+     * @return true if bean indexes are used.
+     */
+    public boolean isUseBeanIndex() {
+        return useBeanIndex;
+    }
+
+    public void setUseBeanIndex(boolean useBeanIndex) {
+        this.useBeanIndex = useBeanIndex;
+    }
+
+    /**
+     * Creates the values written to bean properties, register factories here for types that need them.
+     *
+     * @return the sample value registry.
+     */
+    public SampleValueRegistry getSampleValues() {
+        return sampleValues;
+    }
+
+    public void setSampleValues(SampleValueRegistry sampleValues) {
+        this.sampleValues = sampleValues;
+    }
+
+    /**
+     * The shard validated by this run, defaults to the autotest.shard.index system property or 0.
+     *
+     * @return the shard index, from 0 to getShardCount() - 1.
+     */
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex(int shardIndex) {
+        if (shardIndex < 0) {
+            throw new IllegalArgumentException("Shard index must not be negative: " + shardIndex);
+        }
+
+        this.shardIndex = shardIndex;
+    }
+
+    /**
+     * The number of shards the beans are split between, defaults to the autotest.shard.count system
+     * property or 1 (no sharding).
+     *
+     * @return the shard count.
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Timings recorded by ShardTimings, when set validateAll() balances the shards by these timings
+     * instead of hashing the class names.
+     * <p/>
+     * Every shard must read the same timings, so this is a copy of an earlier run's timings that is not
+     * written while the shards run. A ShardTimings of the same run records into another file.
+     *
+     * @return the shard timings file or null.
+     */
+    public File getShardTimingsFile() {
+        return shardTimingsFile;
+    }
+
+    public void setShardTimingsFile(File shardTimingsFile) {
+        this.shardTimingsFile = shardTimingsFile;
+    }
+
+    /**
+     * The time budget for validating a single class, 0 (the default) for no limit.
+     * <p/>
+     * With a budget each class is validated on a watchdog thread. A class that runs out of time fails with
+     * a ClassTimeoutException holding the stack of the stuck thread, and the run moves on to the next class.
+     *
+     * @return the per class timeout in milliseconds.
+     */
+    public long getClassTimeoutMillis() {
+        return classTimeoutMillis;
+    }
+
+    public void setClassTimeoutMillis(long classTimeoutMillis) {
+        assert classTimeoutMillis >= 0 : "Class timeout must not be negative: " + classTimeoutMillis;
+
+        this.classTimeoutMillis = classTimeoutMillis;
+    }
+
+    /**
+     * When positive validateAll() loads the classes in chunks of this size, each chunk into its own disposable
+     * class loader, and drops the chunk once it has been validated so its classes can be unloaded. Chunks run
+     * in parallel up to getParallelism(), the classes of a chunk are validated one at a time. Defaults to 0,
+     * which loads every class into the resolver's class loader.
+     *
+     * @return the isolation chunk size.
+     */
+    public int getIsolationChunkSize() {
+        return isolationChunkSize;
+    }
+
+    public void setIsolationChunkSize(int isolationChunkSize) {
+        assert isolationChunkSize >= 0 : "Isolation chunk size must not be negative: " + isolationChunkSize;
+
+        this.isolationChunkSize = isolationChunkSize;
+    }
+
+    /**
+     * When true beans that override equals() are also checked by the EqualsHashCodeValidator. Defaults to false.
+     *
+     * @return true if the equals/hashCode contract is validated.
+     */
+    public boolean isValidateEqualsHashCode() {
+        return validateEqualsHashCode;
+    }
+
+    public void setValidateEqualsHashCode(boolean validateEqualsHashCode) {
+        this.validateEqualsHashCode = validateEqualsHashCode;
+    }
+
+    /**
+     * The share of generated instances that may share a hash code with another instance before the
+     * hashCode() fails, from 0 to 1. Defaults to 0.5, which fails a hashCode() that ignores most fields.
+     *
+     * @return the maximum hash collision rate.
+     */
+    public double getMaxHashCollisionRate() {
+        return maxHashCollisionRate;
+    }
+
+    public void setMaxHashCollisionRate(double maxHashCollisionRate) {
+        assert maxHashCollisionRate >= 0 && maxHashCollisionRate <= 1 :
+                "Hash collision rate must be between 0 and 1: " + maxHashCollisionRate;
+
+        this.maxHashCollisionRate = maxHashCollisionRate;
+    }
+
+    /**
+     * How evenly the bits of the generated hash codes must be set, from 0 to 1. Defaults to 0, as the
+     * 31 * h + x hash codes generated by IDEs cluster in the low bits for small field values.
+     *
+     * @return the minimum hash bit dispersion.
+     */
+    public double getMinHashBitDispersion() {
+        return minHashBitDispersion;
+    }
+
+    public void setMinHashBitDispersion(double minHashBitDispersion) {
+        assert minHashBitDispersion >= 0 && minHashBitDispersion <= 1 :
+                "Hash bit dispersion must be between 0 and 1: " + minHashBitDispersion;
+
+        this.minHashBitDispersion = minHashBitDispersion;
+    }
+
+    /**
+     * When positive every getter and setter that passes validation is called this many times to warm it
+     * up and then this many times again while its time and allocation per call are measured, see
+     * AccessorBudget. Defaults to 0, which doesn't measure the accessors.
+     *
+     * @return the number of measured calls per accessor.
+     */
+    public int getAccessorBudgetIterations() {
+        return accessorBudgetIterations;
+    }
+
+    public void setAccessorBudgetIterations(int accessorBudgetIterations) {
+        assert accessorBudgetIterations >= 0 : "Accessor budget iterations must not be negative: " + accessorBudgetIterations;
+
+        this.accessorBudgetIterations = accessorBudgetIterations;
+    }
+
+    /**
+     * The average time a getter or setter call may take. Defaults to 1000ns, which only catches accessors
+     * that do real work as the calls go through the AccessorStrategy. Timings depend on the machine and its
+     * load, so accessors over this budget are only logged unless isFailOnAccessorTimeBudget() is set.
+     *
+     * @return the nanoseconds per call budget.
+     */
+    public double getMaxAccessorNanosPerCall() {
+        return maxAccessorNanosPerCall;
+    }
+
+    public void setMaxAccessorNanosPerCall(double maxAccessorNanosPerCall) {
+        this.maxAccessorNanosPerCall = maxAccessorNanosPerCall;
+    }
+
+    /**
+     * The average number of bytes a getter or setter call may allocate. Defaults to 0, trivial accessors
+     * don't allocate once warmed up.
+     *
+     * @return the bytes per call budget.
+     */
+    public double getMaxAccessorBytesPerCall() {
+        return maxAccessorBytesPerCall;
+    }
+
+    public void setMaxAccessorBytesPerCall(double maxAccessorBytesPerCall) {
+        this.maxAccessorBytesPerCall = maxAccessorBytesPerCall;
+    }
+
+    /**
+     * When false accessors over the allocation budget are only logged as a warning. Defaults to true.
+     *
+     * @return true if accessors over the allocation budget fail the class.
+     */
+    public boolean isFailOnAccessorBudget() {
+        return failOnAccessorBudget;
+    }
+
+    public void setFailOnAccessorBudget(boolean failOnAccessorBudget) {
+        this.failOnAccessorBudget = failOnAccessorBudget;
+    }
+
+    /**
+     * When true accessors over the time budget fail the class as well. Defaults to false, only the
+     * allocation budget is stable enough to fail a build on.
+     *
+     * @return true if accessors over the time budget fail the class.
+     */
+    public boolean isFailOnAccessorTimeBudget() {
+        return failOnAccessorTimeBudget;
+    }
+
+    public void setFailOnAccessorTimeBudget(boolean failOnAccessorTimeBudget) {
+        this.failOnAccessorTimeBudget = failOnAccessorTimeBudget;
+    }
+
+    /**
+     * When true beans that implement Serializable are also round tripped by the SerializationValidator.
+     * Defaults to false.
+     *
+     * @return true if serialization is validated.
+     */
+    public boolean isValidateSerialization() {
+        return validateSerialization;
+    }
+
+    public void setValidateSerialization(boolean validateSerialization) {
+        this.validateSerialization = validateSerialization;
+    }
+
+    /**
+     * The largest serialized size of a filled bean, 0 (the default) for no limit.
+     *
+     * @return the maximum payload size in bytes.
+     */
+    public int getMaxSerializedBytes() {
+        return maxSerializedBytes;
+    }
+
+    public void setMaxSerializedBytes(int maxSerializedBytes) {
+        assert maxSerializedBytes >= 0 : "Serialized size budget must not be negative: " + maxSerializedBytes;
+
+        this.maxSerializedBytes = maxSerializedBytes;
+    }
+
+    /**
+     * The serialized sizes of earlier runs as "className=bytes" lines, classes missing from the file are
+     * added to it. Defaults to null, which doesn't compare sizes between runs.
+     *
+     * @return the baseline file.
+     */
+    public File getSerializationBaselineFile() {
+        return serializationBaselineFile;
+    }
+
+    public void setSerializationBaselineFile(File serializationBaselineFile) {
+        this.serializationBaselineFile = serializationBaselineFile;
+    }
+
+    /**
+     * How far the serialized size may move from the baseline, as a share of the baseline size. Defaults
+     * to 0.5, so a class fails when its payload grows by half or shrinks to half.
+     *
+     * @return the maximum relative size change.
+     */
+    public double getMaxSerializedSizeChange() {
+        return maxSerializedSizeChange;
+    }
+
+    public void setMaxSerializedSizeChange(double maxSerializedSizeChange) {
+        assert maxSerializedSizeChange >= 0 : "Serialized size change must not be negative: " + maxSerializedSizeChange;
+
+        this.maxSerializedSizeChange = maxSerializedSizeChange;
+    }
+
+    /**
+     * When set (the default) the GetterSetterValidator checks a property inherited from a super class once,
+     * sub classes that don't override its getter or setter reuse the result. Clear this if getters or
+     * setters call methods that sub classes override.
+     *
+     * @return true if inherited property checks are reused.
+     */
+    public boolean isMemoizeInheritedProperties() {
+        return memoizeInheritedProperties;
+    }
+
+    public void setMemoizeInheritedProperties(boolean memoizeInheritedProperties) {
+        this.memoizeInheritedProperties = memoizeInheritedProperties;
+    }
+
+    /**
+     * The checks run on each bean, in order. Defaults to the GetterSetterValidator, EqualsHashCodeValidator
+     * and SerializationValidator, AutoTestGetterSetter replaces them with the validators found by ServiceLoader.
+     *
+     * @return the validators.
+     */
+    public List<BeanValidator> getValidators() {
+        return validators;
+    }
+
+    public void setValidators(List<BeanValidator> validators) {
+        this.validators.clear();
+        this.validators.addAll(validators);
+    }
+
+    public void addValidator(BeanValidator validator) {
+        this.validators.add(validator);
+    }
 }
@@ -15,37 +15,53 @@
  */
 package com.edmunds.autotest;
 
-import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.fail;
 
 public class AutoTestGetterSetter {
 
     private final static Log log = LogFactory.getLog(AutoTestGetterSetter.class);
-    private final static String[] GETTER_PREFIXES = {"has", "is", "get"};
-    private final static String[] SETTER_PREFIXES = {"set"};
 
-    private final static Map<Class<?>, Object> valueMap = createValueMap();
-    private final static Map<Class<?>, Object> defaultValueMap = createDefaultValueMap();
+    private final static int STREAM_CAPACITY = 256;
 
     private final ClassResolver classResolver;
     private final AutoTestConfig config;
+    private final List<ValidationListener> listeners = new CopyOnWriteArrayList<ValidationListener>();
+    private final Object staticStateLock = new Object();
+    private volatile ValidationMetrics testMetrics = ValidationMetrics.disabled();
+    private ClassWatchdog watchdog;
 
     public AutoTestGetterSetter(ClassLoader classLoader, String rootPackage) {
-        this.classResolver = new ClassResolver(classLoader, rootPackage);
         this.config = new AutoTestConfig(rootPackage);
+        this.classResolver = new ClassResolver(classLoader, config);
+        this.config.setValidators(ValidatorLoader.load(classLoader));
+    }
+
+    public AutoTestGetterSetter(ClassLoader classLoader, String... rootPackages) {
+        this.config = new AutoTestConfig(rootPackages);
+        this.classResolver = new ClassResolver(classLoader, config);
+        this.config.setValidators(ValidatorLoader.load(classLoader));
     }
 
     public void setFailOnFieldOverride(boolean failOnFieldOverride) {
@@ -60,249 +76,601 @@ public class AutoTestGetterSetter {
         this.config.setValidateMethodsOutsideRootPackage(validateMethodsOutsideRootPackage);
     }
 
-    public void validateAll() {
-        final ValidBeanFilter validBeanFilter = new ValidBeanFilter();
-        final Set<Class> clsSet = classResolver.resolveClasses();
-        final List<Class> classes = validBeanFilter.filter(clsSet, config);
+    public void setParallelism(int parallelism) {
+        this.config.setParallelism(parallelism);
+    }
 
-        for (Class cls : classes) {
-            validate(cls);
-        }
+    public void setScanParallelism(int scanParallelism) {
+        this.config.setScanParallelism(scanParallelism);
     }
 
-    void validate(Class cls) {
-        final Collection<Field> fields = ClassUtil.getAllDeclaredFields(cls, config);
-        final Collection<Method> methods = ClassUtil.getAllDeclaredMethods(cls);
+    public void setShard(int shardIndex, int shardCount) {
+        this.config.setShardIndex(shardIndex);
+        this.config.setShardCount(shardCount);
+    }
+
+    public void setShardTimingsFile(File shardTimingsFile) {
+        this.config.setShardTimingsFile(shardTimingsFile);
+    }
+
+    public void setIsolationChunkSize(int isolationChunkSize) {
+        this.config.setIsolationChunkSize(isolationChunkSize);
+    }
+
+    public void setClassTimeoutMillis(long classTimeoutMillis) {
+        this.config.setClassTimeoutMillis(classTimeoutMillis);
+    }
+
+    public void setValidateEqualsHashCode(boolean validateEqualsHashCode) {
+        this.config.setValidateEqualsHashCode(validateEqualsHashCode);
+    }
+
+    public void setMaxHashCollisionRate(double maxHashCollisionRate) {
+        this.config.setMaxHashCollisionRate(maxHashCollisionRate);
+    }
+
+    public void setMinHashBitDispersion(double minHashBitDispersion) {
+        this.config.setMinHashBitDispersion(minHashBitDispersion);
+    }
+
+    public void setAccessorBudgetIterations(int accessorBudgetIterations) {
+        this.config.setAccessorBudgetIterations(accessorBudgetIterations);
+    }
+
+    public void setMaxAccessorNanosPerCall(double maxAccessorNanosPerCall) {
+        this.config.setMaxAccessorNanosPerCall(maxAccessorNanosPerCall);
+    }
+
+    public void setMaxAccessorBytesPerCall(double maxAccessorBytesPerCall) {
+        this.config.setMaxAccessorBytesPerCall(maxAccessorBytesPerCall);
+    }
+
+    public void setFailOnAccessorBudget(boolean failOnAccessorBudget) {
+        this.config.setFailOnAccessorBudget(failOnAccessorBudget);
+    }
+
+    public void setFailOnAccessorTimeBudget(boolean failOnAccessorTimeBudget) {
+        this.config.setFailOnAccessorTimeBudget(failOnAccessorTimeBudget);
+    }
+
+    public void setValidateSerialization(boolean validateSerialization) {
+        this.config.setValidateSerialization(validateSerialization);
+    }
+
+    public void setMaxSerializedBytes(int maxSerializedBytes) {
+        this.config.setMaxSerializedBytes(maxSerializedBytes);
+    }
+
+    public void setSerializationBaselineFile(File serializationBaselineFile) {
+        this.config.setSerializationBaselineFile(serializationBaselineFile);
+    }
+
+    public void setMaxSerializedSizeChange(double maxSerializedSizeChange) {
+        this.config.setMaxSerializedSizeChange(maxSerializedSizeChange);
+    }
 
-        final Map<String, Method> getters = getGetters(methods);
-        final Map<String, Method> setters = getSetters(methods);
+    public void setSampleValues(SampleValueRegistry sampleValues) {
+        this.config.setSampleValues(sampleValues);
+    }
+
+    public void setPrefilterClassFiles(boolean prefilterClassFiles) {
+        this.config.setPrefilterClassFiles(prefilterClassFiles);
+    }
 
-        Object bean = ClassUtil.instanceClass(cls, "Failed to create class : " + cls.getName());
+    public void setAccessorStrategy(AccessorStrategy accessorStrategy) {
+        this.config.setAccessorStrategy(accessorStrategy);
+    }
 
-        for (Field field : fields) {
-            final String name = field.getName().toLowerCase();
+    public void setValidationCacheFile(File validationCacheFile) {
+        this.config.setValidationCacheFile(validationCacheFile);
+    }
 
-            validateGetter(bean, getters.get(name), field);
-            validateSetter(bean, setters.get(name), field);
+    /**
+     * Adds a check that runs on each bean after the validators found through ServiceLoader.
+     *
+     * @param validator the validator, which must be thread safe when validating in parallel.
+     */
+    public void addValidator(BeanValidator validator) {
+        this.config.addValidator(validator);
+    }
+
+    /**
+     * Registers a listener for the metrics of later validateAll() calls.
+     *
+     * @param listener the listener, which must be thread safe when validating in parallel.
+     */
+    public void addValidationListener(ValidationListener listener) {
+        this.listeners.add(listener);
+    }
+
+    public void validateAll() {
+        final ValidationMetrics metrics = createMetrics();
+        final ValidationCache cache = openCache();
+
+        try {
+            validateAll(metrics, cache);
+        } finally {
+            completed(metrics, cache);
         }
     }
 
-    private void validateGetter(Object bean, Method method, Field field) {
-        if (method == null) {
+    private void validateAll(ValidationMetrics metrics, ValidationCache cache) {
+        if (config.getIsolationChunkSize() > 0) {
+            validateIsolated(metrics, cache);
             return;
         }
 
-        final String errorMsg = "Failed to validate Getter: " +
-                bean.getClass().getName() + "." + method.getName();
+        final ValidBeanFilter validBeanFilter = new ValidBeanFilter();
+        final Set<Class> clsSet = new HashSet<Class>();
+        classResolver.resolveClasses(clsSet, metrics);
 
-        final Class<?> fieldType = field.getType();
-        final Class<?> returnType = method.getReturnType();
+        List<Class> classes = validBeanFilter.filter(clsSet, config, metrics);
+        metrics.addFiltered(classes.size());
 
-        if (!isTypeSafeAssignment(fieldType, returnType, "getter", errorMsg)) {
-            return;
-        }
+        classes = Sharding.forConfig(config, listeners).select(classes);
 
-        Object value = createValue(fieldType, errorMsg);
-        Object defaultValue = createDefaultValue(fieldType);
+        if (cache != null) {
+            classes = cache.filterUnchanged(classes);
+        }
 
-        try {
-            field.setAccessible(true);
-            method.setAccessible(true);
+        if (config.getParallelism() > 1) {
+            final Collection<ValidationFailure> failures = validateParallel(classes, metrics);
 
-            field.set(bean, value);
-            assertEquals(method.invoke(bean), value, errorMsg);
+            recordPassed(cache, classes, failures);
 
-            field.set(bean, defaultValue);
-            final Object actualValue = method.invoke(bean);
+            if (!failures.isEmpty()) {
+                throw ValidationFailure.aggregate(failures, classes.size());
+            }
+        } else {
+            final List<ValidationFailure> timeouts = new ArrayList<ValidationFailure>();
+
+            for (Class cls : classes) {
+                try {
+                    validateMeasured(cls, metrics);
+                } catch (ClassTimeoutException e) {
+                    // A hanging class must not stop the run, it is reported with the other timeouts at the end.
+                    log.error(e.getMessage(), e);
+                    timeouts.add(new ValidationFailure(cls, e));
+                    continue;
+                }
+                recordPassed(cache, cls);
+            }
 
-            if (defaultValue == null && actualValue != null) {
-                validateDefaultingGetter(bean, method, field, actualValue);
-            } else {
-                assertEquals(actualValue, defaultValue, errorMsg);
+            if (!timeouts.isEmpty()) {
+                throw ValidationFailure.aggregate(timeouts, classes.size());
             }
-        } catch (IllegalAccessException e) {
-            fail(errorMsg + " : " + e.getMessage());
-        } catch (InvocationTargetException e) {
-            fail(errorMsg + " : " + e.getMessage());
         }
     }
 
     /**
-     * Some getter methods set a default value when the field is null.
+     * Validates the classes in chunks, each loaded by its own IsolatingClassLoader that is dropped once the
+     * chunk is done. Only the class names and failures are kept for the whole run.
      * <p/>
-     * This method checks for that special case.
-     *
-     * @param bean        the bean being tested.
-     * @param method      the getter method being tested.
-     * @param field       the field being tested.
-     * @param actualValue the actual value returned from the getter method.
-     * @throws IllegalAccessException if a problem occurs accessing the field.
+     * Shards are picked by name hash as the classes are not loaded up front.
      */
-    private void validateDefaultingGetter(Object bean, Method method, Field field, Object actualValue) throws IllegalAccessException {
-        final String errorMsg = "Failed to validate Getter (Defaulted Value Check): " +
-                bean.getClass().getName() + "." + method.getName();
+    private void validateIsolated(final ValidationMetrics metrics, final ValidationCache cache) {
+        final Sharding sharding = new Sharding(config.getShardIndex(), config.getShardCount(),
+                Collections.<String, Long>emptyMap());
+        final int chunkSize = config.getIsolationChunkSize();
+        final List<List<String>> chunks = new ArrayList<List<String>>();
+
+        List<String> chunk = new ArrayList<String>(chunkSize);
+        for (String clsName : classResolver.resolveClassNames(metrics)) {
+            if (sharding.isSelected(clsName)) {
+                chunk.add(clsName);
+
+                if (chunk.size() == chunkSize) {
+                    chunks.add(chunk);
+                    chunk = new ArrayList<String>(chunkSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
 
-        Object defaultedValue = field.get(bean);
-        assertEquals(actualValue, defaultedValue, errorMsg);
+        final Queue<ValidationFailure> failures = new ConcurrentLinkedQueue<ValidationFailure>();
+        final AtomicInteger candidateCount = new AtomicInteger();
+
+        if (config.getParallelism() > 1 && chunks.size() > 1) {
+            final ExecutorService executor = Executors.newFixedThreadPool(
+                    Math.min(config.getParallelism(), chunks.size()), new DaemonThreadFactory("autotest-chunk-"));
+            final List<Future<?>> futures = new ArrayList<Future<?>>();
+
+            try {
+                for (final List<String> classNames : chunks) {
+                    futures.add(executor.submit(new Runnable() {
+                        public void run() {
+                            candidateCount.addAndGet(validateChunk(classNames, metrics, cache, failures));
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while validating", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Failed to validate a chunk of classes", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        } else {
+            for (List<String> classNames : chunks) {
+                candidateCount.addAndGet(validateChunk(classNames, metrics, cache, failures));
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw ValidationFailure.aggregate(failures, candidateCount.get());
+        }
     }
 
-    private void validateSetter(Object bean, Method method, Field field) {
-        if (method == null) {
-            return;
+    /**
+     * Loads, filters and validates one chunk of classes in a new class loader.
+     *
+     * @return the number of classes validated.
+     */
+    private int validateChunk(List<String> classNames, ValidationMetrics metrics, ValidationCache cache,
+                              Collection<ValidationFailure> failures) {
+        final IsolatingClassLoader loader = new IsolatingClassLoader(
+                classResolver.getClassLoader(), config.getRootPackages());
+        final List<Class> loaded = new ArrayList<Class>(classNames.size());
+
+        for (String clsName : classNames) {
+            classResolver.loadClass(clsName, loader, loaded, metrics);
         }
 
-        final String errorMsg = "Failed to validate Setter: " +
-                bean.getClass().getName() + "." + method.getName();
+        List<Class> classes = new ValidBeanFilter().filter(loaded, config, metrics);
+        metrics.addFiltered(classes.size());
 
-        final Class<?>[] params = method.getParameterTypes();
-        final Class<?> fieldType = field.getType();
+        if (cache != null) {
+            classes = cache.filterUnchanged(classes);
+        }
 
-        assertEquals(params.length, 1, errorMsg + " - Setter must take one parameter");
+        for (Class cls : classes) {
+            final List<ValidationFailure> classFailures = new ArrayList<ValidationFailure>(1);
 
-        final Class<?> paramType = params[0];
-        if (!isTypeSafeAssignment(paramType, fieldType, "setter", errorMsg)) {
-            return;
+            validate(cls, classFailures, metrics);
+            failures.addAll(classFailures);
+
+            if (cache != null) {
+                if (classFailures.isEmpty()) {
+                    cache.recordPassed(cls);
+                } else {
+                    cache.recordFailed(cls);
+                }
+            }
         }
+        return classes.size();
+    }
 
-        Object value = createValue(paramType, errorMsg);
-        Object defaultValue = createDefaultValue(paramType);
+    /**
+     * Validates the classes as they are found, returning the results as they complete.
+     * <p/>
+     * Unlike validateAll() the set of classes is never held in memory and the first results are
+     * available before the scan has finished. Failures are returned as results rather than thrown.
+     *
+     * @return the results, which must be read to the end or closed.
+     */
+    public ValidationStream validateStream() {
+        return new ValidationStream(this, classResolver, config, createMetrics(), openCache(), STREAM_CAPACITY);
+    }
 
+    /**
+     * Starts watching the class directories of the root packages, see BeanWatcher.run().
+     *
+     * @return the watcher, which must be closed.
+     */
+    public BeanWatcher watch() {
         try {
-            field.setAccessible(true);
-            method.setAccessible(true);
-
-            method.invoke(bean, value);
-            assertEquals(field.get(bean), value, errorMsg);
-
-            method.invoke(bean, defaultValue);
-            assertEquals(field.get(bean), defaultValue, errorMsg);
-        } catch (IllegalAccessException e) {
-            fail(errorMsg + " : " + e.getMessage());
-        } catch (InvocationTargetException e) {
-            fail(errorMsg + " : " + e.getMessage());
+            return new BeanWatcher(this, classResolver, config);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to watch the class directories", e);
         }
     }
 
-    private Map<String, Method> getGetters(Collection<Method> methods) {
-        return mapPrefixedMethods(methods, GETTER_PREFIXES, 0);
+    /**
+     * Resolves the beans without validating them, see BeanTestFactory and AbstractBeanTest.
+     * <p/>
+     * The validation cache is not used, every bean of this shard gets a test. Call completeBeanTests() once
+     * the tests have run.
+     *
+     * @return one test per bean, ordered by class name.
+     */
+    public List<BeanTest> createBeanTests() {
+        testMetrics = createMetrics();
+
+        final Set<Class> clsSet = new HashSet<Class>();
+        classResolver.resolveClasses(clsSet);
+
+        // Sharding.select returns the classes sorted by name.
+        final List<Class> classes = Sharding.forConfig(config, listeners)
+                .select(new ValidBeanFilter().filter(clsSet, config));
+
+        final List<BeanTest> tests = new ArrayList<BeanTest>(classes.size());
+        for (Class cls : classes) {
+            tests.add(new BeanTest(this, cls));
+        }
+        return tests;
     }
 
-    private Map<String, Method> getSetters(Collection<Method> methods) {
-        return mapPrefixedMethods(methods, SETTER_PREFIXES, 1);
+    /**
+     * Validates a class for a BeanTest. TestNG may run tests on any number of threads, so classes with
+     * mutable static state are always validated one at a time.
+     *
+     * @param cls the class to validate.
+     */
+    void validateTest(Class cls) {
+        if (BeanDescriptor.forClass(cls).hasMutableStaticState()) {
+            synchronized (staticStateLock) {
+                validateMeasured(cls, testMetrics);
+            }
+        } else {
+            validateMeasured(cls, testMetrics);
+        }
     }
 
-    private Map<String, Method> mapPrefixedMethods(Collection<Method> methods, String[] prefixes, int paramCount) {
-        Map<String, Method> result = new HashMap<String, Method>();
+    /**
+     * Ends the run of the tests created by createBeanTests(), like the end of validateAll() this lets the
+     * validators save their state and notifies the listeners. AbstractBeanTest and BeanTestFactory call this
+     * after their tests, a custom factory calls it from an @AfterTest method.
+     */
+    public void completeBeanTests() {
+        completed(testMetrics, null);
+    }
 
-        for (Method method : methods) {
-            if (method.getParameterTypes().length == paramCount &&
-                    methodDeclaredUnderRootPackage(method)) {
-                String baseName = getBaseName(method.getName().toLowerCase(), prefixes);
+    /**
+     * Streams the validation results to a handler on the calling thread.
+     *
+     * @param handler receives every result.
+     * @see #validateStream()
+     */
+    public void validateAll(ValidationResultHandler handler) {
+        final ValidationStream stream = validateStream();
 
-                if (baseName != null) {
-                    result.put(baseName, method);
-                }
+        try {
+            while (stream.hasNext()) {
+                handler.handle(stream.next());
             }
+        } finally {
+            stream.close();
         }
-        return result;
     }
 
-    private boolean methodDeclaredUnderRootPackage(Method method) {
-        if (config.isValidateMethodsOutsideRootPackage()) {
-            return true;
-        }
+    private ValidationMetrics createMetrics() {
+        return listeners.isEmpty() ? ValidationMetrics.disabled() : new ValidationMetrics();
+    }
 
-        return ClassUtil.isDeclaredUnderRootPackage(config, method);
+    private ValidationCache openCache() {
+        return config.getValidationCacheFile() != null ?
+                ValidationCache.open(config.getValidationCacheFile(), config) : null;
     }
 
-    private String getBaseName(String name, String[] prefixes) {
-        for (String prefix : prefixes) {
-            if (name.startsWith(prefix)) {
-                return StringUtils.substringAfter(name, prefix);
+    /**
+     * Saves the cache and the serialization baseline, stops the watchdog, and notifies the listeners at
+     * the end of a run.
+     */
+    void completed(ValidationMetrics metrics, ValidationCache cache) {
+        shutdownWatchdog();
+
+        try {
+            if (cache != null) {
+                cache.save();
+            }
+        } finally {
+            for (BeanValidator validator : config.getValidators()) {
+                validator.validationCompleted(config);
+            }
+
+            for (ValidationListener listener : listeners) {
+                listener.validationCompleted(metrics);
             }
         }
-        return null;
     }
 
-    private Object createValue(Class<?> type, String errorMsg) {
-        Object value = valueMap.get(type);
+    /**
+     * Validates the classes on a fork-join pool.
+     * <p/>
+     * Classes with mutable static state are validated one at a time once the pool has finished,
+     * since beans sharing a static field could otherwise observe each other's values.
+     *
+     * @param classes the classes to validate.
+     * @param metrics where timings are recorded.
+     * @return the failures, in no particular order.
+     */
+    private Collection<ValidationFailure> validateParallel(List<Class> classes, ValidationMetrics metrics) {
+        final List<Class> concurrent = new ArrayList<Class>();
+        final List<Class> isolated = new ArrayList<Class>();
 
-        if (value == null && !type.isPrimitive()) {
-            value = ClassUtil.instanceClass(type, errorMsg);
+        for (Class cls : classes) {
+            if (BeanDescriptor.forClass(cls).hasMutableStaticState()) {
+                isolated.add(cls);
+            } else {
+                concurrent.add(cls);
+            }
         }
 
-        return value;
+        final Queue<ValidationFailure> failures = new ConcurrentLinkedQueue<ValidationFailure>();
+        final ForkJoinPool pool = new ForkJoinPool(config.getParallelism());
+
+        try {
+            pool.invoke(new ValidationTask(this, concurrent, 0, concurrent.size(), failures, metrics));
+        } finally {
+            pool.shutdown();
+        }
+
+        for (Class cls : isolated) {
+            validate(cls, failures, metrics);
+        }
+
+        return failures;
+    }
+
+    private static void recordPassed(ValidationCache cache, Class cls) {
+        if (cache != null) {
+            cache.recordPassed(cls);
+        }
     }
 
-    private static Map<Class<?>, Object> createValueMap() {
-        Map<Class<?>, Object> valueMap = new HashMap<Class<?>, Object>();
+    private static void recordPassed(ValidationCache cache, List<Class> classes, Collection<ValidationFailure> failures) {
+        if (cache == null) {
+            return;
+        }
 
-        valueMap.put(byte.class, new Byte((byte) 40));
-        valueMap.put(short.class, new Short((short) 41));
-        valueMap.put(int.class, new Integer(42));
-        valueMap.put(long.class, new Long(43));
-        valueMap.put(float.class, new Float(44));
-        valueMap.put(double.class, new Double(45));
-        valueMap.put(boolean.class, Boolean.TRUE);
-        valueMap.put(char.class, new Character((char) 46));
+        final Set<Class> failed = new HashSet<Class>();
+        for (ValidationFailure failure : failures) {
+            failed.add(failure.getBeanClass());
+        }
 
-        valueMap.put(Byte.class, new Byte((byte) 40));
-        valueMap.put(Short.class, new Short((short) 41));
-        valueMap.put(Integer.class, new Integer(42));
-        valueMap.put(Long.class, new Long(43));
-        valueMap.put(Float.class, new Float(44));
-        valueMap.put(Double.class, new Double(45));
-        valueMap.put(Boolean.class, Boolean.TRUE);
-        valueMap.put(Character.class, new Character((char) 46));
+        for (Class cls : classes) {
+            if (!failed.contains(cls)) {
+                cache.recordPassed(cls);
+            }
+        }
+    }
 
-        return valueMap;
+    /**
+     * Validates a class, recording any failure instead of throwing it.
+     *
+     * @param cls      the class to validate.
+     * @param failures where failures are recorded.
+     * @param metrics  where timings are recorded.
+     */
+    void validate(Class cls, Collection<ValidationFailure> failures, ValidationMetrics metrics) {
+        try {
+            validateMeasured(cls, metrics);
+        } catch (AssertionError e) {
+            failures.add(new ValidationFailure(cls, e));
+        } catch (RuntimeException e) {
+            log.error("Failed to validate class: " + cls.getName(), e);
+            failures.add(new ValidationFailure(cls, e));
+        }
     }
 
-    private Object createDefaultValue(Class<?> type) {
-        return defaultValueMap.get(type);
+    /**
+     * Validates a class for the ValidationStream.
+     * <p/>
+     * Classes with mutable static state are validated one at a time when running in parallel.
+     *
+     * @param cls     the class to validate.
+     * @param metrics where timings are recorded.
+     * @return the result.
+     */
+    ValidationResult validateResult(Class cls, ValidationMetrics metrics) {
+        final List<ValidationFailure> failures = new ArrayList<ValidationFailure>(1);
+
+        if (config.getParallelism() > 1 && BeanDescriptor.forClass(cls).hasMutableStaticState()) {
+            synchronized (staticStateLock) {
+                validate(cls, failures, metrics);
+            }
+        } else {
+            validate(cls, failures, metrics);
+        }
+
+        return new ValidationResult(cls, failures.isEmpty() ? null : failures.get(0).getCause());
     }
 
-    private static Map<Class<?>, Object> createDefaultValueMap() {
-        Map<Class<?>, Object> valueMap = new HashMap<Class<?>, Object>();
+    /**
+     * Validates a class and reports its timing to the listeners.
+     *
+     * @param cls     the class to validate.
+     * @param metrics where timings are recorded.
+     */
+    private void validateMeasured(Class cls, ValidationMetrics metrics) {
+        final long nanos = metrics.startNanos();
+        final long bytes = metrics.startBytes();
+        long workerBytes = 0L;
+        boolean passed = false;
 
-        valueMap.put(byte.class, new Byte((byte) 0));
-        valueMap.put(short.class, new Short((short) 0));
-        valueMap.put(int.class, new Integer(0));
-        valueMap.put(long.class, new Long(0));
-        valueMap.put(float.class, new Float(0));
-        valueMap.put(double.class, new Double(0));
-        valueMap.put(boolean.class, Boolean.FALSE);
-        valueMap.put(char.class, new Character((char) 0));
+        try {
+            if (config.getClassTimeoutMillis() > 0) {
+                workerBytes = validateWithTimeout(cls, metrics);
+            } else {
+                validate(cls, metrics);
+            }
+            passed = true;
+        } finally {
+            metrics.addValidated(1);
 
-        valueMap.put(Byte.class, new Byte((byte) 0));
-        valueMap.put(Short.class, new Short((short) 0));
-        valueMap.put(Integer.class, new Integer(0));
-        valueMap.put(Long.class, new Long(0));
-        valueMap.put(Float.class, new Float(0));
-        valueMap.put(Double.class, new Double(0));
-        valueMap.put(Boolean.class, Boolean.FALSE);
-        valueMap.put(Character.class, new Character((char) 0));
+            if (metrics.isEnabled()) {
+                final long elapsedNanos = metrics.elapsedNanos(nanos);
+                final long allocatedBytes = metrics.allocatedBytesSince(bytes) + workerBytes;
 
-        return valueMap;
+                for (ValidationListener listener : listeners) {
+                    listener.classValidated(cls, elapsedNanos, allocatedBytes, passed);
+                }
+            }
+        }
     }
 
-    private boolean isTypeSafeAssignment(Class<?> sourceType, Class<?> targetType, String methodType, String errorMsg) {
-        if (targetType.isAssignableFrom(sourceType)) {
-            // All ok
-            return true;
+    /**
+     * Validates a class on a watchdog thread.
+     *
+     * @return the bytes allocated by the watchdog thread.
+     * @throws ClassTimeoutException if the class is not validated within the timeout.
+     */
+    private long validateWithTimeout(final Class cls, final ValidationMetrics metrics) {
+        try {
+            return getWatchdog().call(cls, new Callable<Long>() {
+                public Long call() {
+                    final long bytes = metrics.startBytes();
+
+                    validate(cls, metrics);
+                    return metrics.allocatedBytesSince(bytes);
+                }
+            });
+        } catch (ClassTimeoutException e) {
+            metrics.addTimedOut(1);
+            throw e;
         }
+    }
 
-        String msg = errorMsg + " variable and " +
-                methodType + " have different types (" +
-                sourceType.getSimpleName() + " -> " +
-                targetType.getSimpleName() + "): ";
-        log.warn(msg);
+    private synchronized ClassWatchdog getWatchdog() {
+        if (watchdog == null || watchdog.getTimeoutMillis() != config.getClassTimeoutMillis()) {
+            shutdownWatchdog();
+            watchdog = new ClassWatchdog(config.getClassTimeoutMillis());
+        }
+        return watchdog;
+    }
 
-        if (config.isFailOnBadAssignment()) {
-            fail(msg);
+    private synchronized void shutdownWatchdog() {
+        if (watchdog != null) {
+            watchdog.shutdown();
+            watchdog = null;
         }
+    }
 
-        return false;
+    void validate(Class cls) {
+        validate(cls, ValidationMetrics.disabled());
     }
-}
 
+    private void validate(Class cls, ValidationMetrics metrics) {
+        long nanos = metrics.startNanos();
+        long bytes = metrics.startBytes();
+        final BeanContext context = new BeanContext(cls, config, metrics);
+        metrics.record(ValidationPhase.DESCRIBE, nanos, bytes);
+
+        nanos = metrics.startNanos();
+        bytes = metrics.startBytes();
+        context.getBean();
+        metrics.record(ValidationPhase.INSTANTIATE, nanos, bytes);
+
+        for (BeanValidator validator : config.getValidators()) {
+            if (validator.isEnabled(config)) {
+                final long recordedNanos = context.getRecordedNanos();
+                final long recordedBytes = context.getRecordedBytes();
+
+                nanos = metrics.startNanos();
+                bytes = metrics.startBytes();
+                validator.validate(context);
+
+                // Work the validator recorded to another phase is not counted twice.
+                metrics.add(validator.getPhase(),
+                        metrics.elapsedNanos(nanos) - (context.getRecordedNanos() - recordedNanos),
+                        metrics.allocatedBytesSince(bytes) - (context.getRecordedBytes() - recordedBytes));
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+
+/**
+ * What the validators of one class share: the class, its descriptor and fields, and a bean instance.
+ * <p/>
+ * The shared bean is created on first use. Validators that need an untouched bean, or several, create
+ * their own with newInstance().
+ */
+public class BeanContext {
+    private final Class beanClass;
+    private final AutoTestConfig config;
+    private final BeanDescriptor descriptor;
+    private final Collection<Field> fields;
+    private final ValidationMetrics metrics;
+    private Object bean;
+    private long recordedNanos;
+    private long recordedBytes;
+
+    public BeanContext(Class beanClass, AutoTestConfig config) {
+        this(beanClass, config, ValidationMetrics.disabled());
+    }
+
+    public BeanContext(Class beanClass, AutoTestConfig config, ValidationMetrics metrics) {
+        this.beanClass = beanClass;
+        this.config = config;
+        this.descriptor = BeanDescriptor.forClass(beanClass);
+        this.fields = descriptor.getFields(config);
+        this.metrics = metrics;
+    }
+
+    public Class getBeanClass() {
+        return beanClass;
+    }
+
+    public AutoTestConfig getConfig() {
+        return config;
+    }
+
+    public BeanDescriptor getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * @return the fields of the class and its super classes, as returned by BeanDescriptor.getFields().
+     */
+    public Collection<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return the bean shared by the validators of the class.
+     */
+    public Object getBean() {
+        if (bean == null) {
+            bean = newInstance();
+        }
+        return bean;
+    }
+
+    /**
+     * Records work done by a validator that belongs to another phase than the validator's own, the work
+     * is taken out of the validator's phase.
+     *
+     * @param phase          the phase.
+     * @param nanos          the elapsed time.
+     * @param allocatedBytes the bytes allocated.
+     */
+    public void record(ValidationPhase phase, long nanos, long allocatedBytes) {
+        if (metrics.isEnabled()) {
+            metrics.add(phase, nanos, allocatedBytes);
+            recordedNanos += nanos;
+            recordedBytes += allocatedBytes;
+        }
+    }
+
+    long getRecordedNanos() {
+        return recordedNanos;
+    }
+
+    long getRecordedBytes() {
+        return recordedBytes;
+    }
+
+    /**
+     * @return a new bean.
+     */
+    public Object newInstance() {
+        return ClassUtil.instanceClass(beanClass, "Failed to create class : " + beanClass.getName());
+    }
+}
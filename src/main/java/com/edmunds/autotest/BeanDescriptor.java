@@ -0,0 +1,260 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable reflection metadata for a single class.
+ * <p/>
+ * Descriptors are computed once per class and cached on the class itself (via ClassValue) so the
+ * cache never keeps a class loader alive. Anything that depends on an AutoTestConfig (field override
+ * checks and which accessors are declared under the root package) is applied when the descriptor is
+ * queried, which allows one descriptor to be shared by every config.
+ */
+public final class BeanDescriptor {
+    private static final Log log = LogFactory.getLog(BeanDescriptor.class);
+
+    private static final String[] GETTER_PREFIXES = {"has", "is", "get"};
+    private static final String[] SETTER_PREFIXES = {"set"};
+    private static final Method[] NO_METHODS = new Method[0];
+
+    private static final ClassValue<BeanDescriptor> DESCRIPTORS = new ClassValue<BeanDescriptor>() {
+        @Override
+        protected BeanDescriptor computeValue(Class<?> type) {
+            return new BeanDescriptor(type);
+        }
+    };
+
+    private final Class beanClass;
+    private final boolean standardClass;
+    private final Constructor defaultConstructor;
+    private final boolean mutableStaticState;
+    private final Collection<Field> fields;
+    private final List<Field> overriddenFields;
+    private final Map<String, Method[]> getters;
+    private final Map<String, Method[]> setters;
+
+    private BeanDescriptor(Class beanClass) {
+        this.beanClass = beanClass;
+        this.standardClass = ClassUtil.isStandardClass(beanClass);
+        this.defaultConstructor = beanClass.isInterface() ? null : ClassUtil.getDefaultConstructor(beanClass);
+
+        final Map<String, Field> fieldMap = new LinkedHashMap<String, Field>();
+        final List<Field> overridden = new ArrayList<Field>();
+        boolean mutableStatic = false;
+
+        Class cls = beanClass;
+        while(cls != null) {
+            for(Field field : cls.getDeclaredFields()) {
+                if (fieldMap.containsKey(field.getName())) {
+                    overridden.add(field);
+                } else {
+                    fieldMap.put(field.getName(), field);
+                }
+
+                final int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && !field.isSynthetic()) {
+                    mutableStatic = true;
+                }
+            }
+            cls = cls.getSuperclass();
+        }
+
+        this.fields = Collections.unmodifiableCollection(new ArrayList<Field>(fieldMap.values()));
+        this.overriddenFields = Collections.unmodifiableList(overridden);
+        this.mutableStaticState = mutableStatic;
+
+        final Collection<Method> methods = beanClass.isInterface() ?
+                Collections.<Method>emptyList() : ClassUtil.getAllDeclaredMethods(beanClass);
+
+        this.getters = mapPrefixedMethods(methods, GETTER_PREFIXES, 0);
+        this.setters = mapPrefixedMethods(methods, SETTER_PREFIXES, 1);
+
+        if (standardClass && defaultConstructor != null) {
+            makeAccessible(defaultConstructor);
+        }
+    }
+
+    /**
+     * The module system refuses access to non-public constructors in packages that are not opened, those
+     * stay inaccessible and fail when they are used.
+     */
+    private static void makeAccessible(Constructor constructor) {
+        try {
+            constructor.setAccessible(true);
+        } catch(RuntimeException e) {
+            log.debug("Can't make accessible: " + constructor, e);
+        }
+    }
+
+    public static BeanDescriptor forClass(Class cls) {
+        return DESCRIPTORS.get(cls);
+    }
+
+    public Class getBeanClass() {
+        return beanClass;
+    }
+
+    public boolean isStandardClass() {
+        return standardClass;
+    }
+
+    public boolean hasDefaultConstructor() {
+        return defaultConstructor != null;
+    }
+
+    /**
+     * The no argument constructor, already made accessible for standard classes where the module system
+     * allows it.
+     *
+     * @return the default constructor or null if the class does not have one.
+     */
+    public Constructor getDefaultConstructor() {
+        return defaultConstructor;
+    }
+
+    public boolean hasMutableStaticState() {
+        return mutableStaticState;
+    }
+
+    /**
+     * Returns every field declared by the class and its super classes, reporting fields that have
+     * been overridden (hidden) by a sub class according to the config.
+     *
+     * @param config the config controlling the override checks.
+     * @return the fields, a hidden field is only returned for the class that declares it lowest.
+     */
+    public Collection<Field> getFields(AutoTestConfig config) {
+        for(Field field : overriddenFields) {
+            ClassUtil.checkFieldOverride(beanClass, field, config);
+        }
+        return fields;
+    }
+
+    /**
+     * Looks up the getter for a property.
+     *
+     * @param propertyName the lower case property name.
+     * @param config       the config controlling which declaring classes are accepted.
+     * @return the getter or null.
+     */
+    public Method getGetter(String propertyName, AutoTestConfig config) {
+        return resolve(getters.get(propertyName), config);
+    }
+
+    /**
+     * Looks up the setter for a property.
+     *
+     * @param propertyName the lower case property name.
+     * @param config       the config controlling which declaring classes are accepted.
+     * @return the setter or null.
+     */
+    public Method getSetter(String propertyName, AutoTestConfig config) {
+        return resolve(setters.get(propertyName), config);
+    }
+
+    /**
+     * Finds the declaration a call to an accessor dispatches to for this class. The accessors returned by
+     * getGetter() and getSetter() are the super most declarations, which a sub class may override.
+     *
+     * @param accessor     a getter or setter returned by this descriptor.
+     * @param propertyName the lower case property name.
+     * @return the declaration in the most specific class.
+     */
+    Method getImplementation(Method accessor, String propertyName) {
+        final Class<?>[] params = accessor.getParameterTypes();
+        final Method[] candidates = (params.length == 0 ? getters : setters).get(propertyName);
+
+        if (candidates != null) {
+            for(Method candidate : candidates) {
+                if (candidate.getName().equals(accessor.getName()) &&
+                        Arrays.equals(candidate.getParameterTypes(), params)) {
+                    return candidate;
+                }
+            }
+        }
+        return accessor;
+    }
+
+    /**
+     * Candidates are stored in the order the hierarchy was walked (sub class first) and the last
+     * acceptable one wins, matching the behaviour of building a name to method map in that order.
+     */
+    private static Method resolve(Method[] candidates, AutoTestConfig config) {
+        if (candidates == null) {
+            return null;
+        }
+
+        for(int i = candidates.length - 1; i >= 0; i--) {
+            final Method method = candidates[i];
+
+            if (config.isValidateMethodsOutsideRootPackage() ||
+                    ClassUtil.isDeclaredUnderRootPackage(config, method)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Method[]> mapPrefixedMethods(Collection<Method> methods, String[] prefixes, int paramCount) {
+        final Map<String, List<Method>> candidates = new HashMap<String, List<Method>>();
+
+        for(Method method : methods) {
+            if (method.getParameterTypes().length == paramCount) {
+                final String baseName = getBaseName(method.getName().toLowerCase(), prefixes);
+
+                if (baseName != null) {
+                    List<Method> list = candidates.get(baseName);
+                    if (list == null) {
+                        list = new ArrayList<Method>(1);
+                        candidates.put(baseName, list);
+                    }
+                    list.add(method);
+                }
+            }
+        }
+
+        final Map<String, Method[]> result = new HashMap<String, Method[]>();
+        for(Map.Entry<String, List<Method>> entry : candidates.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toArray(NO_METHODS));
+        }
+        return result;
+    }
+
+    private static String getBaseName(String name, String[] prefixes) {
+        for(String prefix : prefixes) {
+            if (name.startsWith(prefix)) {
+                return name.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Set;
+
+/**
+ * An estimate of the heap a single bean instance takes, not counting the objects it references.
+ * <p/>
+ * Fields are laid out the way HotSpot lays them out: the fields of each class in the hierarchy after those
+ * of its super class, largest first, with smaller fields filling the gaps left by alignment. The header,
+ * reference size and alignment come from the running JVM's MemoryModel. The estimate also reports the
+ * boxed primitive fields and the super class fields hidden by a field of the same name, which both cost
+ * memory a bean usually doesn't need.
+ */
+public class BeanFootprint {
+    private static final Class<?>[] BOXED_TYPES = {
+            Boolean.class, Byte.class, Character.class, Short.class,
+            Integer.class, Float.class, Long.class, Double.class};
+
+    private final Class beanClass;
+    private final MemoryModel model;
+    private final int shallowSize;
+    private final int fieldBytes;
+    private final List<Field> boxedFields;
+    private final List<Field> shadowedFields;
+
+    private BeanFootprint(Class beanClass, MemoryModel model, int shallowSize, int fieldBytes,
+                          List<Field> boxedFields, List<Field> shadowedFields) {
+        this.beanClass = beanClass;
+        this.model = model;
+        this.shallowSize = shallowSize;
+        this.fieldBytes = fieldBytes;
+        this.boxedFields = Collections.unmodifiableList(boxedFields);
+        this.shadowedFields = Collections.unmodifiableList(shadowedFields);
+    }
+
+    /**
+     * Estimates the footprint of a class under the running JVM's memory model.
+     *
+     * @param cls the class.
+     * @return the footprint.
+     */
+    public static BeanFootprint of(Class cls) {
+        return of(cls, MemoryModel.CURRENT);
+    }
+
+    public static BeanFootprint of(Class cls, MemoryModel model) {
+        final List<Class> hierarchy = new ArrayList<Class>();
+        for (Class c = cls; c != null; c = c.getSuperclass()) {
+            hierarchy.add(0, c);
+        }
+
+        final LinkedList<int[]> gaps = new LinkedList<int[]>();
+        final Set<String> names = new HashSet<String>();
+        final List<Field> boxedFields = new ArrayList<Field>();
+        final List<Field> shadowedFields = new ArrayList<Field>();
+        int end = model.getHeaderSize();
+        int fieldBytes = 0;
+
+        // Walk the sub classes first to find the hidden fields, then lay out from Object down.
+        for (int i = hierarchy.size() - 1; i >= 0; i--) {
+            final Set<String> declared = new HashSet<String>();
+
+            for (Field field : getInstanceFields(hierarchy.get(i))) {
+                if (names.contains(field.getName())) {
+                    shadowedFields.add(field);
+                }
+                declared.add(field.getName());
+
+                if (isBoxed(field.getType())) {
+                    boxedFields.add(field);
+                }
+            }
+            names.addAll(declared);
+        }
+
+        for (Class c : hierarchy) {
+            final List<Field> fields = getInstanceFields(c);
+
+            Collections.sort(fields, new LargestFirst(model));
+            for (Field field : fields) {
+                final int size = model.sizeOf(field.getType());
+                fieldBytes += size;
+
+                if (!fillGap(gaps, size)) {
+                    final int offset = align(end, size);
+                    if (offset > end) {
+                        gaps.add(new int[] {end, offset});
+                    }
+                    end = offset + size;
+                }
+            }
+        }
+
+        return new BeanFootprint(cls, model, align(end, model.getAlignment()), fieldBytes, boxedFields, shadowedFields);
+    }
+
+    private static List<Field> getInstanceFields(Class cls) {
+        final List<Field> fields = new ArrayList<Field>();
+
+        for (Field field : cls.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Places a field in the first gap it fits into at its natural alignment.
+     */
+    private static boolean fillGap(LinkedList<int[]> gaps, int size) {
+        for (ListIterator<int[]> it = gaps.listIterator(); it.hasNext(); ) {
+            final int[] gap = it.next();
+            final int offset = align(gap[0], size);
+
+            if (offset + size <= gap[1]) {
+                it.remove();
+                if (offset > gap[0]) {
+                    it.add(new int[] {gap[0], offset});
+                }
+                if (offset + size < gap[1]) {
+                    it.add(new int[] {offset + size, gap[1]});
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int align(int offset, int alignment) {
+        return (offset + alignment - 1) / alignment * alignment;
+    }
+
+    static boolean isBoxed(Class<?> type) {
+        for (Class<?> boxed : BOXED_TYPES) {
+            if (boxed == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Class getBeanClass() {
+        return beanClass;
+    }
+
+    /**
+     * @return the estimated size of an instance, including header and padding.
+     */
+    public int getShallowSize() {
+        return shallowSize;
+    }
+
+    /**
+     * @return the bytes taken by the fields themselves.
+     */
+    public int getFieldBytes() {
+        return fieldBytes;
+    }
+
+    /**
+     * @return the bytes lost to alignment, between fields and at the end of the instance.
+     */
+    public int getPaddingBytes() {
+        return shallowSize - model.getHeaderSize() - fieldBytes;
+    }
+
+    /**
+     * @return the fields declared with a boxed primitive type, such as Integer or Long.
+     */
+    public List<Field> getBoxedFields() {
+        return boxedFields;
+    }
+
+    /**
+     * @return the super class fields hidden by a sub class field of the same name.
+     */
+    public List<Field> getShadowedFields() {
+        return shadowedFields;
+    }
+
+    /**
+     * The bytes that could be saved: padding, the box objects of boxed fields (assuming none of them come
+     * from the shared caches) and the shadowed fields.
+     *
+     * @return the estimated waste.
+     */
+    public int getWastedBytes() {
+        int wasted = getPaddingBytes();
+
+        for (Field field : boxedFields) {
+            final Class<?> primitive = MemoryModel.unbox(field.getType());
+            wasted += align(model.getHeaderSize() + model.sizeOf(primitive), model.getAlignment());
+        }
+        for (Field field : shadowedFields) {
+            wasted += model.sizeOf(field.getType());
+        }
+        return wasted;
+    }
+
+    @Override
+    public String toString() {
+        return beanClass.getName() + ": " + shallowSize + " bytes, " + getWastedBytes() + " wasted";
+    }
+
+    private static class LargestFirst implements Comparator<Field> {
+        private final MemoryModel model;
+
+        LargestFirst(MemoryModel model) {
+            this.model = model;
+        }
+
+        public int compare(Field o1, Field o2) {
+            return model.sizeOf(o2.getType()) - model.sizeOf(o1.getType());
+        }
+    }
+
+    /**
+     * The object header size, reference size and object alignment of a JVM.
+     */
+    public static class MemoryModel {
+        private static final Log log = LogFactory.getLog(MemoryModel.class);
+
+        /**
+         * A 64 bit HotSpot JVM with compressed oops and class pointers, the default for heaps under 32GB.
+         */
+        public static final MemoryModel COMPRESSED = new MemoryModel(12, 4, 8);
+
+        /**
+         * A 64 bit HotSpot JVM without compressed oops.
+         */
+        public static final MemoryModel UNCOMPRESSED = new MemoryModel(16, 8, 8);
+
+        /**
+         * The running JVM, COMPRESSED if its settings can't be read.
+         */
+        public static final MemoryModel CURRENT = detect();
+
+        private final int headerSize;
+        private final int referenceSize;
+        private final int alignment;
+
+        public MemoryModel(int headerSize, int referenceSize, int alignment) {
+            this.headerSize = headerSize;
+            this.referenceSize = referenceSize;
+            this.alignment = alignment;
+        }
+
+        private static MemoryModel detect() {
+            try {
+                final com.sun.management.HotSpotDiagnosticMXBean bean =
+                        ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+
+                if (bean != null) {
+                    final boolean compressedOops = Boolean.parseBoolean(bean.getVMOption("UseCompressedOops").getValue());
+                    final boolean compressedClasses = getBooleanOption(bean, "UseCompressedClassPointers", compressedOops);
+                    final int alignment = Integer.parseInt(bean.getVMOption("ObjectAlignmentInBytes").getValue());
+
+                    return new MemoryModel(compressedClasses ? 12 : 16, compressedOops ? 4 : 8, alignment);
+                }
+            } catch (LinkageError e) {
+                log.debug("HotSpot VM options are not available", e);
+            } catch (RuntimeException e) {
+                log.debug("HotSpot VM options are not available", e);
+            }
+            return COMPRESSED;
+        }
+
+        private static boolean getBooleanOption(com.sun.management.HotSpotDiagnosticMXBean bean, String name,
+                                                boolean defaultValue) {
+            try {
+                return Boolean.parseBoolean(bean.getVMOption(name).getValue());
+            } catch (IllegalArgumentException e) {
+                // The option doesn't exist before Java 8.
+                return defaultValue;
+            }
+        }
+
+        public int getHeaderSize() {
+            return headerSize;
+        }
+
+        public int getReferenceSize() {
+            return referenceSize;
+        }
+
+        public int getAlignment() {
+            return alignment;
+        }
+
+        /**
+         * @return the bytes a field of the type takes.
+         */
+        public int sizeOf(Class<?> type) {
+            if (type == long.class || type == double.class) {
+                return 8;
+            } else if (type == int.class || type == float.class) {
+                return 4;
+            } else if (type == short.class || type == char.class) {
+                return 2;
+            } else if (type == byte.class || type == boolean.class) {
+                return 1;
+            }
+            return referenceSize;
+        }
+
+        static Class<?> unbox(Class<?> boxed) {
+            if (boxed == Long.class) {
+                return long.class;
+            } else if (boxed == Double.class) {
+                return double.class;
+            } else if (boxed == Integer.class) {
+                return int.class;
+            } else if (boxed == Float.class) {
+                return float.class;
+            } else if (boxed == Short.class) {
+                return short.class;
+            } else if (boxed == Character.class) {
+                return char.class;
+            } else if (boxed == Byte.class) {
+                return byte.class;
+            }
+            return boolean.class;
+        }
+
+        @Override
+        public String toString() {
+            return headerSize + " byte headers, " + referenceSize + " byte references, " + alignment + " byte alignment";
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The beans listed by the BeanIndexProcessor when the classes were compiled.
+ * <p/>
+ * The index is stored in META-INF/autotest/beans.idx of every class directory or jar it was generated for.
+ * Each class that would pass the ValidBeanFilter is listed on a line of its own, the other top level
+ * classes of the same compilation are listed on lines starting with "- ". Lines starting with '#' are
+ * comments. The ClassResolver uses the full list to tell whether the index still matches the classes of
+ * its root.
+ */
+public class BeanIndex {
+    public static final String LOCATION = "META-INF/autotest/beans.idx";
+
+    private static final String HEADER = "# autotest bean index v2";
+    private static final String CLASS_PREFIX = "- ";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * @return true if the class is listed as a bean.
+     */
+    public boolean contains(String className) {
+        final Entry entry = entries.get(className);
+
+        return entry != null && entry.isBean();
+    }
+
+    public Entry getEntry(String className) {
+        return entries.get(className);
+    }
+
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Adds the entries of an index file to this index.
+     *
+     * @param in the index file, it is not closed.
+     * @return the entries that were read.
+     * @throws IOException if the index can't be read.
+     */
+    public List<Entry> read(InputStream in) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+        final List<Entry> read = new ArrayList<Entry>();
+        String line;
+
+        while((line = reader.readLine()) != null) {
+            if (line.length() == 0 || line.startsWith("#")) {
+                continue;
+            }
+
+            if (line.startsWith(CLASS_PREFIX)) {
+                read.add(new Entry(line.substring(CLASS_PREFIX.length()).trim(), false));
+            } else if (!line.startsWith(" ")) {
+                read.add(new Entry(line.trim(), true));
+            } else {
+                throw new IOException("Malformed bean index line: " + line);
+            }
+        }
+
+        for(Entry e : read) {
+            entries.put(e.getClassName(), e);
+        }
+        return read;
+    }
+
+    /**
+     * Writes entries in the format read by read(InputStream).
+     *
+     * @param entries the entries to write.
+     * @param out     the writer, it is not closed.
+     * @throws IOException if the index can't be written.
+     */
+    public static void write(Collection<Entry> entries, Writer out) throws IOException {
+        out.write(HEADER);
+        out.write('\n');
+
+        for(Entry entry : entries) {
+            if (!entry.isBean()) {
+                out.write(CLASS_PREFIX);
+            }
+            out.write(entry.getClassName());
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    public static class Entry {
+        private final String className;
+        private final boolean bean;
+
+        public Entry(String className, boolean bean) {
+            this.className = className;
+            this.bean = bean;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * @return false for the other classes that were compiled along with the beans.
+         */
+        public boolean isBean() {
+            return bean;
+        }
+    }
+}
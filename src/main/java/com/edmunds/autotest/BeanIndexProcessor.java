@@ -0,0 +1,162 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Writes the BeanIndex for the classes being compiled, so the ClassResolver does not have to scan them.
+ * <p/>
+ * The processor is not registered as a service, add it to the compiler's processor path for the sources
+ * that contain the beans (for example with the maven-compiler-plugin annotationProcessors setting). The
+ * "autotest.index.packages" option limits the index to a comma separated list of packages.
+ * <p/>
+ * The index lists every top level class compiled by a single compiler invocation, a root whose class
+ * files no longer match that list (for example after an incremental build) is scanned instead.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(BeanIndexProcessor.PACKAGES_OPTION)
+public class BeanIndexProcessor extends AbstractProcessor {
+    public static final String PACKAGES_OPTION = "autotest.index.packages";
+
+    private final Map<String, BeanIndex.Entry> entries = new TreeMap<String, BeanIndex.Entry>();
+    private final List<String> packages = new ArrayList<String>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+
+        final String option = processingEnv.getOptions().get(PACKAGES_OPTION);
+        if (option != null) {
+            for(String packageName : option.split(",")) {
+                if (packageName.trim().length() > 0) {
+                    packages.add(packageName.trim());
+                }
+            }
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for(TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            final String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+
+            if (isUnderPackages(className)) {
+                final boolean bean = type.getKind() == ElementKind.CLASS && isBean(type);
+                entries.put(className, new BeanIndex.Entry(className, bean));
+            }
+        }
+
+        if (roundEnv.processingOver() && !entries.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private boolean isUnderPackages(String className) {
+        if (packages.isEmpty()) {
+            return true;
+        }
+
+        for(String packageName : packages) {
+            if (className.startsWith(packageName + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mirrors the ValidBeanFilter: a top level concrete class with a no argument constructor and at
+     * least one field declared by it or a super class.
+     */
+    private boolean isBean(TypeElement type) {
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+
+        boolean hasDefaultConstructor = false;
+        for(ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                hasDefaultConstructor = true;
+            }
+        }
+
+        return hasDefaultConstructor && hasFields(type);
+    }
+
+    private static boolean hasFields(TypeElement type) {
+        TypeElement current = type;
+
+        while(current != null) {
+            if (!ElementFilter.fieldsIn(current.getEnclosedElements()).isEmpty()) {
+                return true;
+            }
+
+            final TypeMirror superClass = current.getSuperclass();
+            current = superClass.getKind() == TypeKind.DECLARED ?
+                    (TypeElement) ((DeclaredType) superClass).asElement() : null;
+        }
+        return false;
+    }
+
+    private void writeIndex() {
+        try {
+            final FileObject file = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, "", BeanIndex.LOCATION);
+            final Writer out = new OutputStreamWriter(file.openOutputStream(), "UTF-8");
+
+            try {
+                BeanIndex.write(entries.values(), out);
+            } finally {
+                out.close();
+            }
+        } catch(IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + BeanIndex.LOCATION + ": " + e);
+        }
+    }
+}
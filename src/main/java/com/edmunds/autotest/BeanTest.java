@@ -0,0 +1,52 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.testng.ITest;
+import org.testng.annotations.Test;
+
+/**
+ * A TestNG test validating a single bean, so each bean is reported with its own result and duration.
+ * <p/>
+ * Instances are created by AutoTestGetterSetter.createBeanTests(), see BeanTestFactory and AbstractBeanTest.
+ */
+public class BeanTest implements ITest {
+    private final AutoTestGetterSetter validator;
+    private final Class beanClass;
+
+    BeanTest(AutoTestGetterSetter validator, Class beanClass) {
+        this.validator = validator;
+        this.beanClass = beanClass;
+    }
+
+    @Test
+    public void validate() {
+        validator.validateTest(beanClass);
+    }
+
+    public Class getBeanClass() {
+        return beanClass;
+    }
+
+    public String getTestName() {
+        return beanClass.getName();
+    }
+
+    @Override
+    public String toString() {
+        return beanClass.getName();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.lang.StringUtils;
+import org.testng.annotations.AfterTest;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Parameters;
+
+/**
+ * A TestNG factory creating one BeanTest per bean under the packages named by the autotest.rootPackages
+ * suite parameter, a comma separated list:
+ * <pre>
+ * &lt;test name="beans" parallel="methods" thread-count="8"&gt;
+ *     &lt;parameter name="autotest.rootPackages" value="com.example.model"/&gt;
+ *     &lt;classes&gt;
+ *         &lt;class name="com.edmunds.autotest.BeanTestFactory"/&gt;
+ *     &lt;/classes&gt;
+ * &lt;/test&gt;
+ * </pre>
+ * Every bean is a test instance of its own, so parallel="methods" spreads the beans over the thread pool.
+ * <p/>
+ * TestNG only finds factory methods declared by the class itself, to configure the validation declare a
+ * factory method returning AutoTestGetterSetter.createBeanTests().toArray() instead, and an @AfterTest method
+ * calling AutoTestGetterSetter.completeBeanTests() so the validators and listeners see the end of the run.
+ */
+public class BeanTestFactory {
+    public static final String ROOT_PACKAGES_PARAMETER = "autotest.rootPackages";
+
+    private AutoTestGetterSetter autoTest;
+
+    @Factory
+    @Parameters(ROOT_PACKAGES_PARAMETER)
+    public Object[] createTests(String rootPackages) {
+        final String[] packages = StringUtils.stripAll(StringUtils.split(rootPackages, ','));
+
+        autoTest = new AutoTestGetterSetter(getClass().getClassLoader(), packages);
+        return autoTest.createBeanTests().toArray();
+    }
+
+    @AfterTest(alwaysRun = true)
+    public void completeTests() {
+        if (autoTest != null) {
+            autoTest.completeBeanTests();
+        }
+    }
+}
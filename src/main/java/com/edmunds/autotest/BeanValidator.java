@@ -0,0 +1,53 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+/**
+ * A check run on every bean that validateAll() resolves and filters.
+ * <p/>
+ * All enabled validators share one pass over the classpath: each class is described and instantiated
+ * once, and the BeanContext holding the descriptor, fields and bean is handed to the validators in turn.
+ * Validators are found through java.util.ServiceLoader, so a jar adds its own checks by listing them in
+ * META-INF/services/com.edmunds.autotest.BeanValidator. They need a public no argument constructor and
+ * must be thread safe when validating in parallel.
+ */
+public interface BeanValidator {
+
+    /**
+     * @return the phase the validator's time and allocation are recorded under.
+     */
+    ValidationPhase getPhase();
+
+    /**
+     * @param config the config of the run.
+     * @return true if the validator should run.
+     */
+    boolean isEnabled(AutoTestConfig config);
+
+    /**
+     * Validates a bean, failing with an AssertionError.
+     *
+     * @param context the class, its descriptor and the shared bean.
+     */
+    void validate(BeanContext context);
+
+    /**
+     * Called at the end of every validation run, even when the validator wasn't enabled.
+     *
+     * @param config the config of the run.
+     */
+    void validationCompleted(AutoTestConfig config);
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revalidates beans as their class files change, for a JVM that is left running during development.
+ * <p/>
+ * The class directories of the root packages are watched with a WatchService, jars can't change and are
+ * ignored. The class names and super class of every class file are read once and kept up to date, so a
+ * change only costs reading the changed class files. Each batch of changes revalidates the changed classes
+ * and every class that extends them, loaded by a new IsolatingClassLoader so the new class files are
+ * used, while the JVM, the validators and the reflection caches stay warm.
+ */
+public class BeanWatcher implements Closeable {
+    private static final Log log = LogFactory.getLog(BeanWatcher.class);
+
+    private static final String CLASS_POSTFIX = ".class";
+    private static final long QUIET_MILLIS = 100L;
+
+    private final AutoTestGetterSetter validator;
+    private final ClassResolver classResolver;
+    private final AutoTestConfig config;
+    private final WatchService watchService;
+    private final Map<WatchKey, String> packageNames = new ConcurrentHashMap<WatchKey, String>();
+    private final Map<String, String> superClassNames = new ConcurrentHashMap<String, String>();
+
+    BeanWatcher(AutoTestGetterSetter validator, ClassResolver classResolver, AutoTestConfig config) throws IOException {
+        this.validator = validator;
+        this.classResolver = classResolver;
+        this.config = config;
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        for (String rootPackage : config.getRootPackages()) {
+            final String packagePath = rootPackage.replace('.', '/');
+
+            for (URL root : new ClassPathWalker(packagePath).getRoots(classResolver.getClassLoader())) {
+                if ("file".equals(root.getProtocol())) {
+                    register(toPath(root), rootPackage, null);
+                } else {
+                    log.info("Not watching " + root + ", only directories can be watched");
+                }
+            }
+        }
+    }
+
+    /**
+     * Validates every class being watched.
+     *
+     * @return the results, in class name order.
+     */
+    public List<ValidationResult> validateAll() {
+        return revalidate(new TreeSet<String>(superClassNames.keySet()));
+    }
+
+    /**
+     * Waits for class files to change and revalidates the changed classes and their sub classes. Changes
+     * made within a short time of each other are validated together.
+     *
+     * @param timeout how long to wait for the first change.
+     * @param unit    the unit of the timeout.
+     * @return the results, empty if nothing changed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public List<ValidationResult> awaitChanges(long timeout, TimeUnit unit) throws InterruptedException {
+        final Set<String> changed = new TreeSet<String>();
+
+        WatchKey key = watchService.poll(timeout, unit);
+        while (key != null) {
+            handleEvents(key, changed);
+            key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        return changed.isEmpty() ? Collections.<ValidationResult>emptyList() : revalidate(withSubClasses(changed));
+    }
+
+    /**
+     * Validates every class and then revalidates changes until the thread is interrupted or the watcher
+     * is closed.
+     */
+    public void run() {
+        validateAll();
+
+        try {
+            while (true) {
+                awaitChanges(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Closed by another thread.
+        }
+    }
+
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * Watches a directory and the directories below it, reading the headers of their class files.
+     *
+     * @param changed where the names of the class files found are added, null if not needed.
+     */
+    private void register(Path dir, String packageName, Collection<String> changed) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+
+        final WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        packageNames.put(key, packageName);
+
+        final DirectoryStream<Path> entries = Files.newDirectoryStream(dir);
+        try {
+            for (Path entry : entries) {
+                final String name = entry.getFileName().toString();
+
+                if (Files.isDirectory(entry)) {
+                    register(entry, packageName + "." + name, changed);
+                } else if (name.endsWith(CLASS_POSTFIX)) {
+                    final String className = readClassFile(entry, packageName);
+                    if (className != null && changed != null) {
+                        changed.add(className);
+                    }
+                }
+            }
+        } finally {
+            entries.close();
+        }
+    }
+
+    private void handleEvents(WatchKey key, Set<String> changed) {
+        final Path dir = (Path) key.watchable();
+        final String packageName = packageNames.get(key);
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost, check everything.
+                changed.addAll(superClassNames.keySet());
+                continue;
+            }
+
+            final Path path = dir.resolve((Path) event.context());
+            final String name = path.getFileName().toString();
+
+            try {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                    register(path, packageName + "." + name, changed);
+                } else if (name.endsWith(CLASS_POSTFIX)) {
+                    final String className = packageName + "." + name.substring(0, name.length() - CLASS_POSTFIX.length());
+
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        superClassNames.remove(className);
+                        changed.remove(className);
+                    } else if (readClassFile(path, packageName) != null) {
+                        changed.add(className);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Failed to read changed class file: " + path, e);
+            }
+        }
+
+        if (!key.reset()) {
+            packageNames.remove(key);
+        }
+    }
+
+    /**
+     * Records the super class of a class file.
+     *
+     * @return the class name, null if the file is gone or can't be read yet.
+     */
+    private String readClassFile(Path file, String packageName) {
+        final String fileName = file.getFileName().toString();
+        final String className = packageName + "." + fileName.substring(0, fileName.length() - CLASS_POSTFIX.length());
+
+        try {
+            final InputStream in = Files.newInputStream(file);
+            try {
+                final ClassFileHeader header = ClassFileHeader.read(in);
+                final String superClassName = header.getSuperClassName();
+
+                superClassNames.put(className, superClassName != null ? superClassName.replace('/', '.') : "");
+                return className;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            // Usually a class file that is still being written, its next event reads it again.
+            log.debug("Failed to read class file: " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the changed classes and every watched class that extends one of them.
+     */
+    Set<String> withSubClasses(Set<String> changed) {
+        final Set<String> classNames = new TreeSet<String>(changed);
+
+        for (String className : superClassNames.keySet()) {
+            for (String name = superClassNames.get(className); name != null && !name.isEmpty();
+                 name = superClassNames.get(name)) {
+                if (changed.contains(name)) {
+                    classNames.add(className);
+                    break;
+                }
+            }
+        }
+        return classNames;
+    }
+
+    private List<ValidationResult> revalidate(Set<String> classNames) {
+        final long start = System.nanoTime();
+        final ValidationMetrics metrics = ValidationMetrics.disabled();
+        final IsolatingClassLoader loader = new IsolatingClassLoader(
+                classResolver.getClassLoader(), config.getRootPackages());
+        final List<Class> loaded = new ArrayList<Class>(classNames.size());
+
+        for (String className : classNames) {
+            if (classResolver.isSelected(className)) {
+                classResolver.loadClass(className, loader, loaded, metrics);
+            }
+        }
+
+        final List<ValidationResult> results = new ArrayList<ValidationResult>();
+        int failed = 0;
+
+        for (Class cls : new ValidBeanFilter().filter(loaded, config, metrics)) {
+            final ValidationResult result = validator.validateResult(cls, metrics);
+            results.add(result);
+
+            if (!result.isPassed()) {
+                failed++;
+                log.warn("Failed: " + cls.getName() + " - " + result.getFailure().getMessage());
+            }
+        }
+
+        // Each batch of changes is a run of its own.
+        validator.completed(metrics, null);
+
+        log.info("Validated " + results.size() + " beans of " + classNames.size() + " classes in " +
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms, " + failed + " failed");
+        return results;
+    }
+
+    private static Path toPath(URL url) throws IOException {
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            return new File(url.getPath()).toPath();
+        }
+    }
+}
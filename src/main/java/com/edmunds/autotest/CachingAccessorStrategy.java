@@ -0,0 +1,70 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Base class for strategies that create each accessor once.
+ * <p/>
+ * Accessors are cached against the class declaring the member (via ClassValue) so the cache does not
+ * keep bean classes or their class loaders alive.
+ */
+public abstract class CachingAccessorStrategy implements AccessorStrategy {
+
+    private final ClassValue<ConcurrentMap<Member, MemberAccessor>> accessors =
+            new ClassValue<ConcurrentMap<Member, MemberAccessor>>() {
+                @Override
+                protected ConcurrentMap<Member, MemberAccessor> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<Member, MemberAccessor>();
+                }
+            };
+
+    public MemberAccessor forField(Field field) {
+        final ConcurrentMap<Member, MemberAccessor> cache = accessors.get(field.getDeclaringClass());
+
+        MemberAccessor accessor = cache.get(field);
+        if (accessor == null) {
+            accessor = putIfAbsent(cache, field, createFieldAccessor(field));
+        }
+        return accessor;
+    }
+
+    public MemberAccessor forMethod(Method method) {
+        final ConcurrentMap<Member, MemberAccessor> cache = accessors.get(method.getDeclaringClass());
+
+        MemberAccessor accessor = cache.get(method);
+        if (accessor == null) {
+            accessor = putIfAbsent(cache, method, createMethodAccessor(method));
+        }
+        return accessor;
+    }
+
+    private static MemberAccessor putIfAbsent(ConcurrentMap<Member, MemberAccessor> cache, Member member,
+                                              MemberAccessor accessor) {
+        final MemberAccessor existing = cache.putIfAbsent(member, accessor);
+
+        return existing != null ? existing : accessor;
+    }
+
+    protected abstract MemberAccessor createFieldAccessor(Field field);
+
+    protected abstract MemberAccessor createMethodAccessor(Method method);
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The parts of a class file needed to decide whether a class could be a bean, read without loading
+ * the class.
+ * <p/>
+ * Only the constant pool, the field and method tables, the InnerClasses attribute and the class
+ * annotations are decoded, everything else is skipped, so this works for any class file version.
+ */
+public final class ClassFileHeader {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_SYNTHETIC = 0x1000;
+    private static final int ACC_ANNOTATION = 0x2000;
+
+    private static final String CONSTRUCTOR_NAME = "<init>";
+    private static final String NO_ARG_DESCRIPTOR = "()V";
+    private static final String INNER_CLASSES = "InnerClasses";
+    private static final String VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String INVISIBLE_ANNOTATIONS = "RuntimeInvisibleAnnotations";
+
+    private final String className;
+    private final String superClassName;
+    private final int access;
+    private final int fieldCount;
+    private final boolean defaultConstructor;
+    private final boolean memberClass;
+    private final boolean localClass;
+    private final List<String> annotationNames;
+
+    private ClassFileHeader(String className, String superClassName, int access, int fieldCount,
+                            boolean defaultConstructor, boolean memberClass, boolean localClass,
+                            List<String> annotationNames) {
+        this.className = className;
+        this.superClassName = superClassName;
+        this.access = access;
+        this.fieldCount = fieldCount;
+        this.defaultConstructor = defaultConstructor;
+        this.memberClass = memberClass;
+        this.localClass = localClass;
+        this.annotationNames = Collections.unmodifiableList(annotationNames);
+    }
+
+    /**
+     * Reads a class file, the stream is not closed.
+     *
+     * @param in the class file contents.
+     * @return the header.
+     * @throws IOException if the stream can't be read or is not a class file.
+     */
+    public static ClassFileHeader read(InputStream in) throws IOException {
+        final DataInputStream data = new DataInputStream(in);
+
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        data.readUnsignedShort();  // minor version
+        data.readUnsignedShort();  // major version
+
+        final Object[] pool = readConstantPool(data);
+
+        final int access = data.readUnsignedShort();
+        final String className = classNameAt(pool, data.readUnsignedShort());
+        final int superIndex = data.readUnsignedShort();
+        final String superClassName = superIndex == 0 ? null : classNameAt(pool, superIndex);
+
+        skipFully(data, 2 * data.readUnsignedShort());  // interfaces
+
+        final int fieldCount = data.readUnsignedShort();
+        for(int i = 0; i < fieldCount; i++) {
+            skipFully(data, 6);
+            skipAttributes(data);
+        }
+
+        boolean defaultConstructor = false;
+        final int methodCount = data.readUnsignedShort();
+        for(int i = 0; i < methodCount; i++) {
+            data.readUnsignedShort();
+            final Object name = pool[data.readUnsignedShort()];
+            final Object descriptor = pool[data.readUnsignedShort()];
+
+            if (CONSTRUCTOR_NAME.equals(name) && NO_ARG_DESCRIPTOR.equals(descriptor)) {
+                defaultConstructor = true;
+            }
+            skipAttributes(data);
+        }
+
+        boolean memberClass = false;
+        boolean localClass = false;
+        List<String> annotationNames = Collections.emptyList();
+        final int attributeCount = data.readUnsignedShort();
+        for(int i = 0; i < attributeCount; i++) {
+            final Object name = pool[data.readUnsignedShort()];
+            final int length = data.readInt();
+
+            if (VISIBLE_ANNOTATIONS.equals(name) || INVISIBLE_ANNOTATIONS.equals(name)) {
+                if (annotationNames.isEmpty()) {
+                    annotationNames = new ArrayList<String>();
+                }
+                readAnnotationNames(data, pool, annotationNames);
+                continue;
+            } else if (!INNER_CLASSES.equals(name)) {
+                skipFully(data, length);
+                continue;
+            }
+
+            final int classCount = data.readUnsignedShort();
+            for(int j = 0; j < classCount; j++) {
+                final int innerIndex = data.readUnsignedShort();
+                final int outerIndex = data.readUnsignedShort();
+                final int innerNameIndex = data.readUnsignedShort();
+                data.readUnsignedShort();
+
+                if (className.equals(classNameAt(pool, innerIndex))) {
+                    memberClass = outerIndex != 0;
+                    localClass = outerIndex == 0 && innerNameIndex != 0;
+                }
+            }
+        }
+
+        return new ClassFileHeader(className, superClassName, access, fieldCount,
+                defaultConstructor, memberClass, localClass, annotationNames);
+    }
+
+    private static void readAnnotationNames(DataInputStream data, Object[] pool, List<String> names) throws IOException {
+        final int count = data.readUnsignedShort();
+
+        for(int i = 0; i < count; i++) {
+            final String descriptor = (String) pool[data.readUnsignedShort()];
+
+            // Annotation types are stored as field descriptors, Lcom/example/Generated;
+            names.add(descriptor.substring(1, descriptor.length() - 1));
+            skipElementValuePairs(data);
+        }
+    }
+
+    private static void skipElementValuePairs(DataInputStream data) throws IOException {
+        final int count = data.readUnsignedShort();
+
+        for(int i = 0; i < count; i++) {
+            data.readUnsignedShort();
+            skipElementValue(data);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream data) throws IOException {
+        final int tag = data.readUnsignedByte();
+
+        switch(tag) {
+            case 'e':  // enum constant, type and name
+                skipFully(data, 4);
+                break;
+            case '@':  // nested annotation
+                data.readUnsignedShort();
+                skipElementValuePairs(data);
+                break;
+            case '[':  // array
+                final int count = data.readUnsignedShort();
+                for(int i = 0; i < count; i++) {
+                    skipElementValue(data);
+                }
+                break;
+            default:   // constants and classes
+                skipFully(data, 2);
+        }
+    }
+
+    private static Object[] readConstantPool(DataInputStream data) throws IOException {
+        final int count = data.readUnsignedShort();
+        final Object[] pool = new Object[count];
+
+        for(int i = 1; i < count; i++) {
+            final int tag = data.readUnsignedByte();
+
+            switch(tag) {
+                case 1:  // Utf8
+                    pool[i] = data.readUTF();
+                    break;
+                case 7:  // Class, stored as the index of its name
+                    pool[i] = data.readUnsignedShort();
+                    break;
+                case 8:  // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    skipFully(data, 2);
+                    break;
+                case 15: // MethodHandle
+                    skipFully(data, 3);
+                    break;
+                case 3:  // Integer
+                case 4:  // Float
+                case 9:  // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    skipFully(data, 4);
+                    break;
+                case 5:  // Long
+                case 6:  // Double
+                    skipFully(data, 8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag: " + tag);
+            }
+        }
+        return pool;
+    }
+
+    private static String classNameAt(Object[] pool, int index) {
+        return (String) pool[(Integer) pool[index]];
+    }
+
+    private static void skipAttributes(DataInputStream data) throws IOException {
+        final int count = data.readUnsignedShort();
+
+        for(int i = 0; i < count; i++) {
+            data.readUnsignedShort();
+            skipFully(data, data.readInt());
+        }
+    }
+
+    private static void skipFully(DataInputStream data, int length) throws IOException {
+        int remaining = length;
+
+        while(remaining > 0) {
+            final int skipped = data.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new IOException("Unexpected end of class file");
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * @return the binary class name using '/' separators.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the super class name using '/' separators or null for java.lang.Object.
+     */
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    /**
+     * @return the class annotations using '/' separators, including annotations with CLASS retention.
+     */
+    public List<String> getAnnotationNames() {
+        return annotationNames;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public boolean hasDefaultConstructor() {
+        return defaultConstructor;
+    }
+
+    /**
+     * The class file equivalent of ClassUtil.isStandardClass().
+     *
+     * @return false for abstract, interface, annotation, member, local and synthetic classes.
+     */
+    public boolean isStandardClass() {
+        return (access & (Modifier.ABSTRACT | Modifier.INTERFACE | ACC_ANNOTATION | ACC_SYNTHETIC)) == 0 &&
+                !memberClass && !localClass;
+    }
+}
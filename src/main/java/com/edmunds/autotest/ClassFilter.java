@@ -0,0 +1,356 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Include and exclude rules deciding which of the scanned classes are loaded, the ClassResolver
+ * evaluates them against class names and class file headers so excluded classes are never loaded.
+ * <p/>
+ * A class is accepted when it matches no exclude rule and, if there are any include rules, at least
+ * one include rule. Rules match:
+ * <ul>
+ * <li>package globs, where "*" matches one package name segment and "**" any number of segments, so
+ * "com.example.gen.**" matches com.example.gen and its sub packages,</li>
+ * <li>regular expressions matched against the whole binary class name,</li>
+ * <li>super class names, matching the classes that extend them directly or indirectly,</li>
+ * <li>annotation names, including annotations with CLASS retention such as code generator markers.</li>
+ * </ul>
+ * Package globs are compiled into a trie of package name segments and the regular expressions into a
+ * single pattern, so matching a name costs one pass regardless of the number of rules. Super class and
+ * annotation rules need the class file, which is only read once the name rules have accepted a class.
+ */
+public class ClassFilter {
+    private final Rules includes = new Rules();
+    private final Rules excludes = new Rules();
+
+    public ClassFilter includePackages(String... globs) {
+        includes.addPackages(globs);
+        return this;
+    }
+
+    public ClassFilter excludePackages(String... globs) {
+        excludes.addPackages(globs);
+        return this;
+    }
+
+    public ClassFilter includeClassNames(String... regexes) {
+        includes.addClassNames(regexes);
+        return this;
+    }
+
+    public ClassFilter excludeClassNames(String... regexes) {
+        excludes.addClassNames(regexes);
+        return this;
+    }
+
+    public ClassFilter includeSubClassesOf(String... classNames) {
+        includes.addSuperClasses(classNames);
+        return this;
+    }
+
+    public ClassFilter excludeSubClassesOf(String... classNames) {
+        excludes.addSuperClasses(classNames);
+        return this;
+    }
+
+    public ClassFilter includeAnnotatedWith(String... annotationNames) {
+        includes.addAnnotations(annotationNames);
+        return this;
+    }
+
+    public ClassFilter excludeAnnotatedWith(String... annotationNames) {
+        excludes.addAnnotations(annotationNames);
+        return this;
+    }
+
+    /**
+     * @return true if there are no rules, every class is accepted.
+     */
+    public boolean isEmpty() {
+        return includes.isEmpty() && excludes.isEmpty();
+    }
+
+    /**
+     * @return true if the class file is needed to decide whether a class is accepted.
+     */
+    boolean isClassFileRequired() {
+        return includes.hasClassFileRules() || excludes.hasClassFileRules();
+    }
+
+    /**
+     * @param className the binary class name.
+     * @return false if the name alone rules the class out.
+     */
+    boolean acceptName(String className) {
+        if (excludes.matchesName(className)) {
+            return false;
+        }
+        return includes.isEmpty() || includes.hasClassFileRules() || includes.matchesName(className);
+    }
+
+    /**
+     * @param className the binary class name.
+     * @param header    the class file header, null if it couldn't be read.
+     * @param lookup    reads the headers of super classes.
+     * @return true if the class should be loaded.
+     */
+    boolean accept(String className, ClassFileHeader header, HeaderLookup lookup) {
+        if (!acceptName(className)) {
+            return false;
+        } else if (header == null || !isClassFileRequired()) {
+            // Err on the side of loading the class, like the class file prefilter.
+            return true;
+        } else if (excludes.matchesClassFile(header, lookup)) {
+            return false;
+        }
+        return includes.isEmpty() || includes.matchesName(className) || includes.matchesClassFile(header, lookup);
+    }
+
+    @Override
+    public String toString() {
+        return "includes: " + includes + ", excludes: " + excludes;
+    }
+
+    /**
+     * Reads the header of a class that isn't necessarily loaded.
+     */
+    interface HeaderLookup {
+
+        /**
+         * @param className the class name using '/' separators.
+         * @return the header or null if the class file can't be found or read.
+         */
+        ClassFileHeader getHeader(String className);
+    }
+
+    private static class Rules {
+        private final PackageTrie packages = new PackageTrie();
+        private final List<String> classNameRegexes = new ArrayList<String>();
+        private final Set<String> superClassNames = new HashSet<String>();
+        private final Set<String> annotationNames = new HashSet<String>();
+        private Pattern classNamePattern;
+
+        void addPackages(String... globs) {
+            for(String glob : globs) {
+                packages.add(glob);
+            }
+        }
+
+        void addClassNames(String... regexes) {
+            final StringBuilder sb = new StringBuilder();
+
+            for(String regex : regexes) {
+                // Fail on a bad expression here rather than reporting the combined pattern.
+                Pattern.compile(regex);
+                classNameRegexes.add(regex);
+            }
+
+            for(String regex : classNameRegexes) {
+                sb.append(sb.length() == 0 ? "" : "|").append("(?:").append(regex).append(')');
+            }
+            classNamePattern = Pattern.compile(sb.toString());
+        }
+
+        void addSuperClasses(String... classNames) {
+            for(String className : classNames) {
+                superClassNames.add(className.replace('.', '/'));
+            }
+        }
+
+        void addAnnotations(String... classNames) {
+            for(String className : classNames) {
+                annotationNames.add(className.replace('.', '/'));
+            }
+        }
+
+        boolean isEmpty() {
+            return packages.isEmpty() && classNamePattern == null && !hasClassFileRules();
+        }
+
+        boolean hasClassFileRules() {
+            return !superClassNames.isEmpty() || !annotationNames.isEmpty();
+        }
+
+        boolean matchesName(String className) {
+            if (!packages.isEmpty()) {
+                final int idx = className.lastIndexOf('.');
+
+                if (packages.matches(idx < 0 ? "" : className.substring(0, idx))) {
+                    return true;
+                }
+            }
+            return classNamePattern != null && classNamePattern.matcher(className).matches();
+        }
+
+        boolean matchesClassFile(ClassFileHeader header, HeaderLookup lookup) {
+            for(String annotationName : header.getAnnotationNames()) {
+                if (annotationNames.contains(annotationName)) {
+                    return true;
+                }
+            }
+
+            if (!superClassNames.isEmpty()) {
+                ClassFileHeader current = header;
+
+                while(current != null && current.getSuperClassName() != null) {
+                    if (superClassNames.contains(current.getSuperClassName())) {
+                        return true;
+                    }
+                    current = lookup.getHeader(current.getSuperClassName());
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "{packages=" + packages + ", classNames=" + classNameRegexes +
+                    ", superClasses=" + superClassNames + ", annotations=" + annotationNames + "}";
+        }
+    }
+
+    /**
+     * Package globs as a trie of name segments, matched by following every node a package could be in.
+     */
+    private static class PackageTrie {
+        private static final String ANY_SEGMENT = "*";
+        private static final String ANY_SEGMENTS = "**";
+
+        private final Node root = new Node(false);
+        private final List<String> globs = new ArrayList<String>();
+
+        void add(String glob) {
+            Node node = root;
+
+            if (!glob.isEmpty()) {
+                for(String segment : glob.split("\\.")) {
+                    node = node.child(segment);
+                }
+            }
+            node.terminal = true;
+            globs.add(glob);
+        }
+
+        boolean isEmpty() {
+            return globs.isEmpty();
+        }
+
+        boolean matches(String packageName) {
+            List<Node> active = new ArrayList<Node>();
+            root.addTo(active);
+
+            if (!packageName.isEmpty()) {
+                int start = 0;
+
+                while(start <= packageName.length() && !active.isEmpty()) {
+                    int end = packageName.indexOf('.', start);
+                    if (end < 0) {
+                        end = packageName.length();
+                    }
+
+                    final String segment = packageName.substring(start, end);
+                    final List<Node> next = new ArrayList<Node>();
+
+                    for(Node node : active) {
+                        node.step(segment, next);
+                    }
+                    active = next;
+                    start = end + 1;
+                }
+            }
+
+            for(Node node : active) {
+                if (node.terminal) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return globs.toString();
+        }
+
+        private static class Node {
+            private final Map<String, Node> children = new HashMap<String, Node>();
+            private final boolean repeating;
+            private Node anySegment;
+            private Node anySegments;
+            private boolean terminal;
+
+            Node(boolean repeating) {
+                this.repeating = repeating;
+            }
+
+            Node child(String segment) {
+                if (ANY_SEGMENTS.equals(segment)) {
+                    if (anySegments == null) {
+                        anySegments = new Node(true);
+                    }
+                    return anySegments;
+                } else if (ANY_SEGMENT.equals(segment)) {
+                    if (anySegment == null) {
+                        anySegment = new Node(false);
+                    }
+                    return anySegment;
+                }
+
+                Node node = children.get(segment);
+                if (node == null) {
+                    node = new Node(false);
+                    children.put(segment, node);
+                }
+                return node;
+            }
+
+            /**
+             * Adds this node and, as "**" also matches no segments, the nodes reachable without a segment.
+             */
+            void addTo(List<Node> nodes) {
+                if (!nodes.contains(this)) {
+                    nodes.add(this);
+
+                    if (anySegments != null) {
+                        anySegments.addTo(nodes);
+                    }
+                }
+            }
+
+            void step(String segment, List<Node> next) {
+                final Node child = children.get(segment);
+
+                if (child != null) {
+                    child.addTo(next);
+                }
+                if (anySegment != null) {
+                    anySegment.addTo(next);
+                }
+                if (repeating) {
+                    addTo(next);
+                }
+            }
+        }
+    }
+}
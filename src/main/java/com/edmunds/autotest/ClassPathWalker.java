@@ -0,0 +1,171 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Lists the class files under a package by walking exploded directories and reading jar central
+ * directories directly.
+ * <p/>
+ * Only file: and jar: roots are supported, any other root is reported as unsupported so the caller
+ * can fall back to another mechanism.
+ */
+class ClassPathWalker {
+    private static final String CLASS_POSTFIX = ".class";
+
+    interface Visitor {
+        void visitClassFile(ClassFile classFile);
+
+        void visitUnsupportedRoot(URL root);
+    }
+
+    /**
+     * A class file found by the walker, it can only be opened while it is being visited.
+     */
+    abstract static class ClassFile {
+        private final String className;
+
+        ClassFile(String className) {
+            this.className = className;
+        }
+
+        String getClassName() {
+            return className;
+        }
+
+        abstract InputStream open() throws IOException;
+    }
+
+    private final String packagePath;
+
+    /**
+     * @param packagePath the package to walk using '/' separators.
+     */
+    ClassPathWalker(String packagePath) {
+        this.packagePath = packagePath;
+    }
+
+    void walk(ClassLoader classLoader, Visitor visitor) throws IOException {
+        for(URL root : getRoots(classLoader)) {
+            walk(root, visitor);
+        }
+    }
+
+    /**
+     * Every directory or jar that contains the package, each one can be walked independently.
+     */
+    List<URL> getRoots(ClassLoader classLoader) throws IOException {
+        return Collections.list(classLoader.getResources(packagePath));
+    }
+
+    void walk(URL root, Visitor visitor) throws IOException {
+        final String protocol = root.getProtocol();
+
+        if ("file".equals(protocol)) {
+            walkDirectory(toPath(root), visitor);
+        } else if ("jar".equals(protocol)) {
+            walkJar(root, visitor);
+        } else {
+            visitor.visitUnsupportedRoot(root);
+        }
+    }
+
+    private static Path toPath(URL url) throws IOException {
+        try {
+            return Paths.get(url.toURI());
+        } catch(URISyntaxException e) {
+            return new File(url.getPath()).toPath();
+        }
+    }
+
+    private void walkDirectory(final Path root, final Visitor visitor) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, BasicFileAttributes attrs) {
+                final String name = root.relativize(file).toString();
+
+                if (name.endsWith(CLASS_POSTFIX)) {
+                    final String relative = name.substring(0, name.length() - CLASS_POSTFIX.length());
+                    final String className = (packagePath + '/' + relative.replace(File.separatorChar, '/')).replace('/', '.');
+
+                    visitor.visitClassFile(new ClassFile(className) {
+                        @Override
+                        InputStream open() throws IOException {
+                            return Files.newInputStream(file);
+                        }
+                    });
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void walkJar(URL root, Visitor visitor) throws IOException {
+        final URLConnection connection = root.openConnection();
+        if (!(connection instanceof JarURLConnection)) {
+            visitor.visitUnsupportedRoot(root);
+            return;
+        }
+
+        connection.setUseCaches(false);
+        final JarFile jar = ((JarURLConnection) connection).getJarFile();
+        final String prefix = packagePath + '/';
+
+        try {
+            final Enumeration<JarEntry> entries = jar.entries();
+
+            while(entries.hasMoreElements()) {
+                final JarEntry entry = entries.nextElement();
+                final String name = entry.getName();
+
+                if (name.startsWith(prefix) && name.endsWith(CLASS_POSTFIX) && !entry.isDirectory()) {
+                    final String className = name.substring(0, name.length() - CLASS_POSTFIX.length()).replace('/', '.');
+
+                    visitor.visitClassFile(new ClassFile(className) {
+                        @Override
+                        InputStream open() throws IOException {
+                            return jar.getInputStream(entry);
+                        }
+                    });
+                }
+            }
+        } finally {
+            jar.close();
+        }
+    }
+}
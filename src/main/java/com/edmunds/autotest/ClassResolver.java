@@ -21,11 +21,31 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ClassResolver {
 
@@ -34,26 +54,42 @@ public class ClassResolver {
     private static final String FILTER_PREFIX = "classpath*:";
     private static final String FILTER_POSTFIX = "/**/*";
     private static final String CLASS_POSTFIX = ".class";
+    private static final Object END_OF_SCAN = new Object();
 
     private ClassLoader classLoader;
     private PathMatchingResourcePatternResolver pathResolver;
-    private String rootPackageName;
+    private List<String> packagePaths;
+    private AutoTestConfig config;
+    private Map<String, Boolean> hierarchyHasFields;
+    private Map<String, ClassFileHeader> superClassHeaders;
 
     public ClassResolver(ClassLoader classLoader, String rootPackageName) {
-        assert StringUtils.isNotBlank(rootPackageName) : "Root package is blank";
+        this(classLoader, new AutoTestConfig(rootPackageName));
+    }
 
+    public ClassResolver(ClassLoader classLoader, AutoTestConfig config) {
         this.classLoader = classLoader != null ? classLoader : getClass().getClassLoader();
-        this.rootPackageName = rootPackageName.replace('.', '/');
         this.pathResolver = new PathMatchingResourcePatternResolver();
+        this.config = config;
+        this.hierarchyHasFields = new ConcurrentHashMap<String, Boolean>();
+        this.superClassHeaders = new ConcurrentHashMap<String, ClassFileHeader>();
+        this.packagePaths = new ArrayList<String>();
+
+        for(String rootPackageName : config.getRootPackages()) {
+            assert StringUtils.isNotBlank(rootPackageName) : "Root package is blank";
+
+            final String packagePath = rootPackageName.replace('.', '/');
+            assert packageExists(packagePath) : "Root Package does not exists: " + rootPackageName;
 
-        assert packageExists(this.rootPackageName) : "Root Package does not exists: " + rootPackageName;
+            packagePaths.add(packagePath);
+        }
     }
 
-    private static boolean packageExists(String packageName) {
+    private boolean packageExists(String packageName) {
         // Originally I used Package.getPackage("") but this only works if the package
         // has already been loaded into memory.
 
-        return ClassResolver.class.getClassLoader().getResource(packageName) != null;
+        return classLoader.getResource(packageName) != null;
     }
 
     public Set<Class> resolveClasses() {
@@ -64,35 +100,580 @@ public class ClassResolver {
     }
 
     public void resolveClasses(Collection<Class> classes) {
+        resolveClasses(classes, ValidationMetrics.disabled());
+    }
+
+    /**
+     * Scans every classpath root of every root package, then loads the merged class names in order.
+     * <p/>
+     * Roots are scanned concurrently (see AutoTestConfig.getScanParallelism()) and a class found in
+     * more than one root or root package is only loaded once. A root with an up to date BeanIndex is not
+     * scanned, the beans listed in the index are loaded instead and still go through the ValidBeanFilter.
+     */
+    public void resolveClasses(Collection<Class> classes, ValidationMetrics metrics) {
+        for(String clsName : resolveClassNames(metrics)) {
+            loadClass(clsName, classLoader, classes, metrics);
+        }
+    }
+
+    /**
+     * Loads each class as soon as the scan finds it instead of after the whole scan, in no particular order.
+     * <p/>
+     * The roots are scanned on their own threads while the calling thread loads the classes and passes them
+     * on, so a sink that blocks (such as the ValidationStream) holds up loading but not scanning. As the
+     * scan overlaps the loading, the scan phase records the time spent in the scan tasks rather than the
+     * elapsed time.
+     *
+     * @param sink    receives the classes, on the calling thread.
+     * @param metrics where the scan and the loading are recorded.
+     */
+    public void streamClasses(ClassSink sink, ValidationMetrics metrics) {
+        final BlockingQueue<Object> stream = new LinkedBlockingQueue<Object>();
+        final FoundNames found = new FoundNames(metrics, stream);
+        final List<ScanTask> tasks;
+
+        try {
+            tasks = createScanTasks(found);
+        } catch(IOException e) {
+            throw scanFailed(e);
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        final int threads = Math.max(1, Math.min(config.getScanParallelism(), tasks.size()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("autotest-scan-"));
+        final AtomicInteger remaining = new AtomicInteger(tasks.size());
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        try {
+            for(final ScanTask task : tasks) {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            task.call();
+                        } catch(Throwable t) {
+                            failure.compareAndSet(null, t);
+                        } finally {
+                            if (remaining.decrementAndGet() == 0) {
+                                stream.add(END_OF_SCAN);
+                            }
+                        }
+                    }
+                });
+            }
+
+            Object clsName;
+            while((clsName = take(stream)) != END_OF_SCAN) {
+                final Class cls = loadClass((String) clsName, classLoader, metrics);
+                if (cls != null) {
+                    sink.accept(cls);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final Throwable cause = failure.get();
+        if (cause instanceof IOException) {
+            throw scanFailed((IOException) cause);
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+    }
+
+    private static Object take(BlockingQueue<Object> queue) {
         try {
-            final String filter = FILTER_PREFIX + this.rootPackageName + FILTER_POSTFIX;
+            return queue.take();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while scanning the classpath");
+        }
+    }
 
-            processResources(pathResolver.getResources(filter), classes);
+    /**
+     * Scans for the classes without loading them.
+     *
+     * @param metrics where the scan is recorded.
+     * @return the class names in order.
+     * @see #resolveClasses(Collection, ValidationMetrics)
+     */
+    public Set<String> resolveClassNames(ValidationMetrics metrics) {
+        final long nanos = metrics.startNanos();
+        final long bytes = metrics.startBytes();
+        final Set<String> classNames;
+
+        try {
+            classNames = scanClassNames(metrics);
         } catch(IOException e) {
-            String msg = "Failed to get resources for package: " + rootPackageName;
-            log.error(msg, e);
-            throw new RuntimeException(msg, e);
+            throw scanFailed(e);
         }
+        metrics.record(ValidationPhase.SCAN_RESOURCES, nanos, bytes);
+
+        return classNames;
+    }
+
+    private RuntimeException scanFailed(IOException e) {
+        String msg = "Failed to get resources for packages: " + config.getRootPackages();
+        log.error(msg, e);
+        return new RuntimeException(msg, e);
     }
 
-    private void processResources(Resource[] resources, Collection<Class> classes) {
-        for(Resource resource : resources) {
-            processResource(resource, classes);
+    /**
+     * Loads a class found by resolveClassNames().
+     *
+     * @param clsName the class name.
+     * @param loader  the class loader, either getClassLoader() or a child of it.
+     * @param classes where the class is added.
+     * @param metrics where the loading is recorded.
+     */
+    public void loadClass(String clsName, ClassLoader loader, Collection<Class> classes, ValidationMetrics metrics) {
+        final Class cls = loadClass(clsName, loader, metrics);
+
+        if (cls != null) {
+            classes.add(cls);
         }
     }
 
-    private void processResource(Resource resource, Collection<Class> classes) {
+    private Class loadClass(String clsName, ClassLoader loader, ValidationMetrics metrics) {
+        final long nanos = metrics.startNanos();
+        final long bytes = metrics.startBytes();
+        final Class cls = instantiateClass(clsName, loader);
+        metrics.record(ValidationPhase.LOAD_CLASSES, nanos, bytes);
+
+        return cls;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    private Set<String> scanClassNames(ValidationMetrics metrics) throws IOException {
+        final FoundNames found = new FoundNames(metrics, null);
+        final List<ScanTask> tasks = createScanTasks(found);
+
+        final int threads = Math.min(config.getScanParallelism(), tasks.size());
+        if (threads > 1) {
+            scanParallel(tasks, threads);
+        } else {
+            for(ScanTask task : tasks) {
+                task.scan();
+            }
+        }
+        return new TreeSet<String>(found.accepted);
+    }
+
+    private List<ScanTask> createScanTasks(FoundNames found) throws IOException {
+        final List<ScanTask> tasks = new ArrayList<ScanTask>();
+
+        for(String packagePath : packagePaths) {
+            if (config.isSpringResourceScanning()) {
+                tasks.add(new SpringScanTask(packagePath, FILTER_PREFIX + packagePath + FILTER_POSTFIX, found));
+            } else {
+                final ClassPathWalker walker = new ClassPathWalker(packagePath);
+
+                for(URL root : walker.getRoots(classLoader)) {
+                    tasks.add(new WalkScanTask(walker, packagePath, root, found));
+                }
+            }
+        }
+        return tasks;
+    }
+
+    private void scanParallel(List<ScanTask> tasks, int threads) throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("autotest-scan-"));
+
+        try {
+            for(Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while scanning the classpath", e);
+        } catch(ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The class names found by the scan tasks of one scan.
+     */
+    private static final class FoundNames {
+        private final Set<String> scanned = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        private final Set<String> accepted = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        private final ValidationMetrics metrics;
+        private final BlockingQueue<Object> stream;
+
+        /**
+         * @param metrics where the scanned classes are counted.
+         * @param stream  where accepted names are handed on as they are found, null to only collect them.
+         */
+        FoundNames(ValidationMetrics metrics, BlockingQueue<Object> stream) {
+            this.metrics = metrics;
+            this.stream = stream;
+        }
+
+        /**
+         * Counts a class that was found.
+         *
+         * @return false if the class was already found in another root or root package.
+         */
+        boolean scanned(String className) {
+            if (!scanned.add(className)) {
+                return false;
+            }
+            metrics.addScanned(1);
+            return true;
+        }
+
+        void accept(String className) {
+            if (accepted.add(className) && stream != null) {
+                stream.add(className);
+            }
+        }
+    }
+
+    /**
+     * Scans one classpath root, allocation on a scan thread is added to the scan phase when it completes.
+     * When streaming the time spent is added too, as the scan isn't timed as a whole.
+     */
+    private abstract class ScanTask implements Callable<Void> {
+        final FoundNames found;
+        final ValidationMetrics metrics;
+
+        ScanTask(FoundNames found) {
+            this.found = found;
+            this.metrics = found.metrics;
+        }
+
+        public Void call() throws IOException {
+            final long nanos = metrics.startNanos();
+            final long bytes = metrics.startBytes();
+
+            try {
+                scan();
+            } finally {
+                metrics.add(ValidationPhase.SCAN_RESOURCES, found.stream != null ? metrics.elapsedNanos(nanos) : 0L,
+                        metrics.allocatedBytesSince(bytes));
+            }
+            return null;
+        }
+
+        abstract void scan() throws IOException;
+    }
+
+    private class WalkScanTask extends ScanTask {
+        private final ClassPathWalker walker;
+        private final String packagePath;
+        private final URL root;
+
+        WalkScanTask(ClassPathWalker walker, String packagePath, URL root, FoundNames found) {
+            super(found);
+            this.walker = walker;
+            this.packagePath = packagePath;
+            this.root = root;
+        }
+
+        @Override
+        void scan() throws IOException {
+            if (config.isUseBeanIndex() && readBeanIndex(walker, packagePath, root, found)) {
+                return;
+            }
+
+            walker.walk(root, new ClassPathWalker.Visitor() {
+                public void visitClassFile(ClassPathWalker.ClassFile classFile) {
+                    processClassFile(classFile, found);
+                }
+
+                public void visitUnsupportedRoot(URL root) {
+                    try {
+                        resolveSpringResources(packagePath, root.toString() + FILTER_POSTFIX, found);
+                    } catch(IOException e) {
+                        log.error("Failed to get resources for: " + root, e);
+                    }
+                }
+            });
+        }
+    }
+
+    private class SpringScanTask extends ScanTask {
+        private final String packagePath;
+        private final String pattern;
+
+        SpringScanTask(String packagePath, String pattern, FoundNames found) {
+            super(found);
+            this.packagePath = packagePath;
+            this.pattern = pattern;
+        }
+
+        @Override
+        void scan() throws IOException {
+            resolveSpringResources(packagePath, pattern, found);
+        }
+    }
+
+    /**
+     * Reads the index of the directory or jar that contains the package root.
+     * <p/>
+     * The class files are only listed, not read, to check that the root holds the classes the index was
+     * generated for. Classes added, removed or compiled without the index since then make it stale.
+     *
+     * @return false if the root does not have an index or the index is stale.
+     */
+    private boolean readBeanIndex(ClassPathWalker walker, String packagePath, URL root, FoundNames found)
+            throws IOException {
+        final String rootName = StringUtils.removeEnd(root.toString(), "/");
+        if (!rootName.endsWith(packagePath)) {
+            return false;
+        }
+
+        final List<BeanIndex.Entry> entries;
+        try {
+            final URL indexUrl = new URL(rootName.substring(0, rootName.length() - packagePath.length()) + BeanIndex.LOCATION);
+            final URLConnection connection = indexUrl.openConnection();
+            connection.setUseCaches(false);
+
+            final InputStream in = connection.getInputStream();
+            try {
+                entries = new BeanIndex().read(in);
+            } finally {
+                in.close();
+            }
+        } catch(FileNotFoundException e) {
+            return false;
+        } catch(IOException e) {
+            log.warn("Ignoring unreadable bean index for: " + root, e);
+            return false;
+        }
+
+        final String packagePrefix = packagePath.replace('/', '.') + '.';
+        final Set<String> indexed = new HashSet<String>();
+        for(BeanIndex.Entry entry : entries) {
+            if (entry.getClassName().startsWith(packagePrefix) && isTopLevel(entry.getClassName())) {
+                indexed.add(entry.getClassName());
+            }
+        }
+
+        if (!indexed.equals(listTopLevelClasses(walker, root))) {
+            log.info("Scanning " + root + ", its classes changed since the bean index was generated");
+            return false;
+        }
+
+        for(BeanIndex.Entry entry : entries) {
+            if (entry.isBean() && indexed.contains(entry.getClassName())) {
+                if (found.scanned(entry.getClassName()) && isSelected(entry.getClassName())) {
+                    found.accept(entry.getClassName());
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> listTopLevelClasses(ClassPathWalker walker, URL root) throws IOException {
+        final Set<String> classNames = new HashSet<String>();
+
+        walker.walk(root, new ClassPathWalker.Visitor() {
+            public void visitClassFile(ClassPathWalker.ClassFile classFile) {
+                if (isTopLevel(classFile.getClassName())) {
+                    classNames.add(classFile.getClassName());
+                }
+            }
+
+            public void visitUnsupportedRoot(URL root) {
+                // null never matches an index entry, so the root is scanned.
+                classNames.add(null);
+            }
+        });
+        return classNames;
+    }
+
+    /**
+     * Nested classes and package-info are left out of the index.
+     */
+    private static boolean isTopLevel(String className) {
+        return className.indexOf('$') < 0 && !className.endsWith(".package-info");
+    }
+
+    private void resolveSpringResources(String packagePath, String pattern, FoundNames found) throws IOException {
+        for(Resource resource : pathResolver.getResources(pattern)) {
+            processResource(packagePath, resource, found);
+        }
+    }
+
+    private void processResource(String packagePath, final Resource resource, FoundNames found) {
         final String uri = getURI(resource);
         if (StringUtils.isBlank(uri)) {
             return;
         }
 
-        int startIdx = uri.lastIndexOf(rootPackageName);
+        int startIdx = uri.lastIndexOf(packagePath);
         int endIndex = uri.lastIndexOf(CLASS_POSTFIX);
 
         if (startIdx > -1 && endIndex > -1) {
             String clsName = uri.substring(startIdx, endIndex).replace('/', '.');
-            instantiateClass(clsName, classes);
+
+            processClassFile(new ClassPathWalker.ClassFile(clsName) {
+                @Override
+                InputStream open() throws IOException {
+                    return resource.getInputStream();
+                }
+            }, found);
+        }
+    }
+
+    private void processClassFile(ClassPathWalker.ClassFile classFile, FoundNames found) {
+        final String className = classFile.getClassName();
+        final ClassFilter classFilter = config.getClassFilter();
+
+        // A class in more than one root or root package is only counted and checked once.
+        if (!found.scanned(className)) {
+            return;
+        }
+
+        // Name rules are checked first so excluded classes don't even have their class file read.
+        if (!classFilter.acceptName(className)) {
+            return;
+        }
+
+        if (config.isPrefilterClassFiles() || classFilter.isClassFileRequired()) {
+            ClassFileHeader header;
+
+            try {
+                header = readHeader(classFile.open());
+            } catch(IOException e) {
+                log.debug("Failed to read class file: " + className, e);
+                header = null;
+            }
+
+            if (!classFilter.accept(className, header, headerLookup)) {
+                return;
+            }
+            if (config.isPrefilterClassFiles() && !isCandidateClassFile(header)) {
+                return;
+            }
+        }
+        found.accept(className);
+    }
+
+    /**
+     * Applies the config's ClassFilter to a class that hasn't been loaded.
+     *
+     * @param className the class name.
+     * @return true if the class should be loaded.
+     */
+    boolean isSelected(String className) {
+        final ClassFilter classFilter = config.getClassFilter();
+
+        if (!classFilter.acceptName(className)) {
+            return false;
+        } else if (!classFilter.isClassFileRequired()) {
+            return true;
+        }
+        return classFilter.accept(className, readHeader(className.replace('.', '/')), headerLookup);
+    }
+
+    /**
+     * Checks if a class could pass the ValidBeanFilter.
+     * <p/>
+     * This errs on the side of loading the class, if the class file couldn't be read the class is
+     * accepted and left for the ValidBeanFilter to decide.
+     *
+     * @param header the class file header, null if it couldn't be read.
+     * @return false if the class can't be a bean.
+     */
+    private boolean isCandidateClassFile(ClassFileHeader header) {
+        return header == null || header.isStandardClass() && header.hasDefaultConstructor() && hasFields(header);
+    }
+
+    /**
+     * Fields are inherited so a class without fields is still a candidate if a super class declares any.
+     */
+    private boolean hasFields(ClassFileHeader header) {
+        if (header.getFieldCount() > 0) {
+            return true;
+        }
+
+        final String superClassName = header.getSuperClassName();
+        if (superClassName == null) {
+            return false;
+        }
+
+        Boolean result = hierarchyHasFields.get(superClassName);
+        if (result == null) {
+            result = superClassHasFields(superClassName);
+            hierarchyHasFields.put(superClassName, result);
+        }
+        return result;
+    }
+
+    private boolean superClassHasFields(String superClassName) {
+        final InputStream in = classLoader.getResourceAsStream(superClassName + CLASS_POSTFIX);
+        if (in == null) {
+            return true;
+        }
+
+        try {
+            return hasFields(readHeader(in));
+        } catch(IOException e) {
+            log.debug("Failed to read class file: " + superClassName, e);
+            return true;
+        }
+    }
+
+    /**
+     * Reads class files from the class loader for the super class and annotation rules, super classes
+     * are shared by many classes so their headers are kept.
+     */
+    private final ClassFilter.HeaderLookup headerLookup = new ClassFilter.HeaderLookup() {
+        public ClassFileHeader getHeader(String className) {
+            ClassFileHeader header = superClassHeaders.get(className);
+
+            if (header == null) {
+                header = readHeader(className);
+
+                if (header != null) {
+                    superClassHeaders.put(className, header);
+                }
+            }
+            return header;
+        }
+    };
+
+    /**
+     * @param className the class name using '/' separators.
+     * @return the header or null if the class file can't be found or read.
+     */
+    private ClassFileHeader readHeader(String className) {
+        final InputStream in = classLoader.getResourceAsStream(className + CLASS_POSTFIX);
+        if (in == null) {
+            return null;
+        }
+
+        try {
+            return readHeader(in);
+        } catch(IOException e) {
+            log.debug("Failed to read class file: " + className, e);
+            return null;
+        }
+    }
+
+    private static ClassFileHeader readHeader(InputStream in) throws IOException {
+        try {
+            return ClassFileHeader.read(in);
+        } finally {
+            in.close();
         }
     }
 
@@ -109,12 +690,12 @@ public class ClassResolver {
         return null;
     }
 
-    private void instantiateClass(String clsName, Collection<Class> classes) {
+    private static Class instantiateClass(String clsName, ClassLoader loader) {
         try {
-            Class cls = classLoader.loadClass(clsName);
-            classes.add(cls);
+            return loader.loadClass(clsName);
         } catch(ClassNotFoundException e) {
             log.error("Failed to instantiate class: " + clsName, e);
+            return null;
         }
     }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+/**
+ * Thrown when a class takes longer than AutoTestConfig.getClassTimeoutMillis() to validate.
+ * <p/>
+ * The stack trace is the one the validating thread had when the time ran out, which shows where it
+ * was stuck.
+ */
+public class ClassTimeoutException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Class beanClass;
+
+    public ClassTimeoutException(Class beanClass, long timeoutMillis, Thread thread, StackTraceElement[] stackTrace) {
+        super("Timed out after " + timeoutMillis + "ms validating " + beanClass.getName() +
+                (thread != null ? " on thread " + thread.getName() : ""));
+        this.beanClass = beanClass;
+
+        setStackTrace(stackTrace);
+    }
+
+    public Class getBeanClass() {
+        return beanClass;
+    }
+}
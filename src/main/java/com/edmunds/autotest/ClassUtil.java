@@ -20,11 +20,9 @@ import org.apache.commons.logging.LogFactory;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -36,14 +34,13 @@ import static org.testng.Assert.fail;
 
 public final class ClassUtil {
     private static final Log log = LogFactory.getLog(ClassUtil.class);
-    private static final InvocationHandler NOOP_HANDLER = new NoOpInvocationHandler();
 
     private ClassUtil() {
     }
 
 
     public static Collection<Field> getAllDeclaredFields(Class cls, AutoTestConfig config) {
-        return getAllDeclaredFieldsMap(cls, false, config).values();
+        return BeanDescriptor.forClass(cls).getFields(config);
     }
 
     public static Map<String, Field> getAllDeclaredFieldsMap(Class originalCls, boolean lowercase, AutoTestConfig config) {
@@ -60,18 +57,7 @@ public final class ClassUtil {
                 }
 
                 if (fields.containsKey(fieldName)) {
-
-                    if (isDeclaredUnderRootPackage(config, field) &&
-                            !config.getFieldOverrideExceptions().contains(field.getName())) {
-
-                        String msg = "Instance variable (" + field.getName() +
-                                ") has been overridden: " + originalCls.getName();
-                        log.warn(msg);
-
-                        if (config.isFailOnFieldOverride()) {
-                            fail(msg);
-                        }
-                    }
+                    checkFieldOverride(originalCls, field, config);
                 } else {
                     fields.put(fieldName, field);
                 }
@@ -81,6 +67,27 @@ public final class ClassUtil {
         return fields;
     }
 
+    /**
+     * Reports a field that has been overridden (hidden) by a field of the same name in a sub class.
+     *
+     * @param originalCls the class being inspected.
+     * @param field       the hidden super class field.
+     * @param config      the config controlling whether the override is reported or fails.
+     */
+    static void checkFieldOverride(Class originalCls, Field field, AutoTestConfig config) {
+        if (isDeclaredUnderRootPackage(config, field) &&
+                !config.getFieldOverrideExceptions().contains(field.getName())) {
+
+            String msg = "Instance variable (" + field.getName() +
+                    ") has been overridden: " + originalCls.getName();
+            log.warn(msg);
+
+            if (config.isFailOnFieldOverride()) {
+                fail(msg);
+            }
+        }
+    }
+
     public static Collection<Method> getAllDeclaredMethods(Class cls) {
         List<Method> methods = new ArrayList<Method>();
 
@@ -105,17 +112,7 @@ public final class ClassUtil {
     }
 
     public static boolean hasDefaultConstructor(Class cls) {
-        boolean defaultConstructor = false;
-
-        final Constructor[] constructors = cls.getDeclaredConstructors();
-
-        for(Constructor constructor : constructors) {
-            if (constructor.getParameterTypes().length == 0) {
-                defaultConstructor = true;
-                break;
-            }
-        }
-        return defaultConstructor;
+        return BeanDescriptor.forClass(cls).hasDefaultConstructor();
     }
 
     public static boolean isStandardClass(Class cls) {
@@ -127,15 +124,28 @@ public final class ClassUtil {
                         cls.isSynthetic());
     }
 
+    /**
+     * Checks if the class, or any of its super classes, declares a non final static field.
+     * <p/>
+     * Beans with mutable static state may interfere with each other when validated concurrently.
+     *
+     * @param cls the class to check.
+     * @return true if a mutable static field was found.
+     */
+    public static boolean hasMutableStaticState(Class cls) {
+        return BeanDescriptor.forClass(cls).hasMutableStaticState();
+    }
+
     public static Object instanceClass(Class cls, String msg) {
         if (cls.isInterface()) {
-            return Proxy.newProxyInstance(cls.getClassLoader(), new Class[]{cls}, NOOP_HANDLER);
-        } else if (isStandardClass(cls) && hasDefaultConstructor(cls)) {
-            try {
-                Constructor constructor = getDefaultConstructor(cls);
-                constructor.setAccessible(true);
+            return NoOpInvocationHandler.getStub(cls);
+        }
 
-                return constructor.newInstance();
+        final BeanDescriptor descriptor = BeanDescriptor.forClass(cls);
+
+        if (descriptor.isStandardClass() && descriptor.hasDefaultConstructor()) {
+            try {
+                return descriptor.getDefaultConstructor().newInstance();
 
             } catch(InvocationTargetException e) {
                 log.error(msg, e);
@@ -160,6 +170,13 @@ public final class ClassUtil {
     }
 
     private static boolean isClassUnderRootPackage(AutoTestConfig config, Class<?> cls) {
-        return cls.getPackage().getName().startsWith(config.getRootPackage());
+        final String packageName = cls.getPackage().getName();
+
+        for(String rootPackage : config.getRootPackages()) {
+            if (packageName.startsWith(rootPackage)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs each class validation on a worker thread and gives up on it once the time budget is spent.
+ * <p/>
+ * Workers are virtual threads when the JVM has them and daemon threads otherwise. A worker that times out
+ * is interrupted and abandoned, the next class runs on another worker.
+ */
+class ClassWatchdog {
+    private static final Log log = LogFactory.getLog(ClassWatchdog.class);
+
+    private static final String THREAD_PREFIX = "autotest-watchdog-";
+
+    private final long timeoutMillis;
+    private final ExecutorService executor;
+
+    ClassWatchdog(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.executor = Executors.newCachedThreadPool(createThreadFactory());
+    }
+
+    long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Runs the validation of a class on a worker.
+     *
+     * @param cls  the class being validated.
+     * @param task the validation.
+     * @return the task's result.
+     * @throws ClassTimeoutException if the task did not finish in time.
+     */
+    <T> T call(Class cls, final Callable<T> task) {
+        final AtomicReference<Thread> worker = new AtomicReference<Thread>();
+        final Future<T> future = executor.submit(new Callable<T>() {
+            public T call() throws Exception {
+                worker.set(Thread.currentThread());
+                try {
+                    return task.call();
+                } finally {
+                    worker.set(null);
+                }
+            }
+        });
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch(TimeoutException e) {
+            final Thread thread = worker.get();
+            final StackTraceElement[] stackTrace = thread != null ? thread.getStackTrace() : new StackTraceElement[0];
+
+            future.cancel(true);
+            throw new ClassTimeoutException(cls, timeoutMillis, thread, stackTrace);
+        } catch(InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while validating " + cls.getName(), e);
+        } catch(ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Stops the workers once the classes already submitted are done, later calls are rejected.
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Virtual threads are looked up reflectively since they only exist on newer JVMs.
+     */
+    private static ThreadFactory createThreadFactory() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Method name = builderClass.getMethod("name", String.class, long.class);
+            final Method factory = builderClass.getMethod("factory");
+
+            return (ThreadFactory) factory.invoke(name.invoke(builder, THREAD_PREFIX, 1L));
+        } catch(ReflectiveOperationException e) {
+            log.debug("Virtual threads are not available, using platform threads", e);
+        } catch(RuntimeException e) {
+            log.debug("Virtual threads are not available, using platform threads", e);
+        }
+        return new DaemonThreadFactory(THREAD_PREFIX);
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.fail;
+
+/**
+ * Checks the equals/hashCode contract of beans that override equals() and measures how well their
+ * hashCode() spreads.
+ * <p/>
+ * The contract is checked by changing one field at a time on one of two equal instances: whenever the
+ * instances are still equal they must have the same hash code, and equals() must be symmetric. The
+ * quality is measured over instances that each differ from the default instance in a single field:
+ * the collision rate is the share of distinct instances that don't get a distinct hash code, and the
+ * bit dispersion is how evenly each bit of the hash code is set (1 when every bit is set in half of the
+ * hash codes, 0 when no bit ever changes).
+ */
+public class EqualsHashCodeValidator implements BeanValidator {
+    private static final int MAX_INSTANCES = 256;
+    private static final int MAX_VARIANTS = 16;
+    private static final Object NO_VARIANT = new Object();
+
+    public ValidationPhase getPhase() {
+        return ValidationPhase.VALIDATE_EQUALS_HASH_CODE;
+    }
+
+    public boolean isEnabled(AutoTestConfig config) {
+        return config.isValidateEqualsHashCode();
+    }
+
+    /**
+     * Validates a class, classes that don't override equals() always pass.
+     *
+     * @param context the class.
+     */
+    public void validate(BeanContext context) {
+        final Class cls = context.getBeanClass();
+        if (!overridesEquals(cls)) {
+            return;
+        }
+
+        final AutoTestConfig config = context.getConfig();
+        final List<Field> fields = getVariableFields(context.getFields());
+        validateContract(cls, fields, config);
+
+        final HashQuality quality = measure(cls, fields, config);
+        final String msg = "Weak hashCode: " + cls.getName() + " " + quality;
+
+        if (quality.getCollisionRate() > config.getMaxHashCollisionRate()) {
+            fail(msg + " exceeds the collision rate of " + config.getMaxHashCollisionRate());
+        }
+        if (quality.getInstanceCount() > 1 && quality.getBitDispersion() < config.getMinHashBitDispersion()) {
+            fail(msg + " is below the bit dispersion of " + config.getMinHashBitDispersion());
+        }
+    }
+
+    /**
+     * Measures the hash code quality of a class.
+     *
+     * @param cls    the class.
+     * @param config the config providing the accessors and sample values.
+     * @return the quality.
+     */
+    public HashQuality measure(Class cls, AutoTestConfig config) {
+        return measure(cls, getVariableFields(BeanDescriptor.forClass(cls).getFields(config)), config);
+    }
+
+    public void validationCompleted(AutoTestConfig config) {
+    }
+
+    static boolean overridesEquals(Class<?> cls) {
+        try {
+            return cls.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+        } catch(NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private void validateContract(Class cls, List<Field> fields, AutoTestConfig config) {
+        final String errorMsg = "Failed to validate equals/hashCode: " + cls.getName();
+        final Object a = newInstance(cls);
+        final Object b = newInstance(cls);
+
+        try {
+            if (!a.equals(a)) {
+                fail(errorMsg + " - equals() is not reflexive");
+            }
+            if (a.equals(null)) {
+                fail(errorMsg + " - equals(null) returned true");
+            }
+            if (a.equals(new Object())) {
+                fail(errorMsg + " - equal to an instance of another class");
+            }
+        } catch(RuntimeException e) {
+            fail(errorMsg + " - equals() threw " + e);
+        }
+
+        if (!a.equals(b)) {
+            // Instances with an identity of their own (such as a generated id) can't be compared.
+            return;
+        }
+        checkEqualInstances(a, b, errorMsg);
+
+        for(Field field : fields) {
+            final MemberAccessor accessor = config.getAccessorStrategy().forField(field);
+            final Object value = variant(field.getType(), 0, config);
+            if (value == NO_VARIANT) {
+                continue;
+            }
+
+            final Object original = get(accessor, a);
+            set(accessor, b, value);
+            checkEqualInstances(a, b, errorMsg + " - after changing " + field.getName());
+            set(accessor, b, original);
+        }
+    }
+
+    private static void checkEqualInstances(Object a, Object b, String errorMsg) {
+        final boolean equal = a.equals(b);
+
+        if (equal != b.equals(a)) {
+            fail(errorMsg + " - equals() is not symmetric");
+        }
+        if (equal && a.hashCode() != b.hashCode()) {
+            fail(errorMsg + " - equal instances have different hash codes");
+        }
+    }
+
+    private HashQuality measure(Class cls, List<Field> fields, AutoTestConfig config) {
+        final int variants = Math.max(2, Math.min(MAX_VARIANTS, MAX_INSTANCES / Math.max(1, fields.size())));
+        final Map<Integer, List<Object>> buckets = new HashMap<Integer, List<Object>>();
+        int instanceCount = 0;
+
+        instanceCount += addDistinct(buckets, newInstance(cls));
+
+        for(Field field : fields) {
+            final MemberAccessor accessor = config.getAccessorStrategy().forField(field);
+
+            for(int k = 0; k < variants; k++) {
+                final Object value = variant(field.getType(), k, config);
+                if (value == NO_VARIANT) {
+                    break;
+                }
+
+                final Object instance = newInstance(cls);
+                set(accessor, instance, value);
+                instanceCount += addDistinct(buckets, instance);
+            }
+        }
+
+        return new HashQuality(instanceCount, buckets.keySet());
+    }
+
+    /**
+     * Adds an instance unless an equal one was already added.
+     *
+     * @return 1 if the instance was added.
+     */
+    private static int addDistinct(Map<Integer, List<Object>> buckets, Object instance) {
+        final Integer hash = instance.hashCode();
+        List<Object> bucket = buckets.get(hash);
+
+        if (bucket == null) {
+            bucket = new ArrayList<Object>(1);
+            buckets.put(hash, bucket);
+        } else {
+            for(Object other : bucket) {
+                if (other.equals(instance)) {
+                    return 0;
+                }
+            }
+        }
+        bucket.add(instance);
+        return 1;
+    }
+
+    /**
+     * The k'th distinct value of a type, values that differ from the zero or null a new instance usually has.
+     */
+    private static Object variant(Class<?> type, int k, AutoTestConfig config) {
+        if (type == int.class || type == Integer.class) {
+            return k + 1;
+        } else if (type == long.class || type == Long.class) {
+            return k + 1L;
+        } else if (type == short.class || type == Short.class) {
+            return (short) (k + 1);
+        } else if (type == byte.class || type == Byte.class) {
+            return (byte) (k + 1);
+        } else if (type == double.class || type == Double.class) {
+            return k + 1.5D;
+        } else if (type == float.class || type == Float.class) {
+            return k + 1.5F;
+        } else if (type == char.class || type == Character.class) {
+            return (char) ('A' + k);
+        } else if (type == boolean.class || type == Boolean.class) {
+            return k == 0 ? Boolean.TRUE : NO_VARIANT;
+        } else if (type == String.class) {
+            return "value" + k;
+        } else if (type.isEnum()) {
+            final Object[] constants = type.getEnumConstants();
+            return k < constants.length ? constants[k] : NO_VARIANT;
+        } else if (k == 0) {
+            final Object value = config.getSampleValues().createValue(type, "Failed to create value: " + type.getName());
+            return value != null ? value : NO_VARIANT;
+        }
+        return NO_VARIANT;
+    }
+
+    private static List<Field> getVariableFields(Collection<Field> allFields) {
+        final List<Field> fields = new ArrayList<Field>();
+
+        for(Field field : allFields) {
+            final int modifiers = field.getModifiers();
+            if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && !field.isSynthetic()) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static Object newInstance(Class cls) {
+        return ClassUtil.instanceClass(cls, "Failed to create class : " + cls.getName());
+    }
+
+    private static Object get(MemberAccessor accessor, Object bean) {
+        try {
+            return accessor.get(bean);
+        } catch(IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch(InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void set(MemberAccessor accessor, Object bean, Object value) {
+        try {
+            accessor.setValue(bean, value);
+        } catch(IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch(InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * How well the hash codes of a class's instances spread.
+     */
+    public static class HashQuality {
+        private final int instanceCount;
+        private final int hashCount;
+        private final double bitDispersion;
+
+        HashQuality(int instanceCount, Set<Integer> hashes) {
+            this.instanceCount = instanceCount;
+            this.hashCount = hashes.size();
+
+            double dispersion = 0D;
+            for(int bit = 0; bit < 32; bit++) {
+                int set = 0;
+                for(int hash : hashes) {
+                    set += (hash >>> bit) & 1;
+                }
+                dispersion += 1D - Math.abs(2D * set / hashCount - 1D);
+            }
+            this.bitDispersion = hashCount > 0 ? dispersion / 32 : 0D;
+        }
+
+        /**
+         * @return the number of distinct instances that were hashed.
+         */
+        public int getInstanceCount() {
+            return instanceCount;
+        }
+
+        /**
+         * @return the share of instances without a hash code of their own, from 0 to 1.
+         */
+        public double getCollisionRate() {
+            return instanceCount > 0 ? 1D - (double) hashCount / instanceCount : 0D;
+        }
+
+        /**
+         * @return how evenly the hash code bits are set, from 0 to 1.
+         */
+        public double getBitDispersion() {
+            return bitDispersion;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("(%d instances, collision rate %.2f, bit dispersion %.2f)",
+                    instanceCount, getCollisionRate(), bitDispersion);
+        }
+    }
+}
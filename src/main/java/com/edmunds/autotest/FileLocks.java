@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+
+/**
+ * Serializes the read-merge-write updates of files shared by several threads and JVMs.
+ */
+final class FileLocks {
+
+    interface Update {
+        void run() throws IOException;
+    }
+
+    private FileLocks() {
+    }
+
+    /**
+     * Runs an update of a file while holding a lock on "file.lock", creating the parent directory first.
+     *
+     * @param file   the file being updated.
+     * @param update reads, merges and writes the file.
+     * @throws IOException if the lock can't be taken or the update fails.
+     */
+    static void update(File file, Update update) throws IOException {
+        final File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Failed to create directory: " + dir);
+        }
+
+        final File lockFile = new File(file.getPath() + ".lock");
+
+        // File locks are held by the JVM, so threads within one JVM must be serialized separately.
+        synchronized(FileLocks.class) {
+            final RandomAccessFile lockAccess = new RandomAccessFile(lockFile, "rw");
+            try {
+                final FileLock lock = lockAccess.getChannel().lock();
+                try {
+                    update.run();
+                } finally {
+                    lock.release();
+                }
+            } finally {
+                lockAccess.close();
+            }
+        }
+    }
+}
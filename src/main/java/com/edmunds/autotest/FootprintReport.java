@@ -0,0 +1,190 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports the estimated memory footprint of every validated bean, see BeanFootprint.
+ * <p/>
+ * At the end of the run a table of the beans is logged, and written to a file when one is given, with
+ * the beans that waste the most bytes per instance first. Only the class names and sizes are kept, so
+ * the report does not hold on to the validated classes or their class loaders.
+ */
+public class FootprintReport implements ValidationListener {
+    private static final Log log = LogFactory.getLog(FootprintReport.class);
+
+    private static final Comparator<Row> MOST_WASTEFUL_FIRST = new Comparator<Row>() {
+        public int compare(Row o1, Row o2) {
+            if (o1.getWastedBytes() != o2.getWastedBytes()) {
+                return o2.getWastedBytes() - o1.getWastedBytes();
+            }
+            if (o1.getShallowSize() != o2.getShallowSize()) {
+                return o2.getShallowSize() - o1.getShallowSize();
+            }
+            return o1.getClassName().compareTo(o2.getClassName());
+        }
+    };
+
+    private final File tableFile;
+    private final BeanFootprint.MemoryModel model;
+    private final Map<String, Row> rows = new ConcurrentHashMap<String, Row>();
+    private volatile List<Row> lastRun = Collections.emptyList();
+
+    /**
+     * @param tableFile where the table is written, null to only log it.
+     */
+    public FootprintReport(File tableFile) {
+        this(tableFile, BeanFootprint.MemoryModel.CURRENT);
+    }
+
+    public FootprintReport(File tableFile, BeanFootprint.MemoryModel model) {
+        this.tableFile = tableFile;
+        this.model = model;
+    }
+
+    public void classValidated(Class cls, long nanos, long allocatedBytes, boolean passed) {
+        rows.put(cls.getName(), new Row(BeanFootprint.of(cls, model)));
+    }
+
+    public void validationCompleted(ValidationMetrics metrics) {
+        final List<Row> sorted = new ArrayList<Row>(rows.values());
+        rows.clear();
+
+        Collections.sort(sorted, MOST_WASTEFUL_FIRST);
+        lastRun = Collections.unmodifiableList(sorted);
+
+        final String table = toTable(sorted);
+        log.info("Bean footprints (" + model + "):\n" + table);
+
+        if (tableFile != null) {
+            try {
+                writeTable(table);
+            } catch (IOException e) {
+                log.warn("Failed to write footprint table: " + tableFile, e);
+            }
+        }
+    }
+
+    /**
+     * @return the footprints of the beans of the last completed run, the most wasteful first.
+     */
+    public List<Row> getFootprints() {
+        return lastRun;
+    }
+
+    private void writeTable(String table) throws IOException {
+        final File dir = tableFile.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Failed to create directory: " + dir);
+        }
+
+        final Writer out = new OutputStreamWriter(new FileOutputStream(tableFile), "UTF-8");
+        try {
+            out.write(table);
+        } finally {
+            out.close();
+        }
+    }
+
+    static String toTable(List<Row> rows) {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format("%8s %8s %8s %8s  %-40s %s%n", "wasted", "size", "fields", "padding", "bean", "notes"));
+        for (Row row : rows) {
+            sb.append(String.format("%8d %8d %8d %8d  %-40s %s%n",
+                    row.getWastedBytes(), row.getShallowSize(), row.getFieldBytes(),
+                    row.getPaddingBytes(), row.getClassName(), row.getNotes()));
+        }
+        return sb.toString();
+    }
+
+    private static String describe(BeanFootprint footprint) {
+        final StringBuilder sb = new StringBuilder();
+
+        for (Field field : footprint.getBoxedFields()) {
+            sb.append(sb.length() > 0 ? ", " : "").append("boxed ").append(field.getName())
+                    .append(" (").append(field.getType().getSimpleName()).append(')');
+        }
+        for (Field field : footprint.getShadowedFields()) {
+            sb.append(sb.length() > 0 ? ", " : "").append("shadowed ")
+                    .append(field.getDeclaringClass().getSimpleName()).append('.').append(field.getName());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The numbers of a BeanFootprint, without references to the bean class or its fields.
+     */
+    public static class Row {
+        private final String className;
+        private final int wastedBytes;
+        private final int shallowSize;
+        private final int fieldBytes;
+        private final int paddingBytes;
+        private final String notes;
+
+        Row(BeanFootprint footprint) {
+            this.className = footprint.getBeanClass().getName();
+            this.wastedBytes = footprint.getWastedBytes();
+            this.shallowSize = footprint.getShallowSize();
+            this.fieldBytes = footprint.getFieldBytes();
+            this.paddingBytes = footprint.getPaddingBytes();
+            this.notes = describe(footprint);
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public int getWastedBytes() {
+            return wastedBytes;
+        }
+
+        public int getShallowSize() {
+            return shallowSize;
+        }
+
+        public int getFieldBytes() {
+            return fieldBytes;
+        }
+
+        public int getPaddingBytes() {
+            return paddingBytes;
+        }
+
+        /**
+         * @return the boxed and shadowed fields, empty if there are none.
+         */
+        public String getNotes() {
+            return notes;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * The getter and setter checks: every getter must return the value of its field and every setter must
+ * store its parameter in its field, for a sample value and for the type's default value. When
+ * AutoTestConfig.getAccessorBudgetIterations() is positive the accessors are also measured, see AccessorBudget.
+ * <p/>
+ * Within a run a property inherited from a super class is only checked once per (field, getter, setter), sub
+ * classes that don't override the getter or setter reuse the result, see AutoTestConfig.isMemoizeInheritedProperties().
+ * Passed checks are recorded by name so the record does not keep bean classes or their class loaders alive,
+ * and are forgotten when the run completes as the config may change before the next run.
+ */
+public class GetterSetterValidator implements BeanValidator {
+
+    private final static Log log = LogFactory.getLog(GetterSetterValidator.class);
+
+    private final static Map<Class<?>, Object> defaultValueMap = createDefaultValueMap();
+
+    private final Set<String> passedProperties = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    public ValidationPhase getPhase() {
+        return ValidationPhase.VALIDATE_PROPERTIES;
+    }
+
+    public boolean isEnabled(AutoTestConfig config) {
+        return true;
+    }
+
+    public void validate(BeanContext context) {
+        final AutoTestConfig config = context.getConfig();
+        final BeanDescriptor descriptor = context.getDescriptor();
+        final Object bean = context.getBean();
+        final AccessorBudget budget = config.getAccessorBudgetIterations() > 0 ?
+                new AccessorBudget(context) : null;
+
+        // Every accessor is measured when there is a budget, so nothing can be skipped.
+        final boolean memoize = budget == null && config.isMemoizeInheritedProperties();
+
+        for (Field field : context.getFields()) {
+            final String name = field.getName().toLowerCase();
+            final Method getter = descriptor.getGetter(name, config);
+            final Method setter = descriptor.getSetter(name, config);
+
+            final String key = memoize && field.getDeclaringClass() != context.getBeanClass() ?
+                    propertyKey(field, descriptor, getter, setter, name) : null;
+
+            if (key != null && passedProperties.contains(key)) {
+                continue;
+            }
+
+            validateGetter(bean, getter, field, budget, config);
+            validateSetter(bean, setter, field, budget, config);
+
+            if (key != null) {
+                passedProperties.add(key);
+            }
+        }
+
+        if (budget != null) {
+            budget.check();
+        }
+    }
+
+    public void validationCompleted(AutoTestConfig config) {
+        passedProperties.clear();
+    }
+
+    /**
+     * Names an inherited property as seen by one class. The accessors are the declarations the class dispatches
+     * to, so a sub class overriding the getter or setter has a different key.
+     */
+    private static String propertyKey(Field field, BeanDescriptor descriptor, Method getter, Method setter,
+                                      String propertyName) {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(field.getDeclaringClass().getName()).append('.').append(field.getName());
+        appendSignature(sb.append('|'), getter != null ? descriptor.getImplementation(getter, propertyName) : null);
+        appendSignature(sb.append('|'), setter != null ? descriptor.getImplementation(setter, propertyName) : null);
+        return sb.toString();
+    }
+
+    private static void appendSignature(StringBuilder sb, Method method) {
+        if (method != null) {
+            sb.append(method.getDeclaringClass().getName()).append('.').append(method.getName()).append('(');
+
+            final Class<?>[] params = method.getParameterTypes();
+            for (int i = 0; i < params.length; i++) {
+                sb.append(i == 0 ? "" : ",").append(params[i].getName());
+            }
+            sb.append(')');
+        }
+    }
+
+    private void validateGetter(Object bean, Method method, Field field, AccessorBudget budget, AutoTestConfig config) {
+        if (method == null) {
+            return;
+        }
+
+        final String errorMsg = "Failed to validate Getter: " +
+                bean.getClass().getName() + "." + method.getName();
+
+        final Class<?> fieldType = field.getType();
+        final Class<?> returnType = method.getReturnType();
+
+        if (!isTypeSafeAssignment(fieldType, returnType, "getter", errorMsg, config)) {
+            return;
+        }
+
+        Object value = config.getSampleValues().createValue(fieldType, errorMsg);
+        Object defaultValue = createDefaultValue(fieldType);
+
+        final AccessorStrategy accessors = config.getAccessorStrategy();
+        final MemberAccessor fieldAccessor = accessors.forField(field);
+        final MemberAccessor getter = accessors.forMethod(method);
+
+        try {
+            if (fieldType.isPrimitive()) {
+                validatePrimitive(bean, fieldAccessor, getter, value, errorMsg);
+            } else {
+                fieldAccessor.set(bean, value);
+                assertEquals(getter.get(bean), value, errorMsg);
+
+                fieldAccessor.set(bean, defaultValue);
+                final Object actualValue = getter.get(bean);
+
+                if (defaultValue == null && actualValue != null) {
+                    validateDefaultingGetter(bean, method, fieldAccessor, actualValue);
+                } else {
+                    assertEquals(actualValue, defaultValue, errorMsg);
+                }
+
+                // Measure with the sample value, a getter that copies has nothing to copy when the field is null.
+                fieldAccessor.set(bean, value);
+            }
+
+            if (budget != null) {
+                budget.measureGetter(bean, getter, method.getName());
+            }
+        } catch (IllegalAccessException e) {
+            fail(errorMsg + " : " + e.getMessage());
+        } catch (InvocationTargetException e) {
+            fail(errorMsg + " : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Some getter methods set a default value when the field is null.
+     * <p/>
+     * This method checks for that special case.
+     *
+     * @param bean          the bean being tested.
+     * @param method        the getter method being tested.
+     * @param fieldAccessor the accessor for the field being tested.
+     * @param actualValue   the actual value returned from the getter method.
+     * @throws IllegalAccessException    if a problem occurs accessing the field.
+     * @throws InvocationTargetException if a problem occurs accessing the field.
+     */
+    private void validateDefaultingGetter(Object bean, Method method, MemberAccessor fieldAccessor, Object actualValue)
+            throws IllegalAccessException, InvocationTargetException {
+        final String errorMsg = "Failed to validate Getter (Defaulted Value Check): " +
+                bean.getClass().getName() + "." + method.getName();
+
+        Object defaultedValue = fieldAccessor.get(bean);
+        assertEquals(actualValue, defaultedValue, errorMsg);
+    }
+
+    private void validateSetter(Object bean, Method method, Field field, AccessorBudget budget, AutoTestConfig config) {
+        if (method == null) {
+            return;
+        }
+
+        final String errorMsg = "Failed to validate Setter: " +
+                bean.getClass().getName() + "." + method.getName();
+
+        final Class<?>[] params = method.getParameterTypes();
+        final Class<?> fieldType = field.getType();
+
+        assertEquals(params.length, 1, errorMsg + " - Setter must take one parameter");
+
+        final Class<?> paramType = params[0];
+        if (!isTypeSafeAssignment(paramType, fieldType, "setter", errorMsg, config)) {
+            return;
+        }
+
+        Object value = config.getSampleValues().createValue(paramType, errorMsg);
+        Object defaultValue = createDefaultValue(paramType);
+
+        final AccessorStrategy accessors = config.getAccessorStrategy();
+        final MemberAccessor fieldAccessor = accessors.forField(field);
+        final MemberAccessor setter = accessors.forMethod(method);
+
+        try {
+            if (paramType.isPrimitive()) {
+                validatePrimitive(bean, setter, fieldAccessor, value, errorMsg);
+            } else {
+                setter.set(bean, value);
+                assertEquals(fieldAccessor.get(bean), value, errorMsg);
+
+                setter.set(bean, defaultValue);
+                assertEquals(fieldAccessor.get(bean), defaultValue, errorMsg);
+            }
+
+            if (budget != null) {
+                budget.measureSetter(bean, setter, value, method.getName());
+            }
+        } catch (IllegalAccessException e) {
+            fail(errorMsg + " : " + e.getMessage());
+        } catch (InvocationTargetException e) {
+            fail(errorMsg + " : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the sample value and then the zero value through one accessor and reads them back through
+     * the other, passing primitives as a long or double so nothing is boxed unless the check fails.
+     *
+     * @param bean     the bean being tested.
+     * @param writer   the accessor the value is written with.
+     * @param reader   the accessor the value is read back with.
+     * @param value    the boxed sample value.
+     * @param errorMsg the message to fail with.
+     */
+    private void validatePrimitive(Object bean, MemberAccessor writer, MemberAccessor reader, Object value, String errorMsg)
+            throws IllegalAccessException, InvocationTargetException {
+        final Class<?> type = reader.getType();
+
+        if (Primitives.isDoubleType(type)) {
+            final double expected = Primitives.toDouble(value);
+
+            writer.setDouble(bean, expected);
+            assertDoubleEquals(reader.getDouble(bean), expected, type, errorMsg);
+
+            writer.setDouble(bean, 0D);
+            assertDoubleEquals(reader.getDouble(bean), 0D, type, errorMsg);
+        } else {
+            final long expected = Primitives.toLong(value);
+
+            writer.setLong(bean, expected);
+            assertLongEquals(reader.getLong(bean), expected, type, errorMsg);
+
+            writer.setLong(bean, 0L);
+            assertLongEquals(reader.getLong(bean), 0L, type, errorMsg);
+        }
+    }
+
+    private static void assertLongEquals(long actual, long expected, Class<?> type, String errorMsg) {
+        if (actual != expected) {
+            assertEquals(Primitives.fromLong(actual, type), Primitives.fromLong(expected, type), errorMsg);
+        }
+    }
+
+    private static void assertDoubleEquals(double actual, double expected, Class<?> type, String errorMsg) {
+        if (Double.doubleToLongBits(actual) != Double.doubleToLongBits(expected)) {
+            assertEquals(Primitives.fromDouble(actual, type), Primitives.fromDouble(expected, type), errorMsg);
+        }
+    }
+
+    private static Object createDefaultValue(Class<?> type) {
+        return defaultValueMap.get(type);
+    }
+
+    private static Map<Class<?>, Object> createDefaultValueMap() {
+        Map<Class<?>, Object> valueMap = new HashMap<Class<?>, Object>();
+
+        valueMap.put(byte.class, new Byte((byte) 0));
+        valueMap.put(short.class, new Short((short) 0));
+        valueMap.put(int.class, new Integer(0));
+        valueMap.put(long.class, new Long(0));
+        valueMap.put(float.class, new Float(0));
+        valueMap.put(double.class, new Double(0));
+        valueMap.put(boolean.class, Boolean.FALSE);
+        valueMap.put(char.class, new Character((char) 0));
+
+        valueMap.put(Byte.class, new Byte((byte) 0));
+        valueMap.put(Short.class, new Short((short) 0));
+        valueMap.put(Integer.class, new Integer(0));
+        valueMap.put(Long.class, new Long(0));
+        valueMap.put(Float.class, new Float(0));
+        valueMap.put(Double.class, new Double(0));
+        valueMap.put(Boolean.class, Boolean.FALSE);
+        valueMap.put(Character.class, new Character((char) 0));
+
+        return valueMap;
+    }
+
+    private boolean isTypeSafeAssignment(Class<?> sourceType, Class<?> targetType, String methodType, String errorMsg,
+                                         AutoTestConfig config) {
+        if (targetType.isAssignableFrom(sourceType)) {
+            // All ok
+            return true;
+        }
+
+        String msg = errorMsg + " variable and " +
+                methodType + " have different types (" +
+                sourceType.getSimpleName() + " -> " +
+                targetType.getSimpleName() + "): ";
+        log.warn(msg);
+
+        if (config.isFailOnBadAssignment()) {
+            fail(msg);
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A disposable class loader that defines the classes under the root packages itself, reading their class
+ * files from the parent, and delegates every other class to the parent.
+ * <p/>
+ * Classes defined here (and their static state) can be garbage collected once the loader is dropped, and
+ * never see the static state of the same classes in another loader.
+ */
+class IsolatingClassLoader extends ClassLoader {
+    private static final String CLASS_POSTFIX = ".class";
+
+    private final List<String> packagePrefixes;
+
+    IsolatingClassLoader(ClassLoader parent, List<String> rootPackages) {
+        super(parent);
+
+        this.packagePrefixes = new ArrayList<String>();
+        for(String rootPackage : rootPackages) {
+            packagePrefixes.add(rootPackage + ".");
+        }
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!isIsolated(name)) {
+            return super.loadClass(name, resolve);
+        }
+
+        synchronized(getClassLoadingLock(name)) {
+            Class<?> cls = findLoadedClass(name);
+            if (cls == null) {
+                cls = findClass(name);
+            }
+            if (resolve) {
+                resolveClass(cls);
+            }
+            return cls;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        final byte[] bytes;
+        try {
+            bytes = readClassFile(name);
+        } catch(IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+
+        if (bytes == null) {
+            // Not a class file, such as a class generated at runtime by the parent.
+            return getParent().loadClass(name);
+        }
+
+        definePackageFor(name);
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+
+    private boolean isIsolated(String name) {
+        for(String prefix : packagePrefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] readClassFile(String name) throws IOException {
+        final InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + CLASS_POSTFIX);
+        if (in == null) {
+            return null;
+        }
+
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Older JVMs don't define packages for classes defined by a custom loader, and ClassUtil relies on
+     * Class.getPackage().
+     */
+    @SuppressWarnings("deprecation")
+    private void definePackageFor(String name) {
+        final int dot = name.lastIndexOf('.');
+        if (dot < 0) {
+            return;
+        }
+
+        final String packageName = name.substring(0, dot);
+        if (getPackage(packageName) == null) {
+            try {
+                definePackage(packageName, null, null, null, null, null, null, null);
+            } catch(IllegalArgumentException e) {
+                // Defined concurrently.
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Reads or writes a value through a field, a getter or a setter.
+ * <p/>
+ * Getters only support the get methods and setters only the set methods. The primitive methods may
+ * only be used when the accessor's type is a primitive, the defaults here convert through the boxed
+ * methods and are overridden by accessors that can avoid boxing.
+ */
+public abstract class MemberAccessor {
+    private final Class<?> type;
+
+    protected MemberAccessor(Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the field type, getter return type or setter parameter type.
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    public abstract Object get(Object bean) throws IllegalAccessException, InvocationTargetException;
+
+    public abstract void set(Object bean, Object value) throws IllegalAccessException, InvocationTargetException;
+
+    /**
+     * Reads an int, long, short, byte, char or boolean (as 0 or 1) value.
+     */
+    public long getLong(Object bean) throws IllegalAccessException, InvocationTargetException {
+        return Primitives.toLong(get(bean));
+    }
+
+    /**
+     * Writes an int, long, short, byte, char or boolean (the low bit) value.
+     */
+    public void setLong(Object bean, long value) throws IllegalAccessException, InvocationTargetException {
+        set(bean, Primitives.fromLong(value, type));
+    }
+
+    /**
+     * Reads a double or float value.
+     */
+    public double getDouble(Object bean) throws IllegalAccessException, InvocationTargetException {
+        return Primitives.toDouble(get(bean));
+    }
+
+    /**
+     * Writes a double or float value.
+     */
+    public void setDouble(Object bean, double value) throws IllegalAccessException, InvocationTargetException {
+        set(bean, Primitives.fromDouble(value, type));
+    }
+
+    /**
+     * Writes a boxed value, through setLong or setDouble when the type is a primitive.
+     */
+    public void setValue(Object bean, Object value) throws IllegalAccessException, InvocationTargetException {
+        if (Primitives.isLongType(type)) {
+            setLong(bean, Primitives.toLong(value));
+        } else if (Primitives.isDoubleType(type)) {
+            setDouble(bean, Primitives.toDouble(value));
+        } else {
+            set(bean, value);
+        }
+    }
+}
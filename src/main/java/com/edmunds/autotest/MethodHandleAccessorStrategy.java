@@ -0,0 +1,166 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Accesses members through MethodHandles adapted to fixed shapes, so primitive values can be passed
+ * as a long or double without boxing.
+ * <p/>
+ * Members that can't be unreflected (for example final fields) fall back to reflection.
+ */
+public class MethodHandleAccessorStrategy extends CachingAccessorStrategy {
+    private static final Log log = LogFactory.getLog(MethodHandleAccessorStrategy.class);
+
+    private static final MethodType GET_OBJECT = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType GET_LONG = MethodType.methodType(long.class, Object.class);
+    private static final MethodType GET_DOUBLE = MethodType.methodType(double.class, Object.class);
+    private static final MethodType SET_OBJECT = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType SET_LONG = MethodType.methodType(void.class, Object.class, long.class);
+    private static final MethodType SET_DOUBLE = MethodType.methodType(void.class, Object.class, double.class);
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private final ReflectionAccessorStrategy fallback = new ReflectionAccessorStrategy();
+
+    @Override
+    protected MemberAccessor createFieldAccessor(Field field) {
+        try {
+            field.setAccessible(true);
+
+            final boolean isStatic = Modifier.isStatic(field.getModifiers());
+            final MethodHandle getter = receiver(lookup.unreflectGetter(field), isStatic);
+            final MethodHandle setter = receiver(lookup.unreflectSetter(field), isStatic);
+
+            return new MethodHandleAccessor(field.getType(), getter, setter);
+        } catch(IllegalAccessException e) {
+            log.debug("Using reflection for field: " + field, e);
+            return fallback.createFieldAccessor(field);
+        }
+    }
+
+    @Override
+    protected MemberAccessor createMethodAccessor(Method method) {
+        try {
+            method.setAccessible(true);
+
+            final MethodHandle handle = receiver(lookup.unreflect(method), Modifier.isStatic(method.getModifiers()));
+            final Class<?> type = ReflectionAccessorStrategy.getMethodType(method);
+
+            if (method.getParameterTypes().length == 0) {
+                return new MethodHandleAccessor(type, handle, null);
+            }
+            return new MethodHandleAccessor(type, null, handle);
+        } catch(IllegalAccessException e) {
+            log.debug("Using reflection for method: " + method, e);
+            return fallback.createMethodAccessor(method);
+        }
+    }
+
+    /**
+     * Gives static members an ignored leading receiver argument so all handles have the same shape.
+     */
+    private static MethodHandle receiver(MethodHandle handle, boolean isStatic) {
+        return isStatic ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
+    }
+
+    private static class MethodHandleAccessor extends MemberAccessor {
+        private final MethodHandle getObject;
+        private final MethodHandle getLong;
+        private final MethodHandle getDouble;
+        private final MethodHandle setObject;
+        private final MethodHandle setLong;
+        private final MethodHandle setDouble;
+
+        MethodHandleAccessor(Class<?> type, MethodHandle getter, MethodHandle setter) {
+            super(type);
+
+            final boolean longType = Primitives.isLongType(type);
+            final boolean doubleType = Primitives.isDoubleType(type);
+
+            this.getObject = getter != null ? getter.asType(GET_OBJECT) : null;
+            this.getLong = getter != null && longType ? MethodHandles.explicitCastArguments(getter, GET_LONG) : null;
+            this.getDouble = getter != null && doubleType ? MethodHandles.explicitCastArguments(getter, GET_DOUBLE) : null;
+
+            this.setObject = setter != null ? setter.asType(SET_OBJECT) : null;
+            this.setLong = setter != null && longType ? MethodHandles.explicitCastArguments(setter, SET_LONG) : null;
+            this.setDouble = setter != null && doubleType ? MethodHandles.explicitCastArguments(setter, SET_DOUBLE) : null;
+        }
+
+        @Override
+        public Object get(Object bean) throws InvocationTargetException {
+            try {
+                return getObject.invokeExact(bean);
+            } catch(Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        @Override
+        public void set(Object bean, Object value) throws InvocationTargetException {
+            try {
+                setObject.invokeExact(bean, value);
+            } catch(Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        @Override
+        public long getLong(Object bean) throws InvocationTargetException {
+            try {
+                return (long) getLong.invokeExact(bean);
+            } catch(Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        @Override
+        public void setLong(Object bean, long value) throws InvocationTargetException {
+            try {
+                setLong.invokeExact(bean, value);
+            } catch(Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        @Override
+        public double getDouble(Object bean) throws InvocationTargetException {
+            try {
+                return (double) getDouble.invokeExact(bean);
+            } catch(Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        @Override
+        public void setDouble(Object bean, double value) throws InvocationTargetException {
+            try {
+                setDouble.invokeExact(bean, value);
+            } catch(Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+    }
+}
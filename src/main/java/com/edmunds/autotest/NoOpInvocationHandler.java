@@ -16,11 +16,62 @@
 package com.edmunds.autotest;
 
 import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Answers every call on an interface stub with a harmless default.
+ * <p/>
+ * Each interface has a single cached stub, stubs hold no state so they can be shared by every bean and
+ * thread. How a method is answered is worked out once per Method and kept in a dispatch table; methods
+ * without a meaningful answer return the zero value of their return type and are logged the first time
+ * they are called.
+ */
 public class NoOpInvocationHandler implements InvocationHandler {
+    private static final Log log = LogFactory.getLog(NoOpInvocationHandler.class);
+
+    private static final Map<Class<?>, Object> ZERO_VALUES = createZeroValues();
+
+    private static final ClassValue<Object> STUBS = new ClassValue<Object>() {
+        @Override
+        protected Object computeValue(Class<?> type) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, new NoOpInvocationHandler(type));
+        }
+    };
+
+    private final ConcurrentMap<Method, Dispatch> dispatchTable = new ConcurrentHashMap<Method, Dispatch>();
+
+    public NoOpInvocationHandler() {
+    }
+
+    private NoOpInvocationHandler(Class<?> type) {
+        for(Method method : type.getMethods()) {
+            dispatchTable.put(method, createDispatch(method));
+        }
+    }
+
+    /**
+     * Returns the shared stub for an interface.
+     *
+     * @param type the interface.
+     * @return a proxy implementing the interface.
+     */
+    public static Object getStub(Class<?> type) {
+        assert type.isInterface() : "Not an interface: " + type.getName();
+
+        return STUBS.get(type);
+    }
+
     /**
      * Processes a method invocation on a proxy instance and returns
      * the result.  This method will be invoked on an invocation handler
@@ -40,67 +91,106 @@ public class NoOpInvocationHandler implements InvocationHandler {
      *               appropriate primitive wrapper class, such as
      *               <code>java.lang.Integer</code> or <code>java.lang.Boolean</code>.
      * @return the value to return from the method invocation on the
-     *         proxy instance.  If the declared return type of the interface
-     *         method is a primitive type, then the value returned by
-     *         this method must be an instance of the corresponding primitive
-     *         wrapper class; otherwise, it must be a type assignable to the
-     *         declared return type.  If the value returned by this method is
-     *         <code>null</code> and the interface method's return type is
-     *         primitive, then a <code>NullPointerException</code> will be
-     *         thrown by the method invocation on the proxy instance.  If the
-     *         value returned by this method is otherwise not compatible with
-     *         the interface method's declared return type as described above,
-     *         a <code>ClassCastException</code> will be thrown by the method
-     *         invocation on the proxy instance.
-     * @throws Throwable the exception to throw from the method
-     *                   invocation on the proxy instance.  The exception's type must be
-     *                   assignable either to any of the exception types declared in the
-     *                   <code>throws</code> clause of the interface method or to the
-     *                   unchecked exception types <code>java.lang.RuntimeException</code>
-     *                   or <code>java.lang.Error</code>.  If a checked exception is
-     *                   thrown by this method that is not assignable to any of the
-     *                   exception types declared in the <code>throws</code> clause of
-     *                   the interface method, then an
-     *                   {@link java.lang.reflect.UndeclaredThrowableException} containing the
-     *                   exception that was thrown by this method will be thrown by the
-     *                   method invocation on the proxy instance.
+     *         proxy instance, primitive return types always get their zero value.
      * @see java.lang.reflect.UndeclaredThrowableException
      */
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Dispatch dispatch = dispatchTable.get(method);
 
-        final String name = method.getName();
-        if ("equals".equals(name)) {
-            return args.length == 1 && proxy == args[0];
-        }
+        if (dispatch == null) {
+            dispatch = createDispatch(method);
 
-        if ("hashCode".equals(name)) {
-            return 0;
+            final Dispatch existing = dispatchTable.putIfAbsent(method, dispatch);
+            if (existing != null) {
+                dispatch = existing;
+            }
         }
+        return dispatch.invoke(proxy, method, args);
+    }
 
-        if ("toString".equals(name)) {
-            return "NoOpInvocationHandler";
-        }
+    private static Dispatch createDispatch(Method method) {
+        final String name = method.getName();
+        final Class<?> returnType = method.getReturnType();
+        final int paramCount = method.getParameterTypes().length;
 
-        if ("getClass".equals(name)) {
-            return method.getDeclaringClass();
+        if ("equals".equals(name) && paramCount == 1) {
+            return new Dispatch(Dispatch.EQUALS, null);
+        } else if ("hashCode".equals(name) && paramCount == 0) {
+            return new Dispatch(Dispatch.HASH_CODE, null);
+        } else if ("toString".equals(name) && paramCount == 0) {
+            return new Dispatch(Dispatch.VALUE, "NoOpInvocationHandler");
         }
 
         // The following methods are to fix NPEs when using a GUI Debugger.
-        if ("isEmpty".equals(name)) {
-            return Boolean.TRUE;
+        if ("isEmpty".equals(name) && returnType == boolean.class) {
+            return new Dispatch(Dispatch.VALUE, Boolean.TRUE);
+        } else if ("toArray".equals(name) && returnType.isArray()) {
+            return new Dispatch(Dispatch.TO_ARRAY, returnType == Object[].class ?
+                    ArrayUtils.EMPTY_OBJECT_ARRAY : Array.newInstance(returnType.getComponentType(), 0));
+        } else if ("size".equals(name) && returnType == int.class) {
+            return new Dispatch(Dispatch.VALUE, 0);
         }
+        // End debugger support
 
-        if ("toArray".equals(name)) {
-            return ArrayUtils.EMPTY_OBJECT_ARRAY;
-        }
+        return new Dispatch(Dispatch.MISSING, ZERO_VALUES.get(returnType));
+    }
 
-        if ("size".equals(name)) {
-            return 0;
-        }
-        // End debugger support
+    private static Map<Class<?>, Object> createZeroValues() {
+        final Map<Class<?>, Object> values = new HashMap<Class<?>, Object>();
+
+        values.put(byte.class, (byte) 0);
+        values.put(short.class, (short) 0);
+        values.put(int.class, 0);
+        values.put(long.class, 0L);
+        values.put(float.class, 0F);
+        values.put(double.class, 0D);
+        values.put(boolean.class, Boolean.FALSE);
+        values.put(char.class, (char) 0);
+
+        return values;
+    }
 
-        System.out.println("NoOpInvocationHandler: Missing Proxy Method: " + name);
+    private static class Dispatch {
+        static final int VALUE = 0;
+        static final int EQUALS = 1;
+        static final int HASH_CODE = 2;
+        static final int TO_ARRAY = 3;
+        static final int MISSING = 4;
 
-        return null;
+        private final int kind;
+        private final Object value;
+        private final AtomicBoolean reported = new AtomicBoolean();
+
+        Dispatch(int kind, Object value) {
+            this.kind = kind;
+            this.value = value;
+        }
+
+        Object invoke(Object proxy, Method method, Object[] args) {
+            switch(kind) {
+                case EQUALS:
+                    return proxy == args[0];
+                case HASH_CODE:
+                    return System.identityHashCode(proxy);
+                case TO_ARRAY:
+                    // toArray(T[]) hands back the caller's array so its component type is kept.
+                    if (args != null && args.length == 1 && args[0] instanceof Object[]) {
+                        final Object[] array = (Object[]) args[0];
+                        if (array.length > 0) {
+                            array[0] = null;
+                        }
+                        return array;
+                    }
+                    return value;
+                case MISSING:
+                    // Only the first call is reported, so busy stubs don't flood the log.
+                    if (!reported.get() && reported.compareAndSet(false, true)) {
+                        log.info("Missing Proxy Method: " + method.getDeclaringClass().getName() + "." + method.getName());
+                    }
+                    return value;
+                default:
+                    return value;
+            }
+        }
     }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+/**
+ * Conversions used by the primitive specialised accessor paths.
+ * <p/>
+ * Integral types, char and boolean are carried as a long and float and double as a double so values
+ * can be round tripped through a bean without boxing.
+ */
+final class Primitives {
+    private Primitives() {
+    }
+
+    static boolean isLongType(Class<?> type) {
+        return type == int.class || type == long.class || type == boolean.class ||
+                type == short.class || type == byte.class || type == char.class;
+    }
+
+    static boolean isDoubleType(Class<?> type) {
+        return type == double.class || type == float.class;
+    }
+
+    static long toLong(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1L : 0L;
+        } else if (value instanceof Character) {
+            return (Character) value;
+        }
+        return ((Number) value).longValue();
+    }
+
+    static Object fromLong(long value, Class<?> type) {
+        if (type == int.class) {
+            return (int) value;
+        } else if (type == long.class) {
+            return value;
+        } else if (type == boolean.class) {
+            return (value & 1L) != 0;
+        } else if (type == short.class) {
+            return (short) value;
+        } else if (type == byte.class) {
+            return (byte) value;
+        } else if (type == char.class) {
+            return (char) value;
+        }
+        throw new IllegalArgumentException("Not a long type: " + type);
+    }
+
+    static double toDouble(Object value) {
+        return ((Number) value).doubleValue();
+    }
+
+    static Object fromDouble(double value, Class<?> type) {
+        if (type == double.class) {
+            return value;
+        } else if (type == float.class) {
+            return (float) value;
+        }
+        throw new IllegalArgumentException("Not a double type: " + type);
+    }
+}
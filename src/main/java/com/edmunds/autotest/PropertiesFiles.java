@@ -0,0 +1,145 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Reads and writes the "className=number" files that record measurements across runs.
+ */
+final class PropertiesFiles {
+    private static final Log log = LogFactory.getLog(PropertiesFiles.class);
+
+    private PropertiesFiles() {
+    }
+
+    /**
+     * Reads a file of long values.
+     *
+     * @param file        the file.
+     * @param description what the file holds, for the log.
+     * @return the values by name, empty if the file is missing or unreadable.
+     */
+    static Map<String, Long> readLongs(File file, String description) {
+        final Map<String, Long> values = new TreeMap<String, Long>();
+        if (!file.isFile()) {
+            return values;
+        }
+
+        final Properties properties = new Properties();
+        try {
+            final InputStream in = new FileInputStream(file);
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        } catch(IOException e) {
+            log.warn("Ignoring unreadable " + description + ": " + file, e);
+            return values;
+        }
+
+        for(String name : properties.stringPropertyNames()) {
+            try {
+                values.put(name, Long.parseLong(properties.getProperty(name).trim()));
+            } catch(NumberFormatException e) {
+                log.debug("Ignoring " + description + ": " + name, e);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Merges the values into a file under a file lock, like the ValidationCache, so concurrent runs don't
+     * lose each other's values.
+     *
+     * @param file        the file.
+     * @param values      the values by name, replacing those already in the file.
+     * @param description what the file holds, for the log.
+     * @throws IOException if the file can't be written.
+     */
+    static void mergeLongs(final File file, final Map<String, Long> values, final String description)
+            throws IOException {
+        FileLocks.update(file, new FileLocks.Update() {
+            public void run() throws IOException {
+                final Map<String, Long> merged = readLongs(file, description);
+                merged.putAll(values);
+                writeLongs(file, merged);
+            }
+        });
+    }
+
+    /**
+     * Replaces a file with the values, through a temporary file so readers never see half a file.
+     *
+     * @param file   the file.
+     * @param values the values by name.
+     * @throws IOException if the file can't be written.
+     */
+    static void writeLongs(File file, Map<String, Long> values) throws IOException {
+        final File parent = file.getAbsoluteFile().getParentFile();
+        final File temp = File.createTempFile(file.getName(), ".tmp", parent);
+
+        try {
+            final Writer out = new OutputStreamWriter(new FileOutputStream(temp), "ISO-8859-1");
+            try {
+                for(Map.Entry<String, Long> entry : new TreeMap<String, Long>(values).entrySet()) {
+                    out.write(escapeKey(entry.getKey()) + "=" + entry.getValue() + "\n");
+                }
+            } finally {
+                out.close();
+            }
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Escapes a key the way Properties.store() does, so Properties.load() reads it back unchanged.
+     */
+    private static String escapeKey(String key) {
+        final StringBuilder sb = new StringBuilder(key.length());
+
+        for(int i = 0; i < key.length(); i++) {
+            final char c = key.charAt(i);
+
+            if (c == '\\' || c == '=' || c == ':' || c == '#' || c == '!' || c == ' ') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Accesses members through Field.get/set and Method.invoke.
+ */
+public class ReflectionAccessorStrategy extends CachingAccessorStrategy {
+
+    @Override
+    protected MemberAccessor createFieldAccessor(final Field field) {
+        field.setAccessible(true);
+
+        return new MemberAccessor(field.getType()) {
+            @Override
+            public Object get(Object bean) throws IllegalAccessException {
+                return field.get(bean);
+            }
+
+            @Override
+            public void set(Object bean, Object value) throws IllegalAccessException {
+                field.set(bean, value);
+            }
+        };
+    }
+
+    @Override
+    protected MemberAccessor createMethodAccessor(final Method method) {
+        method.setAccessible(true);
+
+        return new MemberAccessor(getMethodType(method)) {
+            @Override
+            public Object get(Object bean) throws IllegalAccessException, InvocationTargetException {
+                return method.invoke(bean);
+            }
+
+            @Override
+            public void set(Object bean, Object value) throws IllegalAccessException, InvocationTargetException {
+                method.invoke(bean, value);
+            }
+        };
+    }
+
+    static Class<?> getMethodType(Method method) {
+        final Class<?>[] params = method.getParameterTypes();
+
+        return params.length == 0 ? method.getReturnType() : params[0];
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+/**
+ * Creates the values written to bean properties during validation.
+ *
+ * @see SampleValueRegistry
+ */
+public interface SampleValueFactory {
+
+    /**
+     * Creates a sample value, values of mutable types should not be shared between calls.
+     *
+     * @param type the property type.
+     * @return the value or null if this factory does not support the type.
+     */
+    Object createValue(Class<?> type);
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Looks up the SampleValueFactory for each property type.
+ * <p/>
+ * A type is resolved once and the factory is cached on the class, so later properties of the same type
+ * go straight to it. Factories registered for an exact type are used first, then the generators in the
+ * order they were added. Types that neither handles are created with their no argument constructor
+ * (interfaces get a proxy), or get null when they don't have one.
+ * <p/>
+ * Primitives, their wrappers and String are registered by default. The ENUMS, ARRAYS, COLLECTIONS and
+ * JAVA_TIME generators are available but have to be added.
+ */
+public class SampleValueRegistry {
+    private static final Log log = LogFactory.getLog(SampleValueRegistry.class);
+
+    /**
+     * The first constant of an enum.
+     */
+    public static final SampleValueFactory ENUMS = new SampleValueFactory() {
+        public Object createValue(Class<?> type) {
+            final Object[] constants = type.isEnum() ? type.getEnumConstants() : null;
+
+            return constants != null && constants.length > 0 ? constants[0] : null;
+        }
+    };
+
+    /**
+     * A new array holding one default element.
+     */
+    public static final SampleValueFactory ARRAYS = new SampleValueFactory() {
+        public Object createValue(Class<?> type) {
+            return type.isArray() ? Array.newInstance(type.getComponentType(), 1) : null;
+        }
+    };
+
+    /**
+     * A new empty collection or map for collection and map interfaces and abstract classes, concrete
+     * classes are left to their constructor.
+     */
+    public static final SampleValueFactory COLLECTIONS = new SampleValueFactory() {
+        public Object createValue(Class<?> type) {
+            if (!isAbstractType(type) ||
+                    !(Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type) || type == Iterable.class)) {
+                return null;
+            }
+
+            if (type.isAssignableFrom(ArrayList.class)) {
+                return new ArrayList<Object>();
+            } else if (type.isAssignableFrom(HashSet.class)) {
+                return new HashSet<Object>();
+            } else if (type.isAssignableFrom(TreeSet.class)) {
+                return new TreeSet<Object>();
+            } else if (type.isAssignableFrom(ArrayDeque.class)) {
+                return new ArrayDeque<Object>();
+            } else if (type.isAssignableFrom(HashMap.class)) {
+                return new HashMap<Object, Object>();
+            } else if (type.isAssignableFrom(TreeMap.class)) {
+                return new TreeMap<Object, Object>();
+            } else if (type.isAssignableFrom(ConcurrentHashMap.class)) {
+                return new ConcurrentHashMap<Object, Object>();
+            }
+            return null;
+        }
+    };
+
+    /**
+     * A shared java.time value, found reflectively so this compiles and runs on JVMs without java.time.
+     * The value comes from the type's static now() method or else its first public static constant.
+     */
+    public static final SampleValueFactory JAVA_TIME = new SampleValueFactory() {
+        private final ConcurrentMap<Class<?>, Object> values = new ConcurrentHashMap<Class<?>, Object>();
+
+        public Object createValue(Class<?> type) {
+            if (!type.getName().startsWith("java.time.")) {
+                return null;
+            }
+
+            Object value = values.get(type);
+            if (value == null) {
+                value = findStaticValue(type);
+                if (value != null) {
+                    values.putIfAbsent(type, value);
+                }
+            }
+            return value;
+        }
+    };
+
+    private static final SampleValueFactory NO_VALUE = new SampleValueFactory() {
+        public Object createValue(Class<?> type) {
+            return null;
+        }
+    };
+
+    private static final SampleValueFactory PROXY = new SampleValueFactory() {
+        public Object createValue(Class<?> type) {
+            return ClassUtil.instanceClass(type, "Failed to create proxy : " + type.getName());
+        }
+    };
+
+    private final Map<Class<?>, SampleValueFactory> factories = new ConcurrentHashMap<Class<?>, SampleValueFactory>();
+    private final List<SampleValueFactory> generators = new CopyOnWriteArrayList<SampleValueFactory>();
+    private volatile ClassValue<SampleValueFactory> resolved = newResolvedCache();
+
+    public SampleValueRegistry() {
+        registerConstant(byte.class, (byte) 40);
+        registerConstant(short.class, (short) 41);
+        registerConstant(int.class, 42);
+        registerConstant(long.class, 43L);
+        registerConstant(float.class, 44F);
+        registerConstant(double.class, 45D);
+        registerConstant(boolean.class, Boolean.TRUE);
+        registerConstant(char.class, (char) 46);
+
+        registerConstant(Byte.class, (byte) 40);
+        registerConstant(Short.class, (short) 41);
+        registerConstant(Integer.class, 42);
+        registerConstant(Long.class, 43L);
+        registerConstant(Float.class, 44F);
+        registerConstant(Double.class, 45D);
+        registerConstant(Boolean.class, Boolean.TRUE);
+        registerConstant(Character.class, (char) 46);
+
+        registerConstant(String.class, "");
+    }
+
+    /**
+     * Registers the factory used for exactly this type.
+     * <p/>
+     * Copies of the type defined by an IsolatingClassLoader are matched by name, the factory is used for a
+     * copy when the value it creates for the copy is an instance of it.
+     */
+    public void register(Class<?> type, SampleValueFactory factory) {
+        factories.put(type, factory);
+        resolved = newResolvedCache();
+    }
+
+    /**
+     * Registers a shared value for exactly this type, only use this for immutable values.
+     */
+    public void registerConstant(Class<?> type, Object value) {
+        register(type, new ConstantFactory(value));
+    }
+
+    /**
+     * Adds a generator for types without an exact registration, the first generator to return a value
+     * for a type is used for that type from then on.
+     */
+    public void addGenerator(SampleValueFactory generator) {
+        generators.add(generator);
+        resolved = newResolvedCache();
+    }
+
+    /**
+     * Creates a sample value for a property.
+     *
+     * @param type     the property type.
+     * @param errorMsg the message to fail with if the value can't be created.
+     * @return the value, or null if there is no way to create one.
+     */
+    public Object createValue(Class<?> type, String errorMsg) {
+        try {
+            return resolved.get(type).createValue(type);
+        } catch(RuntimeException e) {
+            log.error(errorMsg, e);
+            throw new RuntimeException(errorMsg, e);
+        }
+    }
+
+    /**
+     * Describes the registrations, used to tell configs apart in the validation cache. Constants are
+     * described by their value, other factories by their class.
+     */
+    @Override
+    public String toString() {
+        final Map<String, String> registrations = new TreeMap<String, String>();
+        for(Map.Entry<Class<?>, SampleValueFactory> entry : factories.entrySet()) {
+            final SampleValueFactory factory = entry.getValue();
+
+            registrations.put(entry.getKey().getName(), factory instanceof ConstantFactory ?
+                    factory.toString() : factory.getClass().getName());
+        }
+
+        final List<String> generatorNames = new ArrayList<String>();
+        for(SampleValueFactory generator : generators) {
+            generatorNames.add(generator.getClass().getName());
+        }
+        return registrations + " " + generatorNames;
+    }
+
+    private ClassValue<SampleValueFactory> newResolvedCache() {
+        return new ClassValue<SampleValueFactory>() {
+            @Override
+            protected SampleValueFactory computeValue(Class<?> type) {
+                return resolve(type);
+            }
+        };
+    }
+
+    private SampleValueFactory resolve(Class<?> type) {
+        SampleValueFactory factory = factories.get(type);
+        if (factory == null) {
+            factory = findCopyFactory(type);
+        }
+        if (factory != null) {
+            return factory;
+        }
+
+        for(SampleValueFactory generator : generators) {
+            if (generator.createValue(type) != null) {
+                return generator;
+            }
+        }
+
+        if (type.isPrimitive()) {
+            return NO_VALUE;
+        } else if (type.isInterface()) {
+            return PROXY;
+        }
+
+        final Constructor constructor = ClassUtil.isStandardClass(type) ? ClassUtil.getDefaultConstructor(type) : null;
+        return constructor != null ? new ConstructorFactory(constructor) : NO_VALUE;
+    }
+
+    /**
+     * Finds the factory registered for another class of the same name, such as the original of a class
+     * redefined in an isolated loader.
+     */
+    private SampleValueFactory findCopyFactory(Class<?> type) {
+        for(Map.Entry<Class<?>, SampleValueFactory> entry : factories.entrySet()) {
+            if (entry.getKey().getName().equals(type.getName())) {
+                if (type.isInstance(entry.getValue().createValue(type))) {
+                    return entry.getValue();
+                }
+                log.warn("Ignoring the sample value factory of " + type.getName() +
+                        ", its values are not instances of the copy defined by " + type.getClassLoader());
+            }
+        }
+        return null;
+    }
+
+    private static boolean isAbstractType(Class<?> type) {
+        return type.isInterface() || Modifier.isAbstract(type.getModifiers());
+    }
+
+    private static Object findStaticValue(Class<?> type) {
+        try {
+            final Method now = type.getMethod("now");
+            if (Modifier.isStatic(now.getModifiers()) && type.isAssignableFrom(now.getReturnType())) {
+                return now.invoke(null);
+            }
+        } catch(NoSuchMethodException e) {
+            // Fall back to a constant.
+        } catch(IllegalAccessException e) {
+            log.debug("Failed to call " + type.getName() + ".now()", e);
+        } catch(InvocationTargetException e) {
+            log.debug("Failed to call " + type.getName() + ".now()", e);
+        }
+
+        for(Field field : type.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && type.isAssignableFrom(field.getType())) {
+                try {
+                    return field.get(null);
+                } catch(IllegalAccessException e) {
+                    log.debug("Failed to read " + type.getName() + "." + field.getName(), e);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the same value for every property.
+     */
+    private static class ConstantFactory implements SampleValueFactory {
+        private final Object value;
+
+        ConstantFactory(Object value) {
+            this.value = value;
+        }
+
+        public Object createValue(Class<?> type) {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return value != null ? value.getClass().getName() + "(" + value + ")" : "null";
+        }
+    }
+
+    /**
+     * Creates a new instance for every property using the cached no argument constructor.
+     */
+    private static class ConstructorFactory implements SampleValueFactory {
+        private final Constructor constructor;
+
+        ConstructorFactory(Constructor constructor) {
+            this.constructor = constructor;
+            constructor.setAccessible(true);
+        }
+
+        public Object createValue(Class<?> type) {
+            try {
+                return constructor.newInstance();
+            } catch(InvocationTargetException e) {
+                throw new RuntimeException(e);
+            } catch(InstantiationException e) {
+                throw new RuntimeException(e);
+            } catch(IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.fail;
+
+/**
+ * Round trips Serializable beans through Java serialization.
+ * <p/>
+ * Every serialized field that a sample value can be created for is filled, the bean is written with an
+ * ObjectOutputStream and read back, and each field of the copy must equal the original. The payload
+ * size is checked against AutoTestConfig.getMaxSerializedBytes() and against the size recorded in
+ * AutoTestConfig.getSerializationBaselineFile(). Classes missing from the baseline are added to it when
+ * the run completes, delete the file to record a new baseline.
+ */
+public class SerializationValidator implements BeanValidator {
+    private static final Log log = LogFactory.getLog(SerializationValidator.class);
+
+    private final Map<String, Long> sizes = new ConcurrentHashMap<String, Long>();
+    private File baselineFile;
+    private Map<String, Long> baseline;
+
+    public ValidationPhase getPhase() {
+        return ValidationPhase.VALIDATE_SERIALIZATION;
+    }
+
+    public boolean isEnabled(AutoTestConfig config) {
+        return config.isValidateSerialization();
+    }
+
+    /**
+     * Validates a class, classes that don't implement Serializable always pass.
+     *
+     * @param context the class.
+     */
+    public void validate(BeanContext context) {
+        final Class cls = context.getBeanClass();
+        if (!Serializable.class.isAssignableFrom(cls)) {
+            return;
+        }
+
+        final AutoTestConfig config = context.getConfig();
+        final String errorMsg = "Failed to validate serialization: " + cls.getName();
+        final Object bean = context.newInstance();
+        final Map<Field, Object> values = fill(bean, context.getFields(), config);
+
+        long nanos = System.nanoTime();
+        final byte[] payload = write(bean, errorMsg);
+        final long writeNanos = System.nanoTime() - nanos;
+
+        nanos = System.nanoTime();
+        final Object copy = read(payload, cls, errorMsg);
+        final long readNanos = System.nanoTime() - nanos;
+
+        assertNotNull(copy, errorMsg);
+        assertEquals(copy.getClass(), cls, errorMsg);
+        for (Map.Entry<Field, Object> entry : values.entrySet()) {
+            checkField(copy, entry.getKey(), entry.getValue(), errorMsg, config);
+        }
+
+        log.info(String.format("Serialized %s: %d bytes, written in %d us, read in %d us",
+                cls.getName(), payload.length, writeNanos / 1000, readNanos / 1000));
+
+        checkSize(cls, payload.length, config);
+    }
+
+    /**
+     * Adds the sizes of the classes missing from the baseline file to it.
+     */
+    public synchronized void validationCompleted(AutoTestConfig config) {
+        final Map<String, Long> recorded = new HashMap<String, Long>(sizes);
+        sizes.clear();
+        baseline = null;
+
+        final File file = config.getSerializationBaselineFile();
+        if (file == null || recorded.isEmpty()) {
+            return;
+        }
+
+        // Merged under a file lock like the ValidationCache, so concurrent runs keep each other's sizes.
+        try {
+            FileLocks.update(file, new FileLocks.Update() {
+                public void run() throws IOException {
+                    final Map<String, Long> merged = PropertiesFiles.readLongs(file, "serialization baseline");
+                    boolean changed = false;
+
+                    for (Map.Entry<String, Long> entry : recorded.entrySet()) {
+                        if (!merged.containsKey(entry.getKey())) {
+                            merged.put(entry.getKey(), entry.getValue());
+                            changed = true;
+                        }
+                    }
+
+                    if (changed) {
+                        PropertiesFiles.writeLongs(file, merged);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to save serialization baseline: " + file, e);
+        }
+    }
+
+    private void checkSize(Class cls, int size, AutoTestConfig config) {
+        final String msg = "Serialized size of " + cls.getName() + " is " + size + " bytes";
+
+        if (config.getMaxSerializedBytes() > 0 && size > config.getMaxSerializedBytes()) {
+            fail(msg + ", over the budget of " + config.getMaxSerializedBytes() + " bytes");
+        }
+
+        final Map<String, Long> baseline = getBaseline(config.getSerializationBaselineFile());
+        final Long baselineSize = baseline.get(cls.getName());
+
+        if (baselineSize == null) {
+            // Only recorded when there is a baseline file to add the size to.
+            if (config.getSerializationBaselineFile() != null) {
+                sizes.put(cls.getName(), (long) size);
+            }
+        } else if (Math.abs(size - baselineSize) > baselineSize * config.getMaxSerializedSizeChange()) {
+            fail(msg + ", changed from the baseline of " + baselineSize + " bytes");
+        }
+    }
+
+    private synchronized Map<String, Long> getBaseline(File file) {
+        if (file == null) {
+            return Collections.emptyMap();
+        }
+        if (baseline == null || !file.equals(baselineFile)) {
+            baseline = PropertiesFiles.readLongs(file, "serialization baseline");
+            baselineFile = file;
+        }
+        return baseline;
+    }
+
+    /**
+     * Sets every serialized field that a serializable sample value can be created for.
+     *
+     * @return the values set by field.
+     */
+    private static Map<Field, Object> fill(Object bean, Collection<Field> fields, AutoTestConfig config) {
+        final Map<Field, Object> values = new LinkedHashMap<Field, Object>();
+
+        for (Field field : fields) {
+            final int modifiers = field.getModifiers();
+
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || Modifier.isFinal(modifiers) ||
+                    !Serializable.class.isAssignableFrom(field.getDeclaringClass())) {
+                continue;
+            }
+
+            final Object value = config.getSampleValues().createValue(field.getType(),
+                    "Failed to create value: " + field.getType().getName());
+
+            // Interface types get a proxy, which passes the instanceof check but can't be serialized.
+            if (value instanceof Serializable && !Proxy.isProxyClass(value.getClass())) {
+                set(config.getAccessorStrategy().forField(field), bean, value);
+                values.put(field, value);
+            }
+        }
+        return values;
+    }
+
+    private static void checkField(Object copy, Field field, Object expected, String errorMsg, AutoTestConfig config) {
+        final Object actual = get(config.getAccessorStrategy().forField(field), copy);
+        final String msg = errorMsg + " - " + field.getName() + " was not restored";
+
+        assertNotNull(actual, msg);
+        assertEquals(actual.getClass(), expected.getClass(), msg);
+
+        if (expected.getClass().isArray()) {
+            if (!Arrays.deepEquals(new Object[] {actual}, new Object[] {expected})) {
+                fail(msg);
+            }
+        } else if (EqualsHashCodeValidator.overridesEquals(expected.getClass())) {
+            assertEquals(actual, expected, msg);
+        }
+    }
+
+    private static byte[] write(Object bean, String errorMsg) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final ObjectOutputStream out = new ObjectOutputStream(bytes);
+            try {
+                out.writeObject(bean);
+            } finally {
+                out.close();
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            fail(errorMsg + " - failed to write : " + e);
+            return null;
+        }
+    }
+
+    private static Object read(byte[] payload, Class cls, String errorMsg) {
+        try {
+            final ObjectInputStream in = new BeanObjectInputStream(new ByteArrayInputStream(payload), cls.getClassLoader());
+            try {
+                return in.readObject();
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            fail(errorMsg + " - failed to read : " + e);
+        } catch (ClassNotFoundException e) {
+            fail(errorMsg + " - failed to read : " + e);
+        }
+        return null;
+    }
+
+    private static Object get(MemberAccessor accessor, Object bean) {
+        try {
+            return accessor.get(bean);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void set(MemberAccessor accessor, Object bean, Object value) {
+        try {
+            accessor.setValue(bean, value);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Resolves classes through the bean's class loader, which may be an IsolatingClassLoader.
+     */
+    private static class BeanObjectInputStream extends ObjectInputStream {
+        private final ClassLoader classLoader;
+
+        BeanObjectInputStream(InputStream in, ClassLoader classLoader) throws IOException {
+            super(in);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, classLoader);
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+}
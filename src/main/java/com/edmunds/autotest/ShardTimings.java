@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how long each class took to validate, for balancing later runs with Sharding.
+ * <p/>
+ * The timings are written as "className=nanos" lines and merged with the timings already in the file,
+ * so the file collects every class when each shard records its own part. The file is updated as shards
+ * finish, so it must not be the AutoTestConfig.getShardTimingsFile() the shards of the same run read.
+ */
+public class ShardTimings implements ValidationListener {
+    private static final Log log = LogFactory.getLog(ShardTimings.class);
+
+    private final File file;
+    private final Map<String, Long> timings = new ConcurrentHashMap<String, Long>();
+
+    public ShardTimings(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void classValidated(Class cls, long nanos, long allocatedBytes, boolean passed) {
+        timings.put(cls.getName(), nanos);
+    }
+
+    public void validationCompleted(ValidationMetrics metrics) {
+        if (timings.isEmpty()) {
+            return;
+        }
+
+        try {
+            PropertiesFiles.mergeLongs(file, timings, "shard timings");
+        } catch(IOException e) {
+            log.warn("Failed to save shard timings: " + file, e);
+        }
+    }
+
+    /**
+     * Reads a timings file.
+     *
+     * @param file the file.
+     * @return the nanoseconds per class name, empty if the file is missing or unreadable.
+     */
+    public static Map<String, Long> read(File file) {
+        return PropertiesFiles.readLongs(file, "shard timings");
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Splits the beans between shards so that several JVMs (CI nodes or test forks) each validate a part.
+ * <p/>
+ * Every shard must see the same classes and timings, the assignment then only depends on the class names.
+ * Without timings a class belongs to the shard picked by a hash of its name. With timings the classes are
+ * balanced by handing the slowest remaining class to the least loaded shard, classes without a timing are
+ * assumed to take the average time.
+ * <p/>
+ * The timings are read from AutoTestConfig.getShardTimingsFile(), which must stay unchanged while the shards
+ * run. ShardTimings records into a separate file, which is copied over the timings file between runs. A run
+ * that records into the file it reads its timings from shards by hash, as shards starting after another one
+ * finished would otherwise see different timings.
+ */
+public class Sharding {
+    private static final Log log = LogFactory.getLog(Sharding.class);
+
+    public static final String INDEX_PROPERTY = "autotest.shard.index";
+    public static final String COUNT_PROPERTY = "autotest.shard.count";
+
+    private static final Comparator<Class> BY_NAME = new Comparator<Class>() {
+        public int compare(Class o1, Class o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    private final int shardIndex;
+    private final int shardCount;
+    private final Map<String, Long> weights;
+
+    /**
+     * @param shardIndex the shard to select, from 0 to shardCount - 1.
+     * @param shardCount the number of shards.
+     * @param weights    the recorded nanoseconds per class name, empty to shard by hash.
+     * @throws IllegalArgumentException if the count is not positive or the index is out of range.
+     */
+    public Sharding(int shardIndex, int shardCount, Map<String, Long> weights) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Shard index out of range 0.." + (shardCount - 1) + ": " + shardIndex);
+        }
+
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        this.weights = weights;
+    }
+
+    public static Sharding forConfig(AutoTestConfig config) {
+        return forConfig(config, Collections.<ValidationListener>emptyList());
+    }
+
+    /**
+     * @param config    the shard index, count and timings file.
+     * @param listeners the listeners of the run, a ShardTimings recording into the timings file turns the
+     *                  timings off.
+     */
+    public static Sharding forConfig(AutoTestConfig config, Collection<ValidationListener> listeners) {
+        final File file = config.getShardTimingsFile();
+        Map<String, Long> weights = Collections.emptyMap();
+
+        if (file != null && config.getShardCount() > 1) {
+            if (isRecordedInto(file, listeners)) {
+                log.warn("Shard timings are recorded into the file they are read from, sharding by hash: " + file);
+            } else {
+                weights = ShardTimings.read(file);
+            }
+        }
+        return new Sharding(config.getShardIndex(), config.getShardCount(), weights);
+    }
+
+    private static boolean isRecordedInto(File file, Collection<ValidationListener> listeners) {
+        for(ValidationListener listener : listeners) {
+            if (listener instanceof ShardTimings &&
+                    ((ShardTimings) listener).getFile().getAbsoluteFile().equals(file.getAbsoluteFile())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    /**
+     * Selects the classes of this shard.
+     *
+     * @param classes every class, in any order.
+     * @return the classes of this shard sorted by name.
+     */
+    public List<Class> select(Collection<Class> classes) {
+        final List<Class> sorted = new ArrayList<Class>(classes);
+        Collections.sort(sorted, BY_NAME);
+
+        if (!isSharded()) {
+            return sorted;
+        }
+
+        final List<Class> selected = weights.isEmpty() ? selectByHash(sorted) : selectByWeight(sorted);
+        log.info("Shard " + shardIndex + " of " + shardCount + " validates " + selected.size() +
+                " of " + sorted.size() + " classes");
+        return selected;
+    }
+
+    /**
+     * Checks a single class without looking at the others, so this always shards by hash.
+     */
+    public boolean isSelected(Class cls) {
+        return isSelected(cls.getName());
+    }
+
+    public boolean isSelected(String className) {
+        return !isSharded() || hashShard(className, shardCount) == shardIndex;
+    }
+
+    /**
+     * A hash of the name that is the same on every JVM, String.hashCode() is specified so it is spread
+     * further before taking the modulus.
+     */
+    static int hashShard(String className, int shardCount) {
+        int h = className.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+
+        return (h & Integer.MAX_VALUE) % shardCount;
+    }
+
+    private List<Class> selectByHash(List<Class> sorted) {
+        final List<Class> selected = new ArrayList<Class>();
+
+        for(Class cls : sorted) {
+            if (hashShard(cls.getName(), shardCount) == shardIndex) {
+                selected.add(cls);
+            }
+        }
+        return selected;
+    }
+
+    private List<Class> selectByWeight(List<Class> sorted) {
+        long total = 0;
+        int known = 0;
+        for(Class cls : sorted) {
+            final Long weight = weights.get(cls.getName());
+            if (weight != null) {
+                total += weight;
+                known++;
+            }
+        }
+        if (known == 0) {
+            return selectByHash(sorted);
+        }
+        final long average = Math.max(1L, total / known);
+
+        // The sort is stable, equal weights stay in name order.
+        final List<Class> heaviestFirst = new ArrayList<Class>(sorted);
+        Collections.sort(heaviestFirst, new Comparator<Class>() {
+            public int compare(Class o1, Class o2) {
+                final long w1 = weightOf(o1, average);
+                final long w2 = weightOf(o2, average);
+                return w1 > w2 ? -1 : (w1 == w2 ? 0 : 1);
+            }
+        });
+
+        final long[] loads = new long[shardCount];
+        final List<Class> selected = new ArrayList<Class>();
+
+        for(Class cls : heaviestFirst) {
+            int shard = 0;
+            for(int i = 1; i < shardCount; i++) {
+                if (loads[i] < loads[shard]) {
+                    shard = i;
+                }
+            }
+
+            loads[shard] += weightOf(cls, average);
+            if (shard == shardIndex) {
+                selected.add(cls);
+            }
+        }
+
+        Collections.sort(selected, BY_NAME);
+        return selected;
+    }
+
+    private long weightOf(Class cls, long average) {
+        final Long weight = weights.get(cls.getName());
+        return weight != null ? weight : average;
+    }
+}
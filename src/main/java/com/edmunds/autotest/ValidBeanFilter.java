@@ -21,21 +21,44 @@ import java.util.List;
 
 public class ValidBeanFilter {
     public List<Class> filter(Collection<Class> classes, AutoTestConfig config) {
+        return filter(classes, config, ValidationMetrics.disabled());
+    }
+
+    public List<Class> filter(Collection<Class> classes, AutoTestConfig config, ValidationMetrics metrics) {
         List<Class> results = new ArrayList<Class>();
 
         for(Class cls : classes) {
-            if (ClassUtil.isStandardClass(cls)) {
-                if (isCandidate(cls, config)) {
-                    results.add(cls);
-                }
+            if (accept(cls, config, metrics)) {
+                results.add(cls);
             }
         }
         return results;
     }
 
-    private boolean isCandidate(Class cls, AutoTestConfig config) {
-        boolean hasState = !ClassUtil.getAllDeclaredFields(cls, config).isEmpty();
+    public boolean accept(Class cls, AutoTestConfig config) {
+        return accept(cls, config, ValidationMetrics.disabled());
+    }
+
+    /**
+     * Checks a class, the BeanDescriptor it builds is recorded as DESCRIBE and the checks as FILTER.
+     */
+    public boolean accept(Class cls, AutoTestConfig config, ValidationMetrics metrics) {
+        long nanos = metrics.startNanos();
+        long bytes = metrics.startBytes();
+        final BeanDescriptor descriptor = BeanDescriptor.forClass(cls);
+        metrics.record(ValidationPhase.DESCRIBE, nanos, bytes);
+
+        nanos = metrics.startNanos();
+        bytes = metrics.startBytes();
+        final boolean accepted = descriptor.isStandardClass() && isCandidate(descriptor, config);
+        metrics.record(ValidationPhase.FILTER, nanos, bytes);
+
+        return accepted;
+    }
+
+    private boolean isCandidate(BeanDescriptor descriptor, AutoTestConfig config) {
+        boolean hasState = !descriptor.getFields(config).isEmpty();
 
-        return hasState && ClassUtil.hasDefaultConstructor(cls);
+        return hasState && descriptor.hasDefaultConstructor();
     }
 }
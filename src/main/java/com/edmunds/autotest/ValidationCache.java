@@ -0,0 +1,292 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which classes passed validation so unchanged classes can be skipped by later runs.
+ * <p/>
+ * Each class is keyed by a SHA-1 digest of its class file, the class files of its super classes and
+ * the settings of the AutoTestConfig. The cache file is only ever replaced by an atomic rename of a
+ * fully written temporary file, and updates are merged with the current file while holding a lock,
+ * so several JVMs (for example Surefire forks) can share one file.
+ */
+public class ValidationCache {
+    private static final Log log = LogFactory.getLog(ValidationCache.class);
+
+    private static final int MAGIC = 0x41544331;  // "ATC1"
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final byte[] configFingerprint;
+    private final Map<String, byte[]> passed;
+    private final Map<Class, byte[]> pending;
+    private final Map<String, byte[]> recorded;
+
+    private ValidationCache(File file, AutoTestConfig config) {
+        this.file = file;
+        this.configFingerprint = fingerprint(config);
+        this.passed = read(file);
+        this.pending = new ConcurrentHashMap<Class, byte[]>();
+        this.recorded = new ConcurrentHashMap<String, byte[]>();
+    }
+
+    /**
+     * Loads the cache, a missing or unreadable file gives an empty cache.
+     *
+     * @param file   the cache file.
+     * @param config the config the classes will be validated with.
+     * @return the cache.
+     */
+    public static ValidationCache open(File file, AutoTestConfig config) {
+        return new ValidationCache(file, config);
+    }
+
+    /**
+     * Removes the classes that passed validation in an earlier run and have not changed since.
+     *
+     * @param classes the candidate classes.
+     * @return the classes that still need to be validated.
+     */
+    public List<Class> filterUnchanged(Collection<Class> classes) {
+        final List<Class> results = new ArrayList<Class>();
+
+        for(Class cls : classes) {
+            final byte[] digest = digest(cls);
+
+            if (digest == null) {
+                results.add(cls);
+            } else if (!Arrays.equals(digest, passed.get(cls.getName()))) {
+                pending.put(cls, digest);
+                results.add(cls);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Records that a class returned by filterUnchanged() passed validation.
+     *
+     * @param cls the class.
+     */
+    public void recordPassed(Class cls) {
+        final byte[] digest = pending.remove(cls);
+
+        if (digest != null) {
+            recorded.put(cls.getName(), digest);
+        }
+    }
+
+    /**
+     * Forgets a class returned by filterUnchanged() that failed validation.
+     *
+     * @param cls the class.
+     */
+    public void recordFailed(Class cls) {
+        pending.remove(cls);
+    }
+
+    /**
+     * Merges the classes recorded by this run into the cache file.
+     */
+    public void save() {
+        if (recorded.isEmpty()) {
+            return;
+        }
+
+        try {
+            FileLocks.update(file, new FileLocks.Update() {
+                public void run() throws IOException {
+                    final Map<String, byte[]> merged = read(file);
+                    merged.putAll(recorded);
+                    write(merged);
+                }
+            });
+        } catch(IOException e) {
+            log.warn("Failed to save validation cache: " + file, e);
+        }
+    }
+
+    private void write(Map<String, byte[]> entries) throws IOException {
+        final File tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+
+        try {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(entries.size());
+
+                for(Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeByte(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            } finally {
+                out.close();
+            }
+
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (tmp.exists() && !tmp.delete()) {
+                log.debug("Failed to delete: " + tmp);
+            }
+        }
+    }
+
+    private static Map<String, byte[]> read(File file) {
+        final Map<String, byte[]> entries = new HashMap<String, byte[]>();
+
+        if (!file.isFile()) {
+            return entries;
+        }
+
+        try {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Unknown format");
+                }
+
+                final int count = in.readInt();
+                for(int i = 0; i < count; i++) {
+                    final String name = in.readUTF();
+                    final byte[] digest = new byte[in.readUnsignedByte()];
+
+                    in.readFully(digest);
+                    entries.put(name, digest);
+                }
+            } finally {
+                in.close();
+            }
+        } catch(IOException e) {
+            log.warn("Ignoring unreadable validation cache: " + file, e);
+            entries.clear();
+        }
+        return entries;
+    }
+
+    /**
+     * Digests the class files of the class and its super classes along with the config.
+     *
+     * @param cls the class.
+     * @return the digest or null if the class file can't be read.
+     */
+    private byte[] digest(Class cls) {
+        final MessageDigest digest = newDigest();
+        digest.update(configFingerprint);
+
+        Class current = cls;
+        while(current != null) {
+            digest.update(current.getName().getBytes(UTF_8));
+
+            final ClassLoader classLoader = current.getClassLoader();
+            if (classLoader != null) {
+                final InputStream in = classLoader.getResourceAsStream(current.getName().replace('.', '/') + ".class");
+
+                if (in == null) {
+                    return null;
+                }
+
+                try {
+                    update(digest, in);
+                } catch(IOException e) {
+                    log.debug("Failed to read class file: " + current.getName(), e);
+                    return null;
+                }
+            }
+            current = current.getSuperclass();
+        }
+        return digest.digest();
+    }
+
+    private static void update(MessageDigest digest, InputStream in) throws IOException {
+        try {
+            final byte[] buffer = new byte[4096];
+
+            int read;
+            while((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static byte[] fingerprint(AutoTestConfig config) {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(config.getRootPackages())
+                .append('|').append(config.isFailOnBadAssignment())
+                .append('|').append(config.isFailOnFieldOverride())
+                .append('|').append(config.isValidateMethodsOutsideRootPackage())
+                .append('|').append(new TreeSet<String>(config.getFieldOverrideExceptions()))
+                .append('|').append(config.getAccessorStrategy().getClass().getName())
+                .append('|').append(config.getSampleValues())
+                .append('|').append(config.isValidateEqualsHashCode())
+                .append('|').append(config.getMaxHashCollisionRate())
+                .append('|').append(config.getMinHashBitDispersion())
+                .append('|').append(config.getAccessorBudgetIterations())
+                .append('|').append(config.getMaxAccessorNanosPerCall())
+                .append('|').append(config.getMaxAccessorBytesPerCall())
+                .append('|').append(config.isFailOnAccessorBudget())
+                .append('|').append(config.isFailOnAccessorTimeBudget())
+                .append('|').append(config.isValidateSerialization())
+                .append('|').append(config.getMaxSerializedBytes())
+                .append('|').append(config.getSerializationBaselineFile())
+                .append('|').append(config.getMaxSerializedSizeChange())
+                .append('|').append(config.isMemoizeInheritedProperties());
+
+        for(BeanValidator validator : config.getValidators()) {
+            sb.append('|').append(validator.getClass().getName());
+        }
+
+        return newDigest().digest(sb.toString().getBytes(UTF_8));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+}
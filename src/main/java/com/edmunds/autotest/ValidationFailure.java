@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Records why a single class failed validation.
+ */
+public class ValidationFailure {
+    private static final Comparator<ValidationFailure> CLASS_NAME_ORDER = new Comparator<ValidationFailure>() {
+        public int compare(ValidationFailure o1, ValidationFailure o2) {
+            return o1.getBeanClass().getName().compareTo(o2.getBeanClass().getName());
+        }
+    };
+
+    private final Class beanClass;
+    private final Throwable cause;
+
+    public ValidationFailure(Class beanClass, Throwable cause) {
+        this.beanClass = beanClass;
+        this.cause = cause;
+    }
+
+    public Class getBeanClass() {
+        return beanClass;
+    }
+
+    public Throwable getCause() {
+        return cause;
+    }
+
+    /**
+     * Combines a number of failures into a single AssertionError, ordered by class name so the
+     * message is stable regardless of the order the classes were validated in.
+     *
+     * @param failures   the failures to report, must not be empty.
+     * @param classCount the total number of classes that were validated.
+     * @return an AssertionError describing every failure.
+     */
+    public static AssertionError aggregate(Collection<ValidationFailure> failures, int classCount) {
+        final List<ValidationFailure> sorted = new ArrayList<ValidationFailure>(failures);
+        Collections.sort(sorted, CLASS_NAME_ORDER);
+
+        final StringBuilder msg = new StringBuilder();
+        msg.append(sorted.size()).append(" of ").append(classCount).append(" classes failed validation:");
+
+        for (ValidationFailure failure : sorted) {
+            msg.append("\n  ").append(failure.getBeanClass().getName())
+                    .append(" : ").append(failure.getCause().getMessage());
+        }
+
+        return new AssertionError(msg.toString(), sorted.get(0).getCause());
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+/**
+ * Receives metrics from AutoTestGetterSetter.validateAll().
+ * <p/>
+ * When validating in parallel classValidated() is called concurrently from the worker threads.
+ */
+public interface ValidationListener {
+
+    /**
+     * Called after each class has been validated.
+     *
+     * @param cls            the class.
+     * @param nanos          the time taken to validate the class.
+     * @param allocatedBytes the bytes allocated while validating the class, zero if not supported.
+     * @param passed         false if the class failed validation.
+     */
+    void classValidated(Class cls, long nanos, long allocatedBytes, boolean passed);
+
+    /**
+     * Called once validateAll() has finished, whether or not it failed.
+     *
+     * @param metrics the totals for the run.
+     */
+    void validationCompleted(ValidationMetrics metrics);
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe totals of the time spent and bytes allocated in each phase of a validation run.
+ * <p/>
+ * Allocation is measured per thread through com.sun.management.ThreadMXBean, when the JVM doesn't
+ * support this the allocated byte counts are always zero.
+ */
+public class ValidationMetrics {
+    private static final Log log = LogFactory.getLog(ValidationMetrics.class);
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+    private static final ValidationMetrics DISABLED = new ValidationMetrics(false);
+
+    private final boolean enabled;
+    private final AtomicLongArray nanos;
+    private final AtomicLongArray allocatedBytes;
+    private final AtomicInteger scannedCount;
+    private final AtomicInteger filteredCount;
+    private final AtomicInteger validatedCount;
+    private final AtomicInteger timedOutCount;
+
+    public ValidationMetrics() {
+        this(true);
+    }
+
+    private ValidationMetrics(boolean enabled) {
+        final int phases = ValidationPhase.values().length;
+
+        this.enabled = enabled;
+        this.nanos = new AtomicLongArray(phases);
+        this.allocatedBytes = new AtomicLongArray(phases);
+        this.scannedCount = new AtomicInteger();
+        this.filteredCount = new AtomicInteger();
+        this.validatedCount = new AtomicInteger();
+        this.timedOutCount = new AtomicInteger();
+    }
+
+    /**
+     * @return a shared instance that ignores everything recorded.
+     */
+    public static ValidationMetrics disabled() {
+        return DISABLED;
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean() {
+        try {
+            final Object bean = ManagementFactory.getThreadMXBean();
+
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+
+                if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                    return allocationBean;
+                }
+            }
+        } catch(LinkageError e) {
+            log.debug("Thread allocation counters are not available", e);
+        }
+        return null;
+    }
+
+    public static boolean isAllocationSupported() {
+        return ALLOCATION_BEAN != null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the start time for a measurement.
+     */
+    public long startNanos() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, the start of a measurement.
+     */
+    public long startBytes() {
+        return enabled ? threadAllocatedBytes() : 0L;
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, 0 when allocation isn't supported.
+     */
+    static long threadAllocatedBytes() {
+        return ALLOCATION_BEAN != null ? ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0L;
+    }
+
+    public long elapsedNanos(long startNanos) {
+        return enabled ? System.nanoTime() - startNanos : 0L;
+    }
+
+    public long allocatedBytesSince(long startBytes) {
+        return enabled && ALLOCATION_BEAN != null ? startBytes() - startBytes : 0L;
+    }
+
+    /**
+     * Adds the time and allocation since the start of a measurement to a phase.
+     *
+     * @param phase      the phase.
+     * @param startNanos the value returned by startNanos().
+     * @param startBytes the value returned by startBytes() on this thread.
+     */
+    public void record(ValidationPhase phase, long startNanos, long startBytes) {
+        if (enabled) {
+            nanos.addAndGet(phase.ordinal(), elapsedNanos(startNanos));
+            allocatedBytes.addAndGet(phase.ordinal(), allocatedBytesSince(startBytes));
+        }
+    }
+
+    /**
+     * Adds a measurement that was taken separately to a phase.
+     *
+     * @param phase          the phase.
+     * @param nanos          the elapsed time.
+     * @param allocatedBytes the bytes allocated.
+     */
+    public void add(ValidationPhase phase, long nanos, long allocatedBytes) {
+        if (enabled) {
+            this.nanos.addAndGet(phase.ordinal(), nanos);
+            this.allocatedBytes.addAndGet(phase.ordinal(), allocatedBytes);
+        }
+    }
+
+    public void addScanned(int count) {
+        if (enabled) {
+            scannedCount.addAndGet(count);
+        }
+    }
+
+    public void addFiltered(int count) {
+        if (enabled) {
+            filteredCount.addAndGet(count);
+        }
+    }
+
+    public void addValidated(int count) {
+        if (enabled) {
+            validatedCount.addAndGet(count);
+        }
+    }
+
+    public void addTimedOut(int count) {
+        if (enabled) {
+            timedOutCount.addAndGet(count);
+        }
+    }
+
+    public long getNanos(ValidationPhase phase) {
+        return nanos.get(phase.ordinal());
+    }
+
+    public long getAllocatedBytes(ValidationPhase phase) {
+        return allocatedBytes.get(phase.ordinal());
+    }
+
+    /**
+     * @return the number of class files found under the root package.
+     */
+    public int getScannedCount() {
+        return scannedCount.get();
+    }
+
+    /**
+     * @return the number of classes accepted by the ValidBeanFilter.
+     */
+    public int getFilteredCount() {
+        return filteredCount.get();
+    }
+
+    /**
+     * @return the number of classes validated, which excludes classes skipped by the validation cache.
+     */
+    public int getValidatedCount() {
+        return validatedCount.get();
+    }
+
+    /**
+     * @return the number of classes that exceeded AutoTestConfig.getClassTimeoutMillis().
+     */
+    public int getTimedOutCount() {
+        return timedOutCount.get();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+/**
+ * The phases of validateAll() that are timed by ValidationMetrics.
+ */
+public enum ValidationPhase {
+    /**
+     * Finding the class files under the root package, including reading class file headers.
+     */
+    SCAN_RESOURCES,
+
+    /**
+     * Loading the classes through the class loader.
+     */
+    LOAD_CLASSES,
+
+    /**
+     * Running the ValidBeanFilter.
+     */
+    FILTER,
+
+    /**
+     * Reflecting over the fields and methods of each bean. Most of it happens when the ValidBeanFilter
+     * builds the BeanDescriptor of every loaded class.
+     */
+    DESCRIBE,
+
+    /**
+     * Creating each bean instance.
+     */
+    INSTANTIATE,
+
+    /**
+     * Creating property values and calling the getters and setters.
+     */
+    VALIDATE_PROPERTIES,
+
+    /**
+     * Measuring the getters and setters, when AutoTestConfig.getAccessorBudgetIterations() is positive.
+     * This time is not counted in VALIDATE_PROPERTIES.
+     */
+    MEASURE_ACCESSORS,
+
+    /**
+     * Checking the equals/hashCode contract, when AutoTestConfig.isValidateEqualsHashCode() is set.
+     */
+    VALIDATE_EQUALS_HASH_CODE,
+
+    /**
+     * Round tripping Serializable beans, when AutoTestConfig.isValidateSerialization() is set.
+     */
+    VALIDATE_SERIALIZATION,
+
+    /**
+     * Running BeanValidators that don't belong to one of the phases above.
+     */
+    VALIDATE_CUSTOM
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Logs the slowest classes of a validation run and writes a JSON summary of the run.
+ */
+public class ValidationReport implements ValidationListener {
+    private static final Log log = LogFactory.getLog(ValidationReport.class);
+
+    private static final Comparator<ClassTiming> FASTEST_FIRST = new Comparator<ClassTiming>() {
+        public int compare(ClassTiming o1, ClassTiming o2) {
+            return o1.nanos < o2.nanos ? -1 : (o1.nanos == o2.nanos ? 0 : 1);
+        }
+    };
+
+    private final File summaryFile;
+    private final int slowestCount;
+    private final PriorityQueue<ClassTiming> slowest;
+
+    /**
+     * @param summaryFile  where the JSON summary is written, null to only log the slowest classes.
+     * @param slowestCount the number of slowest classes to report.
+     */
+    public ValidationReport(File summaryFile, int slowestCount) {
+        this.summaryFile = summaryFile;
+        this.slowestCount = slowestCount;
+        this.slowest = new PriorityQueue<ClassTiming>(Math.max(1, slowestCount + 1), FASTEST_FIRST);
+    }
+
+    public synchronized void classValidated(Class cls, long nanos, long allocatedBytes, boolean passed) {
+        slowest.add(new ClassTiming(cls.getName(), nanos, allocatedBytes, passed));
+
+        if (slowest.size() > slowestCount) {
+            slowest.poll();
+        }
+    }
+
+    public void validationCompleted(ValidationMetrics metrics) {
+        final List<ClassTiming> timings = getSlowest();
+
+        for (ClassTiming timing : timings) {
+            log.info("Slow bean: " + timing.className + " took " + timing.nanos / 1000 + "us and allocated " +
+                    timing.allocatedBytes + " bytes");
+        }
+
+        if (summaryFile != null) {
+            try {
+                writeSummary(metrics, timings);
+            } catch (IOException e) {
+                log.warn("Failed to write validation summary: " + summaryFile, e);
+            }
+        }
+    }
+
+    /**
+     * @return the slowest classes seen so far, slowest first.
+     */
+    public synchronized List<ClassTiming> getSlowest() {
+        final List<ClassTiming> timings = new ArrayList<ClassTiming>(slowest);
+
+        Collections.sort(timings, Collections.reverseOrder(FASTEST_FIRST));
+        return timings;
+    }
+
+    private void writeSummary(ValidationMetrics metrics, List<ClassTiming> timings) throws IOException {
+        final File dir = summaryFile.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Failed to create directory: " + dir);
+        }
+
+        final Writer out = new OutputStreamWriter(new FileOutputStream(summaryFile), "UTF-8");
+        try {
+            out.write(toJson(metrics, timings));
+        } finally {
+            out.close();
+        }
+    }
+
+    static String toJson(ValidationMetrics metrics, List<ClassTiming> timings) {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append("{\n");
+        sb.append("  \"scanned\": ").append(metrics.getScannedCount()).append(",\n");
+        sb.append("  \"filtered\": ").append(metrics.getFilteredCount()).append(",\n");
+        sb.append("  \"validated\": ").append(metrics.getValidatedCount()).append(",\n");
+        sb.append("  \"timedOut\": ").append(metrics.getTimedOutCount()).append(",\n");
+        sb.append("  \"allocationSupported\": ").append(ValidationMetrics.isAllocationSupported()).append(",\n");
+
+        sb.append("  \"phases\": {");
+        final ValidationPhase[] phases = ValidationPhase.values();
+        for (int i = 0; i < phases.length; i++) {
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    \"").append(phases[i].name()).append("\": {\"nanos\": ")
+                    .append(metrics.getNanos(phases[i])).append(", \"allocatedBytes\": ")
+                    .append(metrics.getAllocatedBytes(phases[i])).append('}');
+        }
+        sb.append("\n  },\n");
+
+        sb.append("  \"slowest\": [");
+        for (int i = 0; i < timings.size(); i++) {
+            final ClassTiming timing = timings.get(i);
+
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"class\": \"").append(StringEscapeUtils.escapeJavaScript(timing.className))
+                    .append("\", \"nanos\": ").append(timing.nanos)
+                    .append(", \"allocatedBytes\": ").append(timing.allocatedBytes)
+                    .append(", \"passed\": ").append(timing.passed).append('}');
+        }
+        sb.append(timings.isEmpty() ? "]\n" : "\n  ]\n");
+        sb.append("}\n");
+
+        return sb.toString();
+    }
+
+    public static class ClassTiming {
+        private final String className;
+        private final long nanos;
+        private final long allocatedBytes;
+        private final boolean passed;
+
+        ClassTiming(String className, long nanos, long allocatedBytes, boolean passed) {
+            this.className = className;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+            this.passed = passed;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+/**
+ * The outcome of validating a single class.
+ */
+public class ValidationResult {
+    private final Class beanClass;
+    private final Throwable failure;
+
+    public ValidationResult(Class beanClass, Throwable failure) {
+        this.beanClass = beanClass;
+        this.failure = failure;
+    }
+
+    public Class getBeanClass() {
+        return beanClass;
+    }
+
+    /**
+     * @return the AssertionError or exception the class failed with, null if it passed.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public boolean isPassed() {
+        return failure == null;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams validation results while the classpath is still being scanned.
+ * <p/>
+ * The classpath roots are scanned on their own threads (see ClassResolver.streamClasses()), while one
+ * thread loads and filters the classes as they are found into a bounded queue of candidates, drained by
+ * config.getParallelism() validator threads into a bounded queue of results read by this iterator.
+ * A full queue blocks the stage feeding it, so at most a fixed number of classes are in flight no
+ * matter how large the package is. Results are returned in the order they complete.
+ * <p/>
+ * The stream must be read to the end or closed, closing stops the background threads.
+ * <p/>
+ * Classes are sharded one at a time, so the stream always shards by name hash and ignores shard timings.
+ */
+public class ValidationStream implements Iterator<ValidationResult>, Closeable {
+    private static final Object END = new Object();
+
+    private final AutoTestGetterSetter validator;
+    private final ClassResolver classResolver;
+    private final AutoTestConfig config;
+    private final ValidationMetrics metrics;
+    private final ValidationCache cache;
+    private final ValidBeanFilter validBeanFilter;
+    private final Sharding sharding;
+    private final Set<String> seen;
+    private final BlockingQueue<Object> candidates;
+    private final BlockingQueue<Object> results;
+    private final AtomicInteger runningValidators;
+    private final ExecutorService executor;
+
+    private volatile Throwable scanFailure;
+    private Object next;
+    private boolean finished;
+
+    ValidationStream(AutoTestGetterSetter validator, ClassResolver classResolver, AutoTestConfig config,
+                     ValidationMetrics metrics, ValidationCache cache, int capacity) {
+        final int validators = config.getParallelism();
+
+        this.validator = validator;
+        this.classResolver = classResolver;
+        this.config = config;
+        this.metrics = metrics;
+        this.cache = cache;
+        this.validBeanFilter = new ValidBeanFilter();
+        this.sharding = new Sharding(config.getShardIndex(), config.getShardCount(), Collections.<String, Long>emptyMap());
+        this.seen = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        this.candidates = new ArrayBlockingQueue<Object>(capacity);
+        this.results = new ArrayBlockingQueue<Object>(capacity);
+        this.runningValidators = new AtomicInteger(validators);
+        this.executor = Executors.newFixedThreadPool(validators + 1, new DaemonThreadFactory("autotest-stream-"));
+
+        executor.execute(new Scanner());
+        for (int i = 0; i < validators; i++) {
+            executor.execute(new Validator());
+        }
+    }
+
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            next = take(results);
+
+            if (next == END) {
+                next = null;
+                finish();
+            }
+        }
+        return next != null;
+    }
+
+    public ValidationResult next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final ValidationResult result = (ValidationResult) next;
+        next = null;
+
+        if (result.isPassed() && cache != null) {
+            cache.recordPassed(result.getBeanClass());
+        }
+        return result;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stops the background threads, results that have not been read are discarded.
+     */
+    public void close() {
+        next = null;
+
+        if (!finished) {
+            finished = true;
+            executor.shutdownNow();
+            validator.completed(metrics, cache);
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        executor.shutdown();
+        validator.completed(metrics, cache);
+
+        if (scanFailure != null) {
+            if (scanFailure instanceof RuntimeException) {
+                throw (RuntimeException) scanFailure;
+            }
+            throw new RuntimeException("Failed to resolve classes", scanFailure);
+        }
+    }
+
+    private static Object take(BlockingQueue<Object> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for validation results");
+        }
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object value) {
+        try {
+            queue.put(value);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Validation stream closed");
+        }
+    }
+
+    /**
+     * Filters classes as the resolver loads them and hands the candidates to the validators.
+     */
+    private class Scanner implements ClassSink, Runnable {
+
+        public void run() {
+            try {
+                classResolver.streamClasses(this, metrics);
+            } catch (CancellationException e) {
+                return;
+            } catch (Throwable t) {
+                scanFailure = t;
+            }
+
+            for (int i = 0; i < config.getParallelism(); i++) {
+                put(candidates, END);
+            }
+        }
+
+        public void accept(Class cls) {
+            // A class can be found in more than one classpath root.
+            if (!seen.add(cls.getName())) {
+                return;
+            }
+
+            boolean candidate = validBeanFilter.accept(cls, config, metrics);
+
+            if (candidate) {
+                metrics.addFiltered(1);
+                candidate = sharding.isSelected(cls) &&
+                        (cache == null || !cache.filterUnchanged(Collections.singletonList(cls)).isEmpty());
+            }
+
+            if (candidate) {
+                put(candidates, cls);
+            }
+        }
+    }
+
+    private class Validator implements Runnable {
+
+        public void run() {
+            try {
+                Object cls;
+
+                while ((cls = take(candidates)) != END) {
+                    put(results, validate((Class) cls));
+                }
+
+                if (runningValidators.decrementAndGet() == 0) {
+                    put(results, END);
+                }
+            } catch (CancellationException e) {
+                // The stream was closed.
+            }
+        }
+
+        private ValidationResult validate(Class cls) {
+            try {
+                return validator.validateResult(cls, metrics);
+            } catch (Error e) {
+                // Errors such as NoClassDefFoundError must not stop the validator thread.
+                return new ValidationResult(cls, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join task that validates a range of classes, recording failures rather than propagating them.
+ */
+class ValidationTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private static final int THRESHOLD = 4;
+
+    private final AutoTestGetterSetter validator;
+    private final List<Class> classes;
+    private final int start;
+    private final int end;
+    private final Queue<ValidationFailure> failures;
+    private final ValidationMetrics metrics;
+
+    ValidationTask(AutoTestGetterSetter validator, List<Class> classes, int start, int end,
+                   Queue<ValidationFailure> failures, ValidationMetrics metrics) {
+        this.validator = validator;
+        this.classes = classes;
+        this.start = start;
+        this.end = end;
+        this.failures = failures;
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void compute() {
+        if (end - start <= THRESHOLD) {
+            for (int i = start; i < end; i++) {
+                validator.validate(classes.get(i), failures, metrics);
+            }
+        } else {
+            final int middle = (start + end) >>> 1;
+
+            invokeAll(
+                    new ValidationTask(validator, classes, start, middle, failures, metrics),
+                    new ValidationTask(validator, classes, middle, end, failures, metrics));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Finds the BeanValidators listed in META-INF/services/com.edmunds.autotest.BeanValidator.
+ */
+final class ValidatorLoader {
+    private static final Log log = LogFactory.getLog(ValidatorLoader.class);
+
+    private static final List<String> BUILT_IN = Arrays.asList(
+            GetterSetterValidator.class.getName(),
+            EqualsHashCodeValidator.class.getName(),
+            SerializationValidator.class.getName());
+
+    private static final Comparator<BeanValidator> BUILT_IN_FIRST = new Comparator<BeanValidator>() {
+        public int compare(BeanValidator o1, BeanValidator o2) {
+            return rank(o1) - rank(o2);
+        }
+
+        private int rank(BeanValidator validator) {
+            final int index = BUILT_IN.indexOf(validator.getClass().getName());
+            return index >= 0 ? index : BUILT_IN.size();
+        }
+    };
+
+    private ValidatorLoader() {
+    }
+
+    /**
+     * Loads the validators visible to this library or to the class loader of the beans. The validators
+     * of this library come first, starting with the GetterSetterValidator, the others follow in the
+     * order they were found.
+     *
+     * @param classLoader the class loader of the beans.
+     * @return one instance of each validator class.
+     */
+    static List<BeanValidator> load(ClassLoader classLoader) {
+        final List<BeanValidator> validators = new ArrayList<BeanValidator>();
+        final Set<String> names = new HashSet<String>();
+
+        load(BeanValidator.class.getClassLoader(), validators, names);
+        if (classLoader != null) {
+            load(classLoader, validators, names);
+        }
+
+        Collections.sort(validators, BUILT_IN_FIRST);
+        return validators;
+    }
+
+    private static void load(ClassLoader classLoader, List<BeanValidator> validators, Set<String> names) {
+        final Iterator<BeanValidator> it = ServiceLoader.load(BeanValidator.class, classLoader).iterator();
+
+        while (true) {
+            try {
+                if (!it.hasNext()) {
+                    return;
+                }
+
+                final BeanValidator validator = it.next();
+                if (names.add(validator.getClass().getName())) {
+                    validators.add(validator);
+                }
+            } catch (ServiceConfigurationError e) {
+                log.warn("Ignoring bean validator", e);
+            }
+        }
+    }
+}
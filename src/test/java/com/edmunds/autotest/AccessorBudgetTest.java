@@ -0,0 +1,151 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.budgetsample.CopyingBean;
+import com.edmunds.autotest.budgetsample.TrivialBean;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class AccessorBudgetTest {
+
+    @Test
+    public void testTrivialAccessorsDontAllocate() {
+        final Map<String, AccessorBudget.Cost> costs = measure(TrivialBean.class);
+
+        assertEquals(costs.size(), 6);
+        for (AccessorBudget.Cost cost : costs.values()) {
+            assertTrue(cost.getBytesPerCall() < 1D, cost.toString());
+        }
+    }
+
+    @Test
+    public void testCopyingGetterAllocates() {
+        if (!ValidationMetrics.isAllocationSupported()) {
+            return;
+        }
+
+        final Map<String, AccessorBudget.Cost> costs = measure(CopyingBean.class);
+
+        assertTrue(costs.get("getLabel").getBytesPerCall() >= 16D, costs.toString());
+        assertTrue(costs.get("setLabel").getBytesPerCall() < 1D, costs.toString());
+    }
+
+    @Test
+    public void testValidateAll() {
+        final AutoTestGetterSetter budgetSamples = new AutoTestGetterSetter(
+                getClass().getClassLoader(),
+                "com.edmunds.autotest.budgetsample");
+
+        budgetSamples.setAccessorBudgetIterations(20000);
+        budgetSamples.setMaxAccessorNanosPerCall(Double.MAX_VALUE);
+
+        final MetricsListener listener = new MetricsListener();
+        budgetSamples.addValidationListener(listener);
+
+        budgetSamples.setFailOnAccessorBudget(false);
+        budgetSamples.validateAll();
+        assertTrue(listener.metrics.getNanos(ValidationPhase.MEASURE_ACCESSORS) > 0);
+
+        if (ValidationMetrics.isAllocationSupported()) {
+            budgetSamples.setFailOnAccessorBudget(true);
+            try {
+                budgetSamples.validateAll();
+                fail("Expected CopyingBean.getLabel to be over budget");
+            } catch (AssertionError e) {
+                assertTrue(e.getMessage().contains("CopyingBean"), e.getMessage());
+                assertTrue(e.getMessage().contains("getLabel"), e.getMessage());
+                assertTrue(!e.getMessage().contains("TrivialBean"), e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testTimeBudgetOnlyWarnsByDefault() {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.budgetsample");
+        config.setAccessorBudgetIterations(100);
+        config.setMaxAccessorNanosPerCall(0D);
+        config.setMaxAccessorBytesPerCall(Double.MAX_VALUE);
+
+        final AccessorBudget budget = measure(TrivialBean.class, config);
+        budget.check();
+
+        config.setFailOnAccessorTimeBudget(true);
+        try {
+            budget.check();
+            fail("Expected the accessors to be over the time budget");
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage().contains("TrivialBean"), e.getMessage());
+        }
+    }
+
+    private static Map<String, AccessorBudget.Cost> measure(Class cls) {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.budgetsample");
+        config.setAccessorBudgetIterations(20000);
+
+        final Map<String, AccessorBudget.Cost> costs = new HashMap<String, AccessorBudget.Cost>();
+        for (AccessorBudget.Cost cost : measure(cls, config).getCosts()) {
+            costs.put(cost.getName(), cost);
+        }
+        return costs;
+    }
+
+    private static AccessorBudget measure(Class cls, AutoTestConfig config) {
+        final AccessorStrategy accessors = config.getAccessorStrategy();
+        final AccessorBudget budget = new AccessorBudget(cls, config);
+        final BeanDescriptor descriptor = BeanDescriptor.forClass(cls);
+        final Object bean = ClassUtil.instanceClass(cls, cls.getName());
+
+        try {
+            for (Field field : descriptor.getFields(config)) {
+                final String name = field.getName().toLowerCase();
+                final Method getter = descriptor.getGetter(name, config);
+                final Method setter = descriptor.getSetter(name, config);
+                final Object value = config.getSampleValues().createValue(field.getType(), name);
+
+                accessors.forMethod(setter).set(bean, value);
+                budget.measureGetter(bean, accessors.forMethod(getter), getter.getName());
+                budget.measureSetter(bean, accessors.forMethod(setter), value, setter.getName());
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+
+        return budget;
+    }
+
+    private static class MetricsListener implements ValidationListener {
+        private ValidationMetrics metrics;
+
+        public void classValidated(Class cls, long nanos, long allocatedBytes, boolean passed) {
+        }
+
+        public void validationCompleted(ValidationMetrics metrics) {
+            this.metrics = metrics;
+        }
+    }
+}
@@ -20,11 +20,17 @@ import com.edmunds.autotest.badsample.BadIntGetter;
 import com.edmunds.autotest.badsample.BadIntSetter;
 import com.edmunds.autotest.badsample.BadSetterAssignment;
 import com.edmunds.autotest.sample.NoConstructor;
+import com.edmunds.autotest.slowsample.HangingBean;
+import com.edmunds.autotest.slowsample.QuickBean;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 public class AutoTestGetterSetterTest {
@@ -48,6 +54,63 @@ public class AutoTestGetterSetterTest {
         autoTestGetterSetter.validateAll();
     }
 
+    @Test
+    public void testValidateAllParallel() {
+        autoTestGetterSetter.setParallelism(4);
+        autoTestGetterSetter.validateAll();
+    }
+
+    @Test
+    public void testValidateAllIsolated() {
+        autoTestGetterSetter.setIsolationChunkSize(3);
+        autoTestGetterSetter.validateAll();
+
+        autoTestGetterSetter.setParallelism(4);
+        autoTestGetterSetter.validateAll();
+    }
+
+    @Test
+    public void testValidateAllIsolatedAggregatesFailures() {
+        final AutoTestGetterSetter badSamples = new AutoTestGetterSetter(
+                getClass().getClassLoader(),
+                "com.edmunds.autotest.badsample");
+        badSamples.setIsolationChunkSize(1);
+
+        try {
+            badSamples.validateAll();
+            fail("Bad case should have thrown an exception");
+        } catch(AssertionError e) {
+            assertTrue(e.getMessage().startsWith("4 of 4 classes failed validation:"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testValidateAllParallelAggregatesFailures() {
+        boolean exceptionThrown = true;
+
+        final AutoTestGetterSetter badSamples = new AutoTestGetterSetter(
+                getClass().getClassLoader(),
+                "com.edmunds.autotest.badsample");
+        badSamples.setParallelism(4);
+
+        try {
+            badSamples.validateAll();
+            exceptionThrown = false;
+        } catch(AssertionError e) {
+            final String msg = e.getMessage();
+
+            assertTrue(msg.startsWith("4 of 4 classes failed validation:"), msg);
+            assertTrue(msg.contains(BadGetterAssignment.class.getName()), msg);
+            assertTrue(msg.contains(BadSetterAssignment.class.getName()), msg);
+            assertTrue(msg.contains(BadIntGetter.class.getName()), msg);
+            assertTrue(msg.contains(BadIntSetter.class.getName()), msg);
+        }
+
+        if (!exceptionThrown) {
+            fail("Bad case should have thrown an exception");
+        }
+    }
+
     @Test
     public void testValidateClass() {
         autoTestGetterSetter.validate(NoConstructor.class);
@@ -124,4 +187,53 @@ public class AutoTestGetterSetterTest {
             fail("Bad case should have thrown an exception");
         }
     }
+
+    @Test
+    public void testClassTimeout() {
+        assertTimesOut(1);
+    }
+
+    @Test
+    public void testClassTimeoutParallel() {
+        assertTimesOut(2);
+    }
+
+    private void assertTimesOut(int parallelism) {
+        final AutoTestGetterSetter slowSamples = new AutoTestGetterSetter(
+                getClass().getClassLoader(),
+                "com.edmunds.autotest.slowsample");
+        final Map<Class, Boolean> results = new ConcurrentHashMap<Class, Boolean>();
+        final int[] timedOut = new int[1];
+
+        slowSamples.setParallelism(parallelism);
+        slowSamples.setClassTimeoutMillis(200);
+        slowSamples.addValidationListener(new ValidationListener() {
+            public void classValidated(Class cls, long nanos, long allocatedBytes, boolean passed) {
+                results.put(cls, passed);
+            }
+
+            public void validationCompleted(ValidationMetrics metrics) {
+                timedOut[0] = metrics.getTimedOutCount();
+            }
+        });
+
+        try {
+            slowSamples.validateAll();
+            fail("The hanging bean should time out");
+        } catch(AssertionError e) {
+            assertTrue(e.getMessage().startsWith("1 of 2 classes failed validation:"), e.getMessage());
+            assertTrue(e.getCause() instanceof ClassTimeoutException);
+
+            // The stack shows where the class was stuck.
+            boolean inGetter = false;
+            for(StackTraceElement element : e.getCause().getStackTrace()) {
+                inGetter |= element.getClassName().equals(HangingBean.class.getName());
+            }
+            assertTrue(inGetter);
+        }
+
+        assertEquals(results.get(HangingBean.class), Boolean.FALSE);
+        assertEquals(results.get(QuickBean.class), Boolean.TRUE);
+        assertEquals(timedOut[0], 1);
+    }
 }
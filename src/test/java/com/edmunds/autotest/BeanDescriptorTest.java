@@ -0,0 +1,87 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.sample.AbstractSimpleBean;
+import com.edmunds.autotest.sample.ParameterizedConstructor;
+import com.edmunds.autotest.sample.SimpleExtension;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.AbstractList;
+import java.util.Collection;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class BeanDescriptorTest {
+
+    @Test
+    public void testCached() {
+        assertSame(BeanDescriptor.forClass(SimpleExtension.class), BeanDescriptor.forClass(SimpleExtension.class));
+    }
+
+    @Test
+    public void testDescribe() {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.sample");
+        final BeanDescriptor descriptor = BeanDescriptor.forClass(SimpleExtension.class);
+
+        assertTrue(descriptor.isStandardClass());
+        assertTrue(descriptor.hasDefaultConstructor());
+        assertFalse(descriptor.hasMutableStaticState());
+
+        final Collection<Field> fields = descriptor.getFields(config);
+        assertEquals(fields.size(), 1);
+        assertEquals(fields.iterator().next().getName(), "stringProp");
+
+        final Method getter = descriptor.getGetter("stringprop", config);
+        assertNotNull(getter);
+        assertEquals(getter.getDeclaringClass(), AbstractSimpleBean.class);
+        assertNotNull(descriptor.getSetter("stringprop", config));
+        assertNull(descriptor.getSetter("missing", config));
+    }
+
+    @Test
+    public void testMethodsOutsideRootPackage() {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.badsample");
+        final BeanDescriptor descriptor = BeanDescriptor.forClass(SimpleExtension.class);
+
+        assertNull(descriptor.getGetter("stringprop", config));
+
+        config.setValidateMethodsOutsideRootPackage(true);
+        assertNotNull(descriptor.getGetter("stringprop", config));
+    }
+
+    @Test
+    public void testNoDefaultConstructor() {
+        final BeanDescriptor descriptor = BeanDescriptor.forClass(ParameterizedConstructor.class);
+
+        assertFalse(descriptor.hasDefaultConstructor());
+        assertNull(descriptor.getDefaultConstructor());
+    }
+
+    @Test
+    public void testJdkClasses() {
+        assertTrue(BeanDescriptor.forClass(AbstractList.class).hasDefaultConstructor());
+        assertTrue(ClassUtil.hasDefaultConstructor(AbstractList.class));
+        assertTrue(BeanDescriptor.forClass(Runtime.class).hasDefaultConstructor());
+    }
+}
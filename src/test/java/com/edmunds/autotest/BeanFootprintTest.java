@@ -0,0 +1,89 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class BeanFootprintTest {
+
+    static class Padded {
+        private byte flag;
+        private long total;
+    }
+
+    static class Boxed {
+        private Integer count;
+        private int other;
+    }
+
+    static class Parent {
+        private int value;
+    }
+
+    static class Child extends Parent {
+        private int value;
+    }
+
+    @Test
+    public void testSmallFieldFillsHeaderGap() {
+        final BeanFootprint footprint = BeanFootprint.of(Padded.class, BeanFootprint.MemoryModel.COMPRESSED);
+
+        assertEquals(footprint.getShallowSize(), 24);
+        assertEquals(footprint.getFieldBytes(), 9);
+        assertEquals(footprint.getPaddingBytes(), 3);
+        assertEquals(footprint.getWastedBytes(), 3);
+    }
+
+    @Test
+    public void testUncompressedLayout() {
+        final BeanFootprint footprint = BeanFootprint.of(Padded.class, BeanFootprint.MemoryModel.UNCOMPRESSED);
+
+        assertEquals(footprint.getShallowSize(), 32);
+        assertEquals(footprint.getPaddingBytes(), 7);
+    }
+
+    @Test
+    public void testBoxedFields() {
+        final BeanFootprint footprint = BeanFootprint.of(Boxed.class, BeanFootprint.MemoryModel.COMPRESSED);
+
+        assertEquals(footprint.getShallowSize(), 24);
+        assertEquals(footprint.getBoxedFields().size(), 1);
+        assertEquals(footprint.getBoxedFields().get(0).getName(), "count");
+        assertEquals(footprint.getWastedBytes(), 4 + 16);
+    }
+
+    @Test
+    public void testShadowedFields() {
+        final BeanFootprint footprint = BeanFootprint.of(Child.class, BeanFootprint.MemoryModel.COMPRESSED);
+
+        assertEquals(footprint.getShallowSize(), 24);
+        assertEquals(footprint.getShadowedFields().size(), 1);
+        assertEquals(footprint.getShadowedFields().get(0).getDeclaringClass(), Parent.class);
+        assertEquals(footprint.getWastedBytes(), 4 + 4);
+    }
+
+    @Test
+    public void testCurrentModel() {
+        final BeanFootprint.MemoryModel model = BeanFootprint.MemoryModel.CURRENT;
+
+        assertTrue(model.getHeaderSize() == 12 || model.getHeaderSize() == 16, model.toString());
+        assertTrue(model.getReferenceSize() == 4 || model.getReferenceSize() == 8, model.toString());
+        assertTrue(BeanFootprint.of(Padded.class).getShallowSize() >= 24);
+    }
+}
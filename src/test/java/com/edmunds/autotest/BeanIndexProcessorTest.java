@@ -0,0 +1,124 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.testng.annotations.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class BeanIndexProcessorTest {
+
+    @Test
+    public void testIndex() throws IOException {
+        final File outputDir = compile(Collections.<String>emptyList(),
+                source("idx.Bean", "package idx; public class Bean { private java.util.List<String> names;"
+                        + " public java.util.List<String> getNames() { return names; }"
+                        + " public void setNames(java.util.List<String> names) { this.names = names; }"
+                        + " public boolean isEmpty() { return names == null; } }"),
+                source("idx.Extension", "package idx; public class Extension extends Bean { }"),
+                source("idx.NoFields", "package idx; public class NoFields { }"),
+                source("idx.Abstract", "package idx; public abstract class Abstract { private int i; }"),
+                source("idx.Parameterized", "package idx; public class Parameterized { private int i;"
+                        + " public Parameterized(int i) { this.i = i; } }"),
+                source("idx.other.Other", "package idx.other; public class Other { private int i;"
+                        + " public static class Nested { private int j; } }"),
+                source("idx.Marker", "package idx; public interface Marker { }"));
+
+        final BeanIndex index = readIndex(outputDir);
+
+        assertTrue(index.contains("idx.Bean"));
+        assertTrue(index.contains("idx.Extension"));
+        assertTrue(index.contains("idx.other.Other"));
+
+        // The other top level classes are listed so a stale index can be detected.
+        assertEquals(index.getEntries().size(), 7);
+        assertFalse(index.contains("idx.NoFields"));
+        assertFalse(index.contains("idx.Abstract"));
+        assertFalse(index.contains("idx.Parameterized"));
+        assertFalse(index.contains("idx.Marker"));
+        assertNotNull(index.getEntry("idx.Marker"));
+        assertNull(index.getEntry("idx.other.Other$Nested"));
+    }
+
+    @Test
+    public void testPackagesOption() throws IOException {
+        final File outputDir = compile(Arrays.asList("-A" + BeanIndexProcessor.PACKAGES_OPTION + "=idx.other"),
+                source("idx.Bean", "package idx; public class Bean { private int i; }"),
+                source("idx.other.Other", "package idx.other; public class Other { private int i; }"));
+
+        final BeanIndex index = readIndex(outputDir);
+
+        assertFalse(index.contains("idx.Bean"));
+        assertTrue(index.contains("idx.other.Other"));
+    }
+
+    private static File compile(List<String> options, JavaFileObject... sources) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(compiler, "A JDK is required to run the processor");
+
+        final File outputDir = File.createTempFile("index", "");
+        assertTrue(outputDir.delete() && outputDir.mkdir());
+
+        final List<String> allOptions = new ArrayList<String>(options);
+        allOptions.addAll(Arrays.asList("-proc:only", "-d", outputDir.getPath()));
+
+        final JavaCompiler.CompilationTask task = compiler.getTask(
+                null, null, null, allOptions, null, Arrays.asList(sources));
+        task.setProcessors(Collections.singletonList(new BeanIndexProcessor()));
+
+        assertTrue(task.call());
+        return outputDir;
+    }
+
+    private static BeanIndex readIndex(File outputDir) throws IOException {
+        final BeanIndex index = new BeanIndex();
+        final InputStream in = new FileInputStream(new File(outputDir, BeanIndex.LOCATION));
+        try {
+            index.read(in);
+        } finally {
+            in.close();
+        }
+        return index;
+    }
+
+    private static JavaFileObject source(String className, final String code) {
+        return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class BeanIndexTest {
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        final BeanIndex.Entry entry = new BeanIndex.Entry("com.example.Bean", true);
+        final BeanIndex.Entry other = new BeanIndex.Entry("com.example.Other", false);
+
+        final StringWriter out = new StringWriter();
+        BeanIndex.write(Arrays.asList(entry, other), out);
+
+        final BeanIndex index = new BeanIndex();
+        final List<BeanIndex.Entry> read = index.read(new ByteArrayInputStream(out.toString().getBytes("UTF-8")));
+
+        assertEquals(read.size(), 2);
+        assertTrue(index.contains("com.example.Bean"));
+        assertFalse(index.contains("com.example.Other"));
+        assertFalse(index.contains("com.example.Missing"));
+
+        assertTrue(index.getEntry("com.example.Bean").isBean());
+        assertFalse(index.getEntry("com.example.Other").isBean());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testMalformed() throws IOException {
+        new BeanIndex().read(new ByteArrayInputStream("com.example.Bean\n x unknown\n".getBytes("UTF-8")));
+    }
+}
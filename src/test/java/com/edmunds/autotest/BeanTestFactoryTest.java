@@ -0,0 +1,211 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.sample.SimpleBean;
+import org.testng.ITestResult;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+import org.testng.annotations.AfterTest;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class BeanTestFactoryTest {
+
+    @Test
+    public void testCreateBeanTests() {
+        final List<BeanTest> tests = new SampleBeans().createBeanTests();
+
+        final Set<Class> classes = new HashSet<Class>();
+        for (BeanTest test : tests) {
+            classes.add(test.getBeanClass());
+            assertEquals(test.getTestName(), test.getBeanClass().getName());
+        }
+
+        assertEquals(classes.size(), tests.size());
+        assertTrue(classes.contains(SimpleBean.class));
+        assertTrue(tests.get(0).getTestName().compareTo(tests.get(1).getTestName()) < 0);
+    }
+
+    @Test
+    public void testFactoryRunsOneTestPerBean() throws IOException {
+        final int beans = new SampleBeans().createBeanTests().size();
+        final TestListenerAdapter listener = run(BeanTestFactory.class,
+                "com.edmunds.autotest.sample.sub, com.edmunds.autotest.sample");
+
+        assertEquals(listener.getPassedTests().size(), beans);
+        assertTrue(listener.getFailedTests().isEmpty());
+    }
+
+    @Test
+    public void testFactoryReportsEachFailure() throws IOException {
+        final int beans = new BadBeansFactory().createTests().length;
+        final TestListenerAdapter listener = run(BadBeansFactory.class, null);
+
+        assertTrue(beans > 0);
+        assertEquals(listener.getFailedTests().size(), beans);
+        for (ITestResult result : listener.getFailedTests()) {
+            assertTrue(result.getThrowable() instanceof AssertionError);
+        }
+    }
+
+    @Test
+    public void testDataProvider() throws IOException {
+        final int beans = new SampleBeans().createBeanTests().size();
+        final TestListenerAdapter listener = run(SampleBeansDataTest.class, null);
+
+        assertEquals(listener.getPassedTests().size(), beans);
+        for (ITestResult result : listener.getPassedTests()) {
+            assertTrue(result.getParameters()[0] instanceof BeanTest);
+        }
+    }
+
+    @Test
+    public void testDataProviderCompletesRun() throws IOException {
+        final int beans = new SampleBeans().createBeanTests().size();
+        CompletingDataTest.LISTENER.reset();
+        run(CompletingDataTest.class, null);
+
+        assertEquals(CompletingDataTest.LISTENER.validated.get(), beans);
+        assertEquals(CompletingDataTest.LISTENER.completed.get(), 1);
+    }
+
+    @Test
+    public void testFactoryCompletesRun() throws IOException {
+        final int beans = new SampleBeans().createBeanTests().size();
+        CompletingFactory.LISTENER.reset();
+        run(CompletingFactory.class, null);
+
+        assertEquals(CompletingFactory.LISTENER.validated.get(), beans);
+        assertEquals(CompletingFactory.LISTENER.completed.get(), 1);
+    }
+
+    private static TestListenerAdapter run(Class testClass, String rootPackages) throws IOException {
+        final XmlSuite suite = new XmlSuite();
+        suite.setName("autotest");
+
+        final XmlTest test = new XmlTest(suite);
+        test.setName("beans");
+        test.setParallel(XmlSuite.PARALLEL_METHODS);
+        test.setThreadCount(4);
+        test.setXmlClasses(Arrays.asList(new XmlClass(testClass)));
+        if (rootPackages != null) {
+            test.setParameters(Collections.singletonMap(BeanTestFactory.ROOT_PACKAGES_PARAMETER, rootPackages));
+        }
+
+        final File outputDir = Files.createTempDirectory("testng").toFile();
+        final TestListenerAdapter listener = new TestListenerAdapter();
+        final TestNG testng = new TestNG();
+
+        testng.setOutputDirectory(outputDir.getPath());
+        testng.setUseDefaultListeners(false);
+        testng.setVerbose(0);
+        testng.setXmlSuites(Arrays.asList(suite));
+        testng.addListener(listener);
+        try {
+            testng.run();
+        } finally {
+            // Nothing is written without the default listeners.
+            outputDir.delete();
+        }
+        return listener;
+    }
+
+    private static class SampleBeans extends AutoTestGetterSetter {
+        SampleBeans() {
+            super(BeanTestFactoryTest.class.getClassLoader(), "com.edmunds.autotest.sample");
+        }
+    }
+
+    public static class BadBeansFactory {
+
+        @Factory
+        public Object[] createTests() {
+            return new AutoTestGetterSetter(getClass().getClassLoader(), "com.edmunds.autotest.badsample")
+                    .createBeanTests().toArray();
+        }
+    }
+
+    public static class SampleBeansDataTest extends AbstractBeanTest {
+        public SampleBeansDataTest() {
+            super(new SampleBeans());
+        }
+    }
+
+    private static AutoTestGetterSetter listenedBeans(ValidationListener listener) {
+        final AutoTestGetterSetter beans = new SampleBeans();
+        beans.addValidationListener(listener);
+        return beans;
+    }
+
+    public static class CompletingDataTest extends AbstractBeanTest {
+        private static final CountingListener LISTENER = new CountingListener();
+
+        public CompletingDataTest() {
+            super(listenedBeans(LISTENER));
+        }
+    }
+
+    public static class CompletingFactory {
+        private static final CountingListener LISTENER = new CountingListener();
+
+        private final AutoTestGetterSetter autoTest = listenedBeans(LISTENER);
+
+        @Factory
+        public Object[] createTests() {
+            return autoTest.createBeanTests().toArray();
+        }
+
+        @AfterTest
+        public void completeTests() {
+            autoTest.completeBeanTests();
+        }
+    }
+
+    private static class CountingListener implements ValidationListener {
+        private final AtomicInteger validated = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+
+        void reset() {
+            validated.set(0);
+            completed.set(0);
+        }
+
+        public void classValidated(Class cls, long nanos, long allocatedBytes, boolean passed) {
+            validated.incrementAndGet();
+        }
+
+        public void validationCompleted(ValidationMetrics metrics) {
+            completed.incrementAndGet();
+        }
+    }
+}
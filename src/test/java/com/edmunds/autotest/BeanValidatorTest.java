@@ -0,0 +1,140 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.sample.SimpleBean;
+import com.edmunds.autotest.sample.sub.SubBean;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class BeanValidatorTest {
+
+    private File servicesDir;
+    private ClassLoader pluginClassLoader;
+
+    @BeforeClass
+    public void createPluginClassLoader() throws IOException {
+        servicesDir = Files.createTempDirectory("validators").toFile();
+
+        final File services = new File(servicesDir, "META-INF/services/" + BeanValidator.class.getName());
+        services.getParentFile().mkdirs();
+        Files.write(services.toPath(), (RecordingValidator.class.getName() + "\n").getBytes("UTF-8"));
+
+        pluginClassLoader = new URLClassLoader(new URL[] {servicesDir.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    @AfterClass
+    public void deleteServices() {
+        new File(servicesDir, "META-INF/services/" + BeanValidator.class.getName()).delete();
+        new File(servicesDir, "META-INF/services").delete();
+        new File(servicesDir, "META-INF").delete();
+        servicesDir.delete();
+    }
+
+    @Test
+    public void testServiceLoaderOrder() {
+        final List<BeanValidator> validators = ValidatorLoader.load(pluginClassLoader);
+        final List<Class> classes = new ArrayList<Class>();
+
+        for (BeanValidator validator : validators) {
+            classes.add(validator.getClass());
+        }
+
+        assertEquals(classes.get(0), GetterSetterValidator.class);
+        assertEquals(classes.get(1), EqualsHashCodeValidator.class);
+        assertEquals(classes.get(2), SerializationValidator.class);
+        assertTrue(classes.contains(RecordingValidator.class), classes.toString());
+        assertEquals(classes.size(), 4);
+    }
+
+    @Test
+    public void testValidatorsShareOnePass() {
+        final List<Object> sharedBeans = new ArrayList<Object>();
+        final AutoTestGetterSetter autoTestGetterSetter = new AutoTestGetterSetter(
+                pluginClassLoader, "com.edmunds.autotest.sample");
+
+        autoTestGetterSetter.addValidator(new BeanValidator() {
+            public ValidationPhase getPhase() {
+                return ValidationPhase.VALIDATE_CUSTOM;
+            }
+
+            public boolean isEnabled(AutoTestConfig config) {
+                return true;
+            }
+
+            public synchronized void validate(BeanContext context) {
+                if (context.getBeanClass() == SimpleBean.class) {
+                    sharedBeans.add(context.getBean());
+                }
+            }
+
+            public void validationCompleted(AutoTestConfig config) {
+            }
+        });
+
+        autoTestGetterSetter.validateAll();
+
+        assertEquals(sharedBeans.size(), 1);
+        assertSame(RecordingValidator.BEANS.get(SimpleBean.class).getClass(), SimpleBean.class);
+        assertTrue(RecordingValidator.BEANS.containsKey(SubBean.class));
+    }
+
+    @Test
+    public void testValidatorFailureFailsClass() {
+        final AutoTestGetterSetter autoTestGetterSetter = new AutoTestGetterSetter(
+                getClass().getClassLoader(), "com.edmunds.autotest.sample");
+
+        autoTestGetterSetter.addValidator(new BeanValidator() {
+            public ValidationPhase getPhase() {
+                return ValidationPhase.VALIDATE_CUSTOM;
+            }
+
+            public boolean isEnabled(AutoTestConfig config) {
+                return true;
+            }
+
+            public void validate(BeanContext context) {
+                if (context.getBeanClass() == SubBean.class) {
+                    fail("Rejected: " + context.getBeanClass().getName());
+                }
+            }
+
+            public void validationCompleted(AutoTestConfig config) {
+            }
+        });
+
+        try {
+            autoTestGetterSetter.validateAll();
+            fail("Expected SubBean to be rejected");
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage().contains("Rejected: " + SubBean.class.getName()), e.getMessage());
+        }
+    }
+}
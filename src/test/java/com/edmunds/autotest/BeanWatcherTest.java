@@ -0,0 +1,148 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+public class BeanWatcherTest {
+    private static final String BASE = "watchsample.Base";
+    private static final String CHILD = "watchsample.Child";
+    private static final String OTHER = "watchsample.Other";
+
+    private File classesDir;
+
+    @BeforeMethod
+    public void createClassesDir() throws IOException {
+        classesDir = Files.createTempDirectory("watch").toFile();
+    }
+
+    @AfterMethod
+    public void deleteClassesDir() throws IOException {
+        final List<Path> paths = new ArrayList<Path>();
+        collect(classesDir.toPath(), paths);
+
+        Collections.reverse(paths);
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testRevalidatesChangedClassAndSubClasses() throws Exception {
+        compile(base("return value;"),
+                source(CHILD, "package watchsample; public class Child extends Base { private String name;"
+                        + " public String getName() { return name; }"
+                        + " public void setName(String name) { this.name = name; } }"),
+                source(OTHER, "package watchsample; public class Other { private int count;"
+                        + " public int getCount() { return count; }"
+                        + " public void setCount(int count) { this.count = count; } }"));
+
+        final ClassLoader classLoader = new URLClassLoader(new URL[] {classesDir.toURI().toURL()},
+                getClass().getClassLoader());
+        final BeanWatcher watcher = new AutoTestGetterSetter(classLoader, "watchsample").watch();
+
+        try {
+            final List<ValidationResult> all = watcher.validateAll();
+            assertEquals(classNames(all), Arrays.asList(BASE, CHILD, OTHER));
+            for (ValidationResult result : all) {
+                assertTrue(result.isPassed(), result.getBeanClass().getName());
+            }
+
+            compile(base("return 7;"));
+
+            final List<ValidationResult> changed = watcher.awaitChanges(10, TimeUnit.SECONDS);
+            assertEquals(classNames(changed), Arrays.asList(BASE, CHILD));
+            for (ValidationResult result : changed) {
+                assertFalse(result.isPassed(), result.getBeanClass().getName());
+                assertTrue(result.getBeanClass().getClassLoader() instanceof IsolatingClassLoader);
+            }
+
+            assertTrue(watcher.awaitChanges(200, TimeUnit.MILLISECONDS).isEmpty());
+        } finally {
+            watcher.close();
+        }
+    }
+
+    private static List<String> classNames(List<ValidationResult> results) {
+        final List<String> names = new ArrayList<String>();
+
+        for (ValidationResult result : results) {
+            names.add(result.getBeanClass().getName());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private static JavaFileObject base(String getterBody) {
+        return source(BASE, "package watchsample; public class Base { private int value;"
+                + " public int getValue() { " + getterBody + " }"
+                + " public void setValue(int value) { this.value = value; } }");
+    }
+
+    private void compile(JavaFileObject... sources) {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(compiler, "A JDK is required to compile the watched classes");
+
+        final JavaCompiler.CompilationTask task = compiler.getTask(null, null, null,
+                Arrays.asList("-proc:none", "-d", classesDir.getPath(), "-cp", classesDir.getPath()),
+                null, Arrays.asList(sources));
+        assertTrue(task.call());
+    }
+
+    private static JavaFileObject source(String className, final String code) {
+        return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    private static void collect(Path path, List<Path> paths) throws IOException {
+        paths.add(path);
+
+        if (Files.isDirectory(path)) {
+            for (File file : path.toFile().listFiles()) {
+                collect(file.toPath(), paths);
+            }
+        }
+    }
+}
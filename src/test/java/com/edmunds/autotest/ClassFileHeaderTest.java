@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.filtersample.GeneratedBean;
+import com.edmunds.autotest.sample.AbstractSimpleBean;
+import com.edmunds.autotest.sample.ParameterizedConstructor;
+import com.edmunds.autotest.sample.SimpleExtension;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ClassFileHeaderTest {
+
+    @Test
+    public void testReadBean() throws IOException {
+        final ClassFileHeader header = read(SimpleExtension.class);
+
+        assertEquals(header.getClassName(), "com/edmunds/autotest/sample/SimpleExtension");
+        assertEquals(header.getSuperClassName(), "com/edmunds/autotest/sample/AbstractSimpleBean");
+        assertEquals(header.getFieldCount(), 0);
+        assertTrue(header.hasDefaultConstructor());
+        assertTrue(header.isStandardClass());
+    }
+
+    @Test
+    public void testReadAbstract() throws IOException {
+        final ClassFileHeader header = read(AbstractSimpleBean.class);
+
+        assertEquals(header.getFieldCount(), 1);
+        assertFalse(header.isStandardClass());
+    }
+
+    @Test
+    public void testReadParameterizedConstructor() throws IOException {
+        assertFalse(read(ParameterizedConstructor.class).hasDefaultConstructor());
+    }
+
+    @Test
+    public void testReadMemberClass() throws IOException {
+        assertFalse(read(Member.class).isStandardClass());
+    }
+
+    @Test
+    public void testReadAnnotations() throws IOException {
+        assertEquals(read(GeneratedBean.class).getAnnotationNames(),
+                Arrays.asList("com/edmunds/autotest/filtersample/Generated"));
+        assertEquals(read(SimpleExtension.class).getAnnotationNames(), Collections.emptyList());
+    }
+
+    private static ClassFileHeader read(Class cls) throws IOException {
+        final InputStream in = cls.getClassLoader().getResourceAsStream(cls.getName().replace('.', '/') + ".class");
+
+        try {
+            return ClassFileHeader.read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    public static class Member {
+        private String data;
+    }
+}
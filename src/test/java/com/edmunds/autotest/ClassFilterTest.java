@@ -0,0 +1,137 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.filtersample.BaseDto;
+import com.edmunds.autotest.filtersample.Generated;
+import com.edmunds.autotest.filtersample.GeneratedBean;
+import com.edmunds.autotest.filtersample.LineDto;
+import com.edmunds.autotest.filtersample.OrderDto;
+import com.edmunds.autotest.filtersample.PlainBean;
+import com.edmunds.autotest.filtersample.gen.GenBean;
+import org.testng.annotations.Test;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ClassFilterTest {
+
+    @Test
+    public void testEmpty() {
+        final ClassFilter filter = new ClassFilter();
+
+        assertTrue(filter.isEmpty());
+        assertFalse(filter.isClassFileRequired());
+        assertTrue(filter.acceptName("com.example.Bean"));
+    }
+
+    @Test
+    public void testPackageGlobs() {
+        final ClassFilter filter = new ClassFilter()
+                .excludePackages("com.example.gen.**", "com.example.*.dto", "com.example.**.jibx", "");
+
+        assertTrue(filter.acceptName("com.example.Bean"));
+        assertTrue(filter.acceptName("com.example.general.Bean"));
+        assertFalse(filter.acceptName("com.example.gen.Bean"));
+        assertFalse(filter.acceptName("com.example.gen.sub.Bean"));
+
+        assertFalse(filter.acceptName("com.example.order.dto.Bean"));
+        assertTrue(filter.acceptName("com.example.dto.Bean"));
+        assertTrue(filter.acceptName("com.example.order.line.dto.Bean"));
+
+        assertFalse(filter.acceptName("com.example.jibx.Bean"));
+        assertFalse(filter.acceptName("com.example.order.line.jibx.Bean"));
+        assertTrue(filter.acceptName("com.example.order.jibx.sub.Bean"));
+
+        // The empty glob is the default package.
+        assertFalse(filter.acceptName("Bean"));
+    }
+
+    @Test
+    public void testIncludeClassNames() {
+        final ClassFilter filter = new ClassFilter()
+                .includeClassNames(".*Bean", ".*\\.Order[A-Z]\\w*")
+                .excludeClassNames(".*\\$.*");
+
+        assertTrue(filter.acceptName("com.example.SimpleBean"));
+        assertTrue(filter.acceptName("com.example.OrderLine"));
+        assertFalse(filter.acceptName("com.example.Orders"));
+        assertFalse(filter.acceptName("com.example.SimpleBean$Inner"));
+
+        // The expression has to match the whole name.
+        assertFalse(filter.acceptName("com.example.BeanFactory"));
+    }
+
+    @Test
+    public void testExcludeSubClasses() {
+        final ClassFilter filter = new ClassFilter().excludeSubClassesOf(BaseDto.class.getName());
+
+        assertTrue(filter.isClassFileRequired());
+        assertEquals(resolve(filter), names(BaseDto.class, Generated.class, GeneratedBean.class,
+                PlainBean.class, GenBean.class));
+    }
+
+    @Test
+    public void testIncludeAnnotated() {
+        final ClassFilter filter = new ClassFilter()
+                .includeAnnotatedWith(Generated.class.getName())
+                .includePackages("com.edmunds.autotest.filtersample.gen");
+
+        // Name rules can't decide on their own when there are class file rules.
+        assertTrue(filter.acceptName(PlainBean.class.getName()));
+        assertEquals(resolve(filter), names(GeneratedBean.class, GenBean.class));
+    }
+
+    @Test
+    public void testIncludeSubClassesExcludeAnnotated() {
+        final ClassFilter filter = new ClassFilter()
+                .includeSubClassesOf(OrderDto.class.getName(), GeneratedBean.class.getName())
+                .excludeAnnotatedWith(Generated.class.getName());
+
+        assertEquals(resolve(filter), names(LineDto.class));
+    }
+
+    @Test
+    public void testUnreadableClassFileIsAccepted() {
+        final ClassFilter filter = new ClassFilter().excludeAnnotatedWith(Generated.class.getName());
+
+        assertTrue(filter.accept("com.example.Missing", null, null));
+    }
+
+    private Set<String> resolve(ClassFilter filter) {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.filtersample");
+        config.setClassFilter(filter);
+
+        final Set<String> names = new TreeSet<String>();
+        for(Class cls : new ClassResolver(getClass().getClassLoader(), config).resolveClasses()) {
+            names.add(cls.getName());
+        }
+        return names;
+    }
+
+    private static Set<String> names(Class... classes) {
+        final Set<String> names = new TreeSet<String>();
+
+        for(Class cls : classes) {
+            names.add(cls.getName());
+        }
+        return names;
+    }
+}
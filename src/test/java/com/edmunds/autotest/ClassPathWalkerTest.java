@@ -0,0 +1,110 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.sample.SimpleBean;
+import com.edmunds.autotest.sample.sub.SubBean;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ClassPathWalkerTest {
+
+    @Test
+    public void testWalkDirectory() throws IOException {
+        final RecordingVisitor visitor = new RecordingVisitor();
+
+        new ClassPathWalker("com/edmunds/autotest/sample").walk(getClass().getClassLoader(), visitor);
+
+        assertTrue(visitor.classNames.contains(SimpleBean.class.getName()));
+        assertTrue(visitor.classNames.contains(SubBean.class.getName()));
+        assertTrue(visitor.unsupported.isEmpty());
+    }
+
+    @Test
+    public void testWalkJar() throws IOException {
+        final File jar = File.createTempFile("sample", ".jar");
+        final String entryName = SimpleBean.class.getName().replace('.', '/') + ".class";
+
+        final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            out.putNextEntry(new JarEntry("com/edmunds/autotest/sample/"));
+            out.putNextEntry(new JarEntry(entryName));
+            final InputStream in = getClass().getClassLoader().getResourceAsStream(entryName);
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            in.close();
+            out.putNextEntry(new JarEntry("com/edmunds/autotest/sample/readme.txt"));
+        } finally {
+            out.close();
+        }
+
+        final URLClassLoader classLoader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, null);
+        try {
+            final RecordingVisitor visitor = new RecordingVisitor();
+            new ClassPathWalker("com/edmunds/autotest/sample").walk(classLoader, visitor);
+
+            assertEquals(visitor.classNames.size(), 1);
+            assertTrue(visitor.classNames.contains(SimpleBean.class.getName()));
+            assertTrue(visitor.bytesRead > 0);
+        } finally {
+            classLoader.close();
+            jar.delete();
+        }
+    }
+
+    private static class RecordingVisitor implements ClassPathWalker.Visitor {
+        private final Set<String> classNames = new HashSet<String>();
+        private final Set<URL> unsupported = new HashSet<URL>();
+        private int bytesRead;
+
+        public void visitClassFile(ClassPathWalker.ClassFile classFile) {
+            classNames.add(classFile.getClassName());
+
+            try {
+                final InputStream in = classFile.open();
+                try {
+                    while (in.read() != -1) {
+                        bytesRead++;
+                    }
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        public void visitUnsupportedRoot(URL root) {
+            unsupported.add(root);
+        }
+    }
+}
@@ -15,12 +15,31 @@
  */
 package com.edmunds.autotest;
 
+import com.edmunds.autotest.sample.AbstractSimpleBean;
+import com.edmunds.autotest.sample.ParameterizedConstructor;
+import com.edmunds.autotest.sample.PrimitiveBean;
 import com.edmunds.autotest.sample.SimpleBean;
+import com.edmunds.autotest.sample.SimpleExtension;
+import com.edmunds.autotest.sample.Stateless;
+import com.edmunds.autotest.sample.sub.SubBean;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Set;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
@@ -42,4 +61,158 @@ public class ClassResolverTest {
         assertNotNull(classes);
         assertTrue(classes.contains(SimpleBean.class));
     }
+
+    @Test
+    public void testResolvePrefiltered() {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.sample");
+        config.setPrefilterClassFiles(true);
+
+        final Set<Class> classes = new ClassResolver(getClass().getClassLoader(), config).resolveClasses();
+
+        assertTrue(classes.contains(SimpleBean.class));
+        assertTrue(classes.contains(Stateless.getPackageBeanClass()));
+
+        // Fields are inherited from the super class.
+        assertTrue(classes.contains(SimpleExtension.class));
+        assertTrue(classes.contains(SubBean.class));
+
+        assertFalse(classes.contains(AbstractSimpleBean.class));
+        assertFalse(classes.contains(ParameterizedConstructor.class));
+        assertFalse(classes.contains(Stateless.class));
+    }
+
+    @Test
+    public void testResolveWithSpring() {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.sample");
+        config.setSpringResourceScanning(true);
+
+        final Set<Class> classes = new ClassResolver(getClass().getClassLoader(), config).resolveClasses();
+
+        assertTrue(classes.equals(classResolver.resolveClasses()));
+    }
+
+    @Test
+    public void testResolveMultipleRootPackages() {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.sample.sub", "com.edmunds.autotest.sample");
+
+        final ValidationMetrics metrics = new ValidationMetrics();
+        final Set<Class> classes = new HashSet<Class>();
+        new ClassResolver(getClass().getClassLoader(), config).resolveClasses(classes, metrics);
+
+        // The packages overlap, every class is still only resolved and counted once.
+        assertTrue(classes.equals(classResolver.resolveClasses()));
+        assertEquals(metrics.getScannedCount(), classes.size());
+    }
+
+    @Test
+    public void testStreamClasses() {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.sample.sub", "com.edmunds.autotest.sample");
+        config.setScanParallelism(4);
+
+        final ValidationMetrics metrics = new ValidationMetrics();
+        final Set<Class> classes = new HashSet<Class>();
+        new ClassResolver(getClass().getClassLoader(), config).streamClasses(new ClassSink() {
+            public void accept(Class cls) {
+                classes.add(cls);
+            }
+        }, metrics);
+
+        assertTrue(classes.equals(classResolver.resolveClasses()));
+        assertEquals(metrics.getScannedCount(), classes.size());
+    }
+
+    @Test
+    public void testResolveRootsInParallel() {
+        // The main and test class directories are both roots of this package.
+        final AutoTestConfig serial = new AutoTestConfig("com.edmunds.autotest");
+        serial.setScanParallelism(1);
+        final AutoTestConfig parallel = new AutoTestConfig("com.edmunds.autotest");
+        parallel.setScanParallelism(4);
+
+        final Set<Class> expected = new ClassResolver(getClass().getClassLoader(), serial).resolveClasses();
+        final Set<Class> classes = new ClassResolver(getClass().getClassLoader(), parallel).resolveClasses();
+
+        assertTrue(classes.contains(ClassResolver.class));
+        assertTrue(classes.contains(SimpleBean.class));
+        assertTrue(classes.equals(expected));
+    }
+
+    @Test
+    public void testResolveFromBeanIndex() throws IOException {
+        final File root = Files.createTempDirectory("indexed").toFile();
+        copyClassFile(SimpleBean.class, root);
+        copyClassFile(PrimitiveBean.class, root);
+        copyClassFile(Stateless.class, root);
+        writeIndex(root, new BeanIndex.Entry(SimpleBean.class.getName(), true),
+                new BeanIndex.Entry(Stateless.class.getName(), true),
+                new BeanIndex.Entry(PrimitiveBean.class.getName(), false));
+
+        final URLClassLoader classLoader = new URLClassLoader(new URL[]{root.toURI().toURL()}, null);
+        try {
+            final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.sample");
+            final Set<Class> indexed = new ClassResolver(classLoader, config).resolveClasses();
+
+            // Only the indexed beans are resolved, the directory is not scanned.
+            assertEquals(classNames(indexed), new HashSet<String>(
+                    Arrays.asList(SimpleBean.class.getName(), Stateless.class.getName())));
+
+            // The index only lists candidates, they are still checked.
+            assertEquals(classNames(new HashSet<Class>(new ValidBeanFilter().filter(indexed, config))),
+                    new HashSet<String>(Arrays.asList(SimpleBean.class.getName())));
+
+            config.setUseBeanIndex(false);
+            assertEquals(classNames(new ClassResolver(classLoader, config).resolveClasses()), new HashSet<String>(
+                    Arrays.asList(SimpleBean.class.getName(), PrimitiveBean.class.getName(), Stateless.class.getName())));
+        } finally {
+            classLoader.close();
+        }
+    }
+
+    @Test
+    public void testStaleBeanIndexIsIgnored() throws IOException {
+        final File root = Files.createTempDirectory("stale").toFile();
+        copyClassFile(SimpleBean.class, root);
+        copyClassFile(PrimitiveBean.class, root);
+
+        // PrimitiveBean was compiled after the index was generated.
+        writeIndex(root, new BeanIndex.Entry(SimpleBean.class.getName(), true));
+
+        final URLClassLoader classLoader = new URLClassLoader(new URL[]{root.toURI().toURL()}, null);
+        try {
+            final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.sample");
+
+            assertEquals(classNames(new ClassResolver(classLoader, config).resolveClasses()), new HashSet<String>(
+                    Arrays.asList(SimpleBean.class.getName(), PrimitiveBean.class.getName())));
+        } finally {
+            classLoader.close();
+        }
+    }
+
+    private static void writeIndex(File root, BeanIndex.Entry... entries) throws IOException {
+        final File indexFile = new File(root, BeanIndex.LOCATION);
+        assertTrue(indexFile.getParentFile().mkdirs());
+
+        final Writer out = new OutputStreamWriter(new FileOutputStream(indexFile), "UTF-8");
+        try {
+            BeanIndex.write(Arrays.asList(entries), out);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void copyClassFile(Class cls, File root) throws IOException {
+        final String name = cls.getName().replace('.', '/') + ".class";
+        final File target = new File(root, name);
+        assertTrue(target.getParentFile().isDirectory() || target.getParentFile().mkdirs());
+
+        Files.copy(cls.getClassLoader().getResourceAsStream(name), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Set<String> classNames(Set<Class> classes) {
+        final Set<String> names = new HashSet<String>();
+        for(Class cls : classes) {
+            names.add(cls.getName());
+        }
+        return names;
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.hashsample.ConstantHashBean;
+import com.edmunds.autotest.hashsample.GoodHashBean;
+import com.edmunds.autotest.hashsample.MissingHashCodeBean;
+import com.edmunds.autotest.sample.SimpleBean;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class EqualsHashCodeValidatorTest {
+
+    private final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest");
+    private final EqualsHashCodeValidator validator = new EqualsHashCodeValidator();
+
+    @Test
+    public void testGoodHashCodePasses() {
+        validator.validate(new BeanContext(GoodHashBean.class, config));
+
+        final EqualsHashCodeValidator.HashQuality quality = validator.measure(GoodHashBean.class, config);
+        assertEquals(quality.getCollisionRate(), 0D);
+        assertTrue(quality.getInstanceCount() > 1);
+        assertTrue(quality.getBitDispersion() > 0D);
+    }
+
+    @Test
+    public void testClassWithoutEqualsIsSkipped() {
+        validator.validate(new BeanContext(SimpleBean.class, config));
+    }
+
+    @Test
+    public void testConstantHashCodeFails() {
+        final EqualsHashCodeValidator.HashQuality quality = validator.measure(ConstantHashBean.class, config);
+        assertTrue(quality.getCollisionRate() > 0.9D, quality.toString());
+        assertEquals(quality.getBitDispersion(), 0D);
+
+        assertFails(ConstantHashBean.class, "Weak hashCode");
+    }
+
+    @Test
+    public void testMissingHashCodeFails() {
+        assertFails(MissingHashCodeBean.class, "different hash codes");
+    }
+
+    @Test
+    public void testValidateAll() {
+        final AutoTestGetterSetter hashSamples = new AutoTestGetterSetter(
+                getClass().getClassLoader(),
+                "com.edmunds.autotest.hashsample");
+
+        hashSamples.validateAll();
+
+        hashSamples.setValidateEqualsHashCode(true);
+        try {
+            hashSamples.validateAll();
+            fail("Expected the equals/hashCode validation to fail");
+        } catch(AssertionError e) {
+            assertTrue(e.getMessage().contains("hash"), e.getMessage());
+        }
+    }
+
+    private void assertFails(Class cls, String message) {
+        try {
+            validator.validate(new BeanContext(cls, config));
+            fail("Expected " + cls.getName() + " to fail");
+        } catch(AssertionError e) {
+            assertTrue(e.getMessage().contains(message), e.getMessage());
+        }
+    }
+}
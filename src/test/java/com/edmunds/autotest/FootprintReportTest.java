@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.sample.PrimitiveBean;
+import com.edmunds.autotest.sample.SimpleBean;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class FootprintReportTest {
+
+    @Test
+    public void testReport() throws IOException {
+        final File table = File.createTempFile("footprint", ".txt");
+        final FootprintReport report = new FootprintReport(table, BeanFootprint.MemoryModel.COMPRESSED);
+
+        final AutoTestGetterSetter autoTestGetterSetter = new AutoTestGetterSetter(
+                getClass().getClassLoader(), "com.edmunds.autotest.sample");
+        autoTestGetterSetter.addValidationListener(report);
+
+        try {
+            autoTestGetterSetter.validateAll();
+
+            final List<FootprintReport.Row> footprints = report.getFootprints();
+            assertFalse(footprints.isEmpty());
+            for (int i = 1; i < footprints.size(); i++) {
+                assertTrue(footprints.get(i - 1).getWastedBytes() >= footprints.get(i).getWastedBytes());
+            }
+
+            final String text = new String(Files.readAllBytes(table.toPath()), "UTF-8");
+            assertTrue(text.startsWith("  wasted"), text);
+            assertTrue(text.indexOf(footprints.get(0).getClassName()) <
+                    text.indexOf(footprints.get(footprints.size() - 1).getClassName()) ||
+                    footprints.size() == 1, text);
+        } finally {
+            table.delete();
+        }
+    }
+
+    @Test
+    public void testReportIsResetPerRun() {
+        final FootprintReport report = new FootprintReport(null);
+
+        report.classValidated(SimpleBean.class, 0, 0, true);
+        report.validationCompleted(ValidationMetrics.disabled());
+        assertEquals(report.getFootprints().size(), 1);
+        assertEquals(report.getFootprints().get(0).getClassName(), SimpleBean.class.getName());
+
+        report.classValidated(PrimitiveBean.class, 0, 0, true);
+        report.validationCompleted(ValidationMetrics.disabled());
+        assertEquals(report.getFootprints().size(), 1);
+        assertEquals(report.getFootprints().get(0).getClassName(), PrimitiveBean.class.getName());
+    }
+}
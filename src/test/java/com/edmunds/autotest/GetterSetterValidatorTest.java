@@ -0,0 +1,83 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.memosample.AbstractCountedBean;
+import com.edmunds.autotest.memosample.FirstBean;
+import com.edmunds.autotest.memosample.OverridingBean;
+import com.edmunds.autotest.memosample.SecondBean;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class GetterSetterValidatorTest {
+
+    @Test
+    public void testInheritedPropertiesAreCheckedOnce() {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.memosample");
+        final GetterSetterValidator validator = new GetterSetterValidator();
+
+        final int first = getterCalls(validator, FirstBean.class, config);
+        assertTrue(first > 0);
+
+        // Same field, getter and setter, only the sub class's own field is checked.
+        assertEquals(getterCalls(validator, SecondBean.class, config), 0);
+
+        // The getter is overridden so the property is checked again.
+        assertEquals(getterCalls(validator, OverridingBean.class, config), first);
+        assertEquals(getterCalls(validator, OverridingBean.class, config), 0);
+    }
+
+    @Test
+    public void testMemoizationEndsWithTheRun() {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.memosample");
+        final GetterSetterValidator validator = new GetterSetterValidator();
+
+        final int first = getterCalls(validator, FirstBean.class, config);
+        validator.validationCompleted(config);
+
+        // The config may have changed since the last run.
+        assertEquals(getterCalls(validator, SecondBean.class, config), first);
+    }
+
+    @Test
+    public void testMemoizationDisabled() {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.memosample");
+        config.setMemoizeInheritedProperties(false);
+        final GetterSetterValidator validator = new GetterSetterValidator();
+
+        final int first = getterCalls(validator, FirstBean.class, config);
+
+        assertEquals(getterCalls(validator, SecondBean.class, config), first);
+    }
+
+    @Test
+    public void testMemoizationIsPerValidator() {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.memosample");
+
+        final int first = getterCalls(new GetterSetterValidator(), FirstBean.class, config);
+
+        assertEquals(getterCalls(new GetterSetterValidator(), SecondBean.class, config), first);
+    }
+
+    private static int getterCalls(GetterSetterValidator validator, Class cls, AutoTestConfig config) {
+        final int before = AbstractCountedBean.GETTER_CALLS.get();
+
+        validator.validate(new BeanContext(cls, config));
+        return AbstractCountedBean.GETTER_CALLS.get() - before;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.sample.AbstractSimpleBean;
+import com.edmunds.autotest.sample.SimpleBean;
+import com.edmunds.autotest.sample.SimpleExtension;
+import org.testng.annotations.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class IsolatingClassLoaderTest {
+
+    @Test
+    public void testRootPackageClassesAreDefinedByTheLoader() throws ClassNotFoundException {
+        final ClassLoader parent = getClass().getClassLoader();
+        final IsolatingClassLoader loader = new IsolatingClassLoader(parent, Arrays.asList("com.edmunds.autotest.sample"));
+
+        final Class<?> extension = loader.loadClass(SimpleExtension.class.getName());
+
+        assertNotSame(extension, SimpleExtension.class);
+        assertSame(extension.getClassLoader(), loader);
+        assertEquals(extension.getPackage().getName(), SimpleExtension.class.getPackage().getName());
+
+        // The super class comes from the same loader, so the hierarchy is consistent.
+        assertSame(extension.getSuperclass(), loader.loadClass(AbstractSimpleBean.class.getName()));
+        assertNotSame(extension.getSuperclass(), AbstractSimpleBean.class);
+
+        // Anything else is shared with the parent.
+        assertSame(loader.loadClass(ClassUtil.class.getName()), ClassUtil.class);
+        assertSame(loader.loadClass(String.class.getName()), String.class);
+    }
+
+    @Test
+    public void testLoadersAreIndependent() throws ClassNotFoundException {
+        final ClassLoader parent = getClass().getClassLoader();
+
+        final Class<?> first = new IsolatingClassLoader(parent, Arrays.asList("com.edmunds.autotest.sample"))
+                .loadClass(SimpleBean.class.getName());
+        final Class<?> second = new IsolatingClassLoader(parent, Arrays.asList("com.edmunds.autotest.sample"))
+                .loadClass(SimpleBean.class.getName());
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void testChunkLoadersAreCollected() throws InterruptedException {
+        final List<WeakReference<ClassLoader>> loaders = new ArrayList<WeakReference<ClassLoader>>();
+
+        AutoTestGetterSetter autoTestGetterSetter = new AutoTestGetterSetter(
+                getClass().getClassLoader(), "com.edmunds.autotest.sample");
+        autoTestGetterSetter.setIsolationChunkSize(3);
+        autoTestGetterSetter.addValidationListener(new ValidationListener() {
+            public synchronized void classValidated(Class cls, long nanos, long allocatedBytes, boolean passed) {
+                if (cls.getClassLoader() instanceof IsolatingClassLoader) {
+                    loaders.add(new WeakReference<ClassLoader>(cls.getClassLoader()));
+                }
+            }
+
+            public void validationCompleted(ValidationMetrics metrics) {
+            }
+        });
+        autoTestGetterSetter.validateAll();
+        autoTestGetterSetter = null;
+
+        assertFalse(loaders.isEmpty());
+        for (int i = 0; i < 50 && !isCleared(loaders); i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertTrue(isCleared(loaders), "A chunk loader is still reachable after validation");
+    }
+
+    private static boolean isCleared(List<WeakReference<ClassLoader>> loaders) {
+        for (WeakReference<ClassLoader> loader : loaders) {
+            if (loader.get() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
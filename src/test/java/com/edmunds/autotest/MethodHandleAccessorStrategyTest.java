@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.sample.PrimitiveBean;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Field;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class MethodHandleAccessorStrategyTest {
+
+    private MethodHandleAccessorStrategy strategy;
+
+    @BeforeMethod
+    public void setUp() {
+        strategy = new MethodHandleAccessorStrategy();
+    }
+
+    @Test
+    public void testCached() throws Exception {
+        final Field field = PrimitiveBean.class.getDeclaredField("intProp");
+
+        assertSame(strategy.forField(field), strategy.forField(field));
+    }
+
+    @Test
+    public void testPrimitiveRoundTrip() throws Exception {
+        final PrimitiveBean bean = new PrimitiveBean();
+
+        strategy.forMethod(PrimitiveBean.class.getMethod("setIntProp", int.class)).setLong(bean, 42L);
+        assertEquals(bean.getIntProp(), 42);
+        assertEquals(strategy.forField(PrimitiveBean.class.getDeclaredField("intProp")).getLong(bean), 42L);
+
+        strategy.forMethod(PrimitiveBean.class.getMethod("setBooleanProp", boolean.class)).setLong(bean, 1L);
+        assertTrue(bean.isBooleanProp());
+        assertEquals(strategy.forMethod(PrimitiveBean.class.getMethod("isBooleanProp")).getLong(bean), 1L);
+
+        strategy.forField(PrimitiveBean.class.getDeclaredField("charProp")).setLong(bean, 'x');
+        assertEquals(bean.getCharProp(), 'x');
+
+        strategy.forMethod(PrimitiveBean.class.getMethod("setFloatProp", float.class)).setDouble(bean, 1.5D);
+        assertEquals(bean.getFloatProp(), 1.5F);
+        assertEquals(strategy.forMethod(PrimitiveBean.class.getMethod("getFloatProp")).getDouble(bean), 1.5D);
+    }
+
+    @Test
+    public void testObjectRoundTrip() throws Exception {
+        final PrimitiveBean bean = new PrimitiveBean();
+
+        strategy.forField(PrimitiveBean.class.getDeclaredField("boxedProp")).set(bean, 7);
+        assertEquals(strategy.forMethod(PrimitiveBean.class.getMethod("getBoxedProp")).get(bean), 7);
+    }
+
+    @Test
+    public void testStaticField() throws Exception {
+        final MemberAccessor accessor = strategy.forField(StaticHolder.class.getDeclaredField("counter"));
+
+        accessor.setLong(null, 3L);
+        assertEquals(StaticHolder.counter, 3);
+        assertEquals(accessor.getType(), int.class);
+    }
+
+    @Test
+    public void testValidateWithReflection() {
+        final AutoTestGetterSetter autoTestGetterSetter = new AutoTestGetterSetter(
+                getClass().getClassLoader(), "com.edmunds.autotest.sample");
+
+        autoTestGetterSetter.setAccessorStrategy(new ReflectionAccessorStrategy());
+        autoTestGetterSetter.validate(PrimitiveBean.class);
+    }
+
+    private static class StaticHolder {
+        private static int counter;
+    }
+}
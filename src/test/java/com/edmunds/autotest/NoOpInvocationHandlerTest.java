@@ -0,0 +1,90 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.testng.annotations.Test;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class NoOpInvocationHandlerTest {
+
+    public interface Values {
+        int getCount();
+
+        long getTotal();
+
+        boolean isReady();
+
+        char getInitial();
+
+        double getRatio();
+
+        String getName();
+
+        void update(String name);
+    }
+
+    @Test
+    public void testStubIsCached() {
+        assertSame(NoOpInvocationHandler.getStub(Values.class), NoOpInvocationHandler.getStub(Values.class));
+        assertSame(ClassUtil.instanceClass(Values.class, "Values"), NoOpInvocationHandler.getStub(Values.class));
+    }
+
+    @Test
+    public void testPrimitiveDefaults() {
+        final Values values = (Values) NoOpInvocationHandler.getStub(Values.class);
+
+        assertEquals(values.getCount(), 0);
+        assertEquals(values.getTotal(), 0L);
+        assertFalse(values.isReady());
+        assertEquals(values.getInitial(), (char) 0);
+        assertEquals(values.getRatio(), 0D);
+        assertNull(values.getName());
+
+        values.update("ignored");
+    }
+
+    @Test
+    public void testObjectMethods() {
+        final Object stub = NoOpInvocationHandler.getStub(Values.class);
+
+        assertTrue(stub.equals(stub));
+        assertFalse(stub.equals(NoOpInvocationHandler.getStub(List.class)));
+        assertEquals(stub.hashCode(), System.identityHashCode(stub));
+        assertEquals(stub.toString(), "NoOpInvocationHandler");
+    }
+
+    @Test
+    public void testCollectionMethods() {
+        final Collection<?> collection = (Collection<?>) NoOpInvocationHandler.getStub(Collection.class);
+
+        assertTrue(collection.isEmpty());
+        assertEquals(collection.size(), 0);
+        assertEquals(collection.toArray().length, 0);
+        assertFalse(collection.contains("value"));
+
+        final String[] array = new String[]{"value"};
+        assertSame(collection.toArray(array), array);
+        assertNull(array[0]);
+    }
+}
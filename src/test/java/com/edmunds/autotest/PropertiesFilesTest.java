@@ -0,0 +1,48 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.testng.Assert.assertTrue;
+
+public class PropertiesFilesTest {
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        final File file = File.createTempFile("values", ".properties");
+
+        final Map<String, Long> values = new TreeMap<String, Long>();
+        values.put("com.example.Bean", 1L);
+        values.put("com.example.\u00fcber.Bean", 2L);
+        values.put("com.example.\u5b57.Bean", 3L);
+        values.put("com.example.Odd=Name:With#Marks!", 4L);
+
+        try {
+            PropertiesFiles.writeLongs(file, values);
+            final Map<String, Long> read = PropertiesFiles.readLongs(file, "values");
+
+            assertTrue(read.equals(values), read.toString());
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A validator that BeanValidatorTest registers through META-INF/services, it remembers the beans it was given.
+ */
+public class RecordingValidator implements BeanValidator {
+    static final Map<Class, Object> BEANS = new ConcurrentHashMap<Class, Object>();
+
+    public ValidationPhase getPhase() {
+        return ValidationPhase.VALIDATE_CUSTOM;
+    }
+
+    public boolean isEnabled(AutoTestConfig config) {
+        return true;
+    }
+
+    public void validate(BeanContext context) {
+        BEANS.put(context.getBeanClass(), context.getBean());
+    }
+
+    public void validationCompleted(AutoTestConfig config) {
+    }
+}
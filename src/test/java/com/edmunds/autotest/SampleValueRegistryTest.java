@@ -0,0 +1,166 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.sample.SimpleBean;
+import com.edmunds.autotest.sample.SimpleExtension;
+import com.edmunds.autotest.sample.ValueBean;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class SampleValueRegistryTest {
+
+    @Test
+    public void testDefaults() {
+        final SampleValueRegistry registry = new SampleValueRegistry();
+
+        assertEquals(registry.createValue(int.class, "int"), 42);
+        assertEquals(registry.createValue(Long.class, "Long"), 43L);
+        assertSame(registry.createValue(String.class, "String"), registry.createValue(String.class, "String"));
+
+        // Mutable values are never shared.
+        final Object bean = registry.createValue(SimpleBean.class, "SimpleBean");
+        assertTrue(bean instanceof SimpleBean);
+        assertNotSame(registry.createValue(SimpleBean.class, "SimpleBean"), bean);
+
+        // Without generators only the constructor and proxies are used.
+        assertNull(registry.createValue(ValueBean.Color.class, "Color"));
+        assertNull(registry.createValue(int[].class, "int[]"));
+        assertNull(registry.createValue(Number.class, "Number"));
+        assertTrue(registry.createValue(List.class, "List") instanceof List);
+    }
+
+    @Test
+    public void testGenerators() {
+        final SampleValueRegistry registry = new SampleValueRegistry();
+        registry.addGenerator(SampleValueRegistry.ENUMS);
+        registry.addGenerator(SampleValueRegistry.ARRAYS);
+        registry.addGenerator(SampleValueRegistry.COLLECTIONS);
+
+        assertSame(registry.createValue(ValueBean.Color.class, "Color"), ValueBean.Color.RED);
+        assertEquals(((int[]) registry.createValue(int[].class, "int[]")).length, 1);
+        assertEquals(registry.createValue(List.class, "List").getClass(), ArrayList.class);
+        assertEquals(registry.createValue(Collection.class, "Collection").getClass(), ArrayList.class);
+        assertEquals(registry.createValue(SortedSet.class, "SortedSet").getClass(), TreeSet.class);
+        assertEquals(registry.createValue(Map.class, "Map").getClass(), HashMap.class);
+
+        // Types that are not collections are left alone.
+        assertNull(registry.createValue(Number.class, "Number"));
+        assertTrue(registry.createValue(Serializable.class, "Serializable") instanceof Serializable);
+    }
+
+    @Test
+    public void testJavaTime() throws ClassNotFoundException {
+        final Class<?> instant;
+        try {
+            instant = Class.forName("java.time.Instant");
+        } catch(ClassNotFoundException e) {
+            return;
+        }
+
+        final SampleValueRegistry registry = new SampleValueRegistry();
+        registry.addGenerator(SampleValueRegistry.JAVA_TIME);
+
+        final Object value = registry.createValue(instant, "Instant");
+        assertNotNull(value);
+        assertSame(registry.createValue(instant, "Instant"), value);
+        assertNotNull(registry.createValue(Class.forName("java.time.Duration"), "Duration"));
+    }
+
+    @Test
+    public void testRegisteredFactoryWins() {
+        final Date date = new Date(0);
+        final SampleValueRegistry registry = new SampleValueRegistry();
+
+        assertTrue(registry.createValue(Date.class, "Date") instanceof Date);
+
+        registry.register(Date.class, new SampleValueFactory() {
+            public Object createValue(Class<?> type) {
+                return date.clone();
+            }
+        });
+        assertEquals(registry.createValue(Date.class, "Date"), date);
+    }
+
+    @Test
+    public void testFactoriesMatchIsolatedCopies() throws ClassNotFoundException {
+        final int[] calls = new int[1];
+        final SimpleExtension constant = new SimpleExtension();
+        final SampleValueRegistry registry = new SampleValueRegistry();
+        registry.register(SimpleBean.class, new SampleValueFactory() {
+            public Object createValue(Class<?> type) {
+                calls[0]++;
+                return ClassUtil.instanceClass(type, type.getName());
+            }
+        });
+        registry.registerConstant(SimpleExtension.class, constant);
+
+        final IsolatingClassLoader loader = new IsolatingClassLoader(
+                getClass().getClassLoader(), Arrays.asList("com.edmunds.autotest.sample"));
+
+        final Class<?> bean = loader.loadClass(SimpleBean.class.getName());
+        assertTrue(bean.isInstance(registry.createValue(bean, "bean")));
+        assertTrue(calls[0] > 0);
+
+        // The constant is an instance of the original class, the copy gets its own value.
+        final Class<?> extension = loader.loadClass(SimpleExtension.class.getName());
+        final Object value = registry.createValue(extension, "extension");
+        assertTrue(extension.isInstance(value));
+        assertNotSame(value, constant);
+    }
+
+    @Test
+    public void testDescriptionIncludesConstants() {
+        final SampleValueRegistry first = new SampleValueRegistry();
+        final SampleValueRegistry second = new SampleValueRegistry();
+        assertEquals(first.toString(), second.toString());
+
+        second.registerConstant(int.class, 7);
+        assertFalse(first.toString().equals(second.toString()));
+        assertTrue(second.toString().contains("java.lang.Integer(7)"), second.toString());
+    }
+
+    @Test
+    public void testValidateWithGenerators() {
+        final SampleValueRegistry registry = new SampleValueRegistry();
+        registry.addGenerator(SampleValueRegistry.ENUMS);
+        registry.addGenerator(SampleValueRegistry.ARRAYS);
+        registry.addGenerator(SampleValueRegistry.COLLECTIONS);
+
+        final AutoTestGetterSetter validator = new AutoTestGetterSetter(
+                getClass().getClassLoader(), "com.edmunds.autotest.sample");
+        validator.setSampleValues(registry);
+        validator.validate(ValueBean.class);
+    }
+}
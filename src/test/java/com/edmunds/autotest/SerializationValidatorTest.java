@@ -0,0 +1,147 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.sample.SimpleBean;
+import com.edmunds.autotest.serialsample.IdentifiedBean;
+import com.edmunds.autotest.serialsample.LossyBean;
+import com.edmunds.autotest.serialsample.SerialBean;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class SerializationValidatorTest {
+
+    @Test
+    public void testRoundTrip() {
+        validate(new SerializationValidator(), SerialBean.class, new AutoTestConfig("com.edmunds.autotest"));
+    }
+
+    @Test
+    public void testInterfaceTypedField() {
+        // The sample value of a Serializable field is a proxy, which can't be serialized itself.
+        validate(new SerializationValidator(), IdentifiedBean.class, new AutoTestConfig("com.edmunds.autotest"));
+    }
+
+    @Test
+    public void testNotSerializableIsSkipped() {
+        validate(new SerializationValidator(), SimpleBean.class, new AutoTestConfig("com.edmunds.autotest"));
+    }
+
+    @Test
+    public void testLostFieldFails() {
+        assertFails(new AutoTestConfig("com.edmunds.autotest"), LossyBean.class, "count was not restored");
+    }
+
+    @Test
+    public void testSizeBudget() {
+        final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest");
+        config.setMaxSerializedBytes(16);
+
+        assertFails(config, SerialBean.class, "over the budget of 16 bytes");
+    }
+
+    @Test
+    public void testBaseline() throws IOException {
+        final File file = File.createTempFile("serialization", ".properties");
+        file.delete();
+
+        try {
+            final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest");
+            config.setSerializationBaselineFile(file);
+
+            final SerializationValidator validator = new SerializationValidator();
+            validate(validator, SerialBean.class, config);
+
+            // Sizes recorded meanwhile by another run are kept.
+            PropertiesFiles.writeLongs(file, Collections.singletonMap("com.example.Other", 5L));
+            validator.validationCompleted(config);
+
+            final Map<String, Long> baseline = PropertiesFiles.readLongs(file, "baseline");
+            assertTrue(baseline.keySet().equals(new HashSet<String>(Arrays.asList(
+                    "com.example.Other", SerialBean.class.getName()))), baseline.toString());
+
+            validate(validator, SerialBean.class, config);
+
+            PropertiesFiles.writeLongs(file, Collections.singletonMap(SerialBean.class.getName(), 10L));
+            assertFails(config, SerialBean.class, "changed from the baseline of 10 bytes");
+        } finally {
+            file.delete();
+            new File(file.getPath() + ".lock").delete();
+        }
+    }
+
+    @Test
+    public void testNoSizesRecordedWithoutBaseline() throws IOException {
+        final File file = File.createTempFile("serialization", ".properties");
+        file.delete();
+
+        try {
+            final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest");
+            final SerializationValidator validator = new SerializationValidator();
+            validate(validator, SerialBean.class, config);
+            validator.validationCompleted(config);
+
+            // Nothing is left over from the run without a baseline file.
+            config.setSerializationBaselineFile(file);
+            validator.validationCompleted(config);
+            assertFalse(file.exists());
+        } finally {
+            file.delete();
+            new File(file.getPath() + ".lock").delete();
+        }
+    }
+
+    @Test
+    public void testValidateAll() {
+        final AutoTestGetterSetter serialSamples = new AutoTestGetterSetter(
+                getClass().getClassLoader(),
+                "com.edmunds.autotest.serialsample");
+
+        serialSamples.validateAll();
+
+        serialSamples.setValidateSerialization(true);
+        try {
+            serialSamples.validateAll();
+            fail("Expected LossyBean to fail");
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage().contains(LossyBean.class.getName()), e.getMessage());
+        }
+    }
+
+    private static void assertFails(AutoTestConfig config, Class cls, String message) {
+        try {
+            validate(new SerializationValidator(), cls, config);
+            fail("Expected " + cls.getName() + " to fail");
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage().contains(message), e.getMessage());
+        }
+    }
+
+    private static void validate(SerializationValidator validator, Class cls, AutoTestConfig config) {
+        validator.validate(new BeanContext(cls, config));
+    }
+}
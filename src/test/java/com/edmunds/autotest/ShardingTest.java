@@ -0,0 +1,241 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.sample.NoConstructor;
+import com.edmunds.autotest.sample.PrimitiveBean;
+import com.edmunds.autotest.sample.PrivateConstructor;
+import com.edmunds.autotest.sample.SimpleBean;
+import com.edmunds.autotest.sample.SimpleExtension;
+import com.edmunds.autotest.sample.ValueBean;
+import com.edmunds.autotest.sample.sub.SubBean;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ShardingTest {
+    private static final List<Class> CLASSES = Arrays.<Class>asList(
+            SubBean.class, SimpleBean.class, ValueBean.class, PrimitiveBean.class,
+            SimpleExtension.class, NoConstructor.class, PrivateConstructor.class);
+
+    @Test
+    public void testUnsharded() {
+        final List<Class> selected = new Sharding(0, 1, Collections.<String, Long>emptyMap()).select(CLASSES);
+
+        assertEquals(selected.size(), CLASSES.size());
+        assertEquals(selected.get(0), NoConstructor.class);
+        assertEquals(selected.get(selected.size() - 1), SubBean.class);
+    }
+
+    @Test
+    public void testHashShardsCoverEveryClassOnce() {
+        final Map<String, Long> noWeights = Collections.emptyMap();
+        final List<Class> reversed = new ArrayList<Class>(CLASSES);
+        Collections.reverse(reversed);
+
+        final Set<Class> all = new HashSet<Class>();
+        int total = 0;
+
+        for(int i = 0; i < 3; i++) {
+            final Sharding sharding = new Sharding(i, 3, noWeights);
+            final List<Class> selected = sharding.select(CLASSES);
+
+            // The order the classes are found in does not matter.
+            assertEquals(sharding.select(reversed), selected);
+
+            for(Class cls : selected) {
+                assertTrue(sharding.isSelected(cls));
+            }
+            all.addAll(selected);
+            total += selected.size();
+        }
+
+        assertEquals(total, CLASSES.size());
+        assertEquals(all.size(), CLASSES.size());
+    }
+
+    @Test
+    public void testWeightedShardsAreBalanced() {
+        final Map<String, Long> weights = new HashMap<String, Long>();
+        weights.put(SubBean.class.getName(), 100L);
+        weights.put(SimpleBean.class.getName(), 60L);
+        weights.put(ValueBean.class.getName(), 50L);
+        weights.put(PrimitiveBean.class.getName(), 40L);
+        weights.put(SimpleExtension.class.getName(), 10L);
+        // NoConstructor and PrivateConstructor have no timing, they count as the average of 52.
+
+        final List<Class> first = new Sharding(0, 2, weights).select(CLASSES);
+        final List<Class> second = new Sharding(1, 2, weights).select(CLASSES);
+
+        // Heaviest first to the least loaded: 100, 60, 52, 52, 50, 40, 10 gives loads of 192 and 172.
+        assertEquals(first, Arrays.<Class>asList(PrimitiveBean.class, PrivateConstructor.class, SubBean.class));
+        assertEquals(second, Arrays.<Class>asList(NoConstructor.class, SimpleBean.class,
+                SimpleExtension.class, ValueBean.class));
+    }
+
+    @Test
+    public void testTimingsFile() throws IOException {
+        final File file = File.createTempFile("timings", ".properties");
+        assertTrue(file.delete());
+
+        try {
+            final ShardTimings first = new ShardTimings(file);
+            first.classValidated(SimpleBean.class, 10L, 0L, true);
+            first.validationCompleted(ValidationMetrics.disabled());
+
+            final ShardTimings second = new ShardTimings(file);
+            second.classValidated(SubBean.class, 20L, 0L, true);
+            second.validationCompleted(ValidationMetrics.disabled());
+
+            final Map<String, Long> timings = ShardTimings.read(file);
+            assertEquals(timings.size(), 2);
+            assertEquals(timings.get(SimpleBean.class.getName()), Long.valueOf(10L));
+            assertEquals(timings.get(SubBean.class.getName()), Long.valueOf(20L));
+        } finally {
+            file.delete();
+            new File(file.getPath() + ".lock").delete();
+        }
+    }
+
+    @Test
+    public void testConcurrentTimingsAreMerged() throws Exception {
+        final File file = File.createTempFile("timings", ".properties");
+        assertTrue(file.delete());
+
+        final List<Class> classes = Arrays.<Class>asList(SimpleBean.class, SubBean.class, PrimitiveBean.class,
+                ValueBean.class, SimpleExtension.class, PrivateConstructor.class, NoConstructor.class);
+        final List<Thread> threads = new ArrayList<Thread>();
+
+        try {
+            for(final Class cls : classes) {
+                threads.add(new Thread() {
+                    @Override
+                    public void run() {
+                        final ShardTimings timings = new ShardTimings(file);
+                        timings.classValidated(cls, 1L, 0L, true);
+                        timings.validationCompleted(ValidationMetrics.disabled());
+                    }
+                });
+            }
+            for(Thread thread : threads) {
+                thread.start();
+            }
+            for(Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(ShardTimings.read(file).size(), classes.size());
+        } finally {
+            file.delete();
+            new File(file.getPath() + ".lock").delete();
+        }
+    }
+
+    @Test
+    public void testTimingsRecordedIntoTheirOwnFileAreIgnored() throws IOException {
+        final File file = File.createTempFile("timings", ".properties");
+        final File recorded = File.createTempFile("recorded", ".properties");
+
+        try {
+            final ShardTimings timings = new ShardTimings(file);
+            timings.classValidated(SubBean.class, 100L, 0L, true);
+            timings.classValidated(SimpleBean.class, 60L, 0L, true);
+            timings.classValidated(ValueBean.class, 50L, 0L, true);
+            timings.classValidated(PrimitiveBean.class, 40L, 0L, true);
+            timings.classValidated(SimpleExtension.class, 10L, 0L, true);
+            timings.validationCompleted(ValidationMetrics.disabled());
+
+            final AutoTestConfig config = new AutoTestConfig("com.edmunds.autotest.sample");
+            config.setShardCount(2);
+            config.setShardTimingsFile(file);
+
+            final List<Class> weighted = Arrays.<Class>asList(
+                    PrimitiveBean.class, PrivateConstructor.class, SubBean.class);
+            final List<Class> hashed = new Sharding(0, 2, Collections.<String, Long>emptyMap()).select(CLASSES);
+
+            assertEquals(Sharding.forConfig(config).select(CLASSES), weighted);
+            assertEquals(Sharding.forConfig(config, Arrays.<ValidationListener>asList(
+                    new ShardTimings(recorded))).select(CLASSES), weighted);
+            assertEquals(Sharding.forConfig(config, Arrays.<ValidationListener>asList(
+                    new ShardTimings(new File(file.getPath())))).select(CLASSES), hashed);
+        } finally {
+            file.delete();
+            recorded.delete();
+            new File(file.getPath() + ".lock").delete();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testShardIndexOutOfRange() {
+        new Sharding(2, 2, Collections.<String, Long>emptyMap());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testShardCountNotPositive() {
+        new AutoTestConfig("com.edmunds.autotest.sample").setShardCount(0);
+    }
+
+    @Test
+    public void testValidateAllShards() {
+        final Set<String> validated = new HashSet<String>();
+        int total = 0;
+
+        for(int i = 0; i < 2; i++) {
+            final AutoTestGetterSetter validator = new AutoTestGetterSetter(
+                    getClass().getClassLoader(), "com.edmunds.autotest.sample");
+            final RecordingListener listener = new RecordingListener();
+
+            validator.setShard(i, 2);
+            validator.addValidationListener(listener);
+            validator.validateAll();
+
+            validated.addAll(listener.classNames);
+            total += listener.classNames.size();
+        }
+
+        final AutoTestGetterSetter unsharded = new AutoTestGetterSetter(
+                getClass().getClassLoader(), "com.edmunds.autotest.sample");
+        final RecordingListener listener = new RecordingListener();
+        unsharded.addValidationListener(listener);
+        unsharded.validateAll();
+
+        assertEquals(total, listener.classNames.size());
+        assertTrue(validated.equals(new HashSet<String>(listener.classNames)));
+    }
+
+    private static class RecordingListener implements ValidationListener {
+        private final List<String> classNames = Collections.synchronizedList(new ArrayList<String>());
+
+        public void classValidated(Class cls, long nanos, long allocatedBytes, boolean passed) {
+            classNames.add(cls.getName());
+        }
+
+        public void validationCompleted(ValidationMetrics metrics) {
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.sample.SimpleBean;
+import com.edmunds.autotest.sample.sub.SubBean;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ValidationCacheTest {
+
+    private static final List<Class> CLASSES = Arrays.<Class>asList(SimpleBean.class, SubBean.class);
+
+    private File file;
+    private AutoTestConfig config;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        file = File.createTempFile("validation", ".cache");
+        assertTrue(file.delete());
+
+        config = new AutoTestConfig("com.edmunds.autotest.sample");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + ".lock").delete();
+    }
+
+    @Test
+    public void testSkipsPassedClasses() {
+        ValidationCache cache = ValidationCache.open(file, config);
+        assertEquals(cache.filterUnchanged(CLASSES).size(), 2);
+
+        cache.recordPassed(SimpleBean.class);
+        cache.save();
+
+        cache = ValidationCache.open(file, config);
+        assertEquals(cache.filterUnchanged(CLASSES), Arrays.<Class>asList(SubBean.class));
+    }
+
+    @Test
+    public void testConfigChangeInvalidates() {
+        final ValidationCache cache = ValidationCache.open(file, config);
+        cache.filterUnchanged(CLASSES);
+        cache.recordPassed(SimpleBean.class);
+        cache.save();
+
+        config.setValidateMethodsOutsideRootPackage(true);
+        assertEquals(ValidationCache.open(file, config).filterUnchanged(CLASSES).size(), 2);
+    }
+
+    @Test
+    public void testUnreadableFile() throws IOException {
+        final FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[]{1, 2, 3});
+        out.close();
+
+        assertEquals(ValidationCache.open(file, config).filterUnchanged(CLASSES).size(), 2);
+    }
+
+    @Test
+    public void testValidateAll() {
+        final AutoTestGetterSetter autoTestGetterSetter = new AutoTestGetterSetter(
+                getClass().getClassLoader(), "com.edmunds.autotest.sample");
+        autoTestGetterSetter.setValidationCacheFile(file);
+
+        autoTestGetterSetter.validateAll();
+
+        assertTrue(file.isFile());
+        assertTrue(ValidationCache.open(file, config).filterUnchanged(CLASSES).isEmpty());
+    }
+}
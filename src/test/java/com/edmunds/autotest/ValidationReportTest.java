@@ -0,0 +1,77 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ValidationReportTest {
+
+    @Test
+    public void testReport() throws IOException {
+        final File summary = File.createTempFile("validation", ".json");
+        final ValidationReport report = new ValidationReport(summary, 2);
+
+        final RecordingListener recorder = new RecordingListener();
+        final AutoTestGetterSetter autoTestGetterSetter = new AutoTestGetterSetter(
+                getClass().getClassLoader(), "com.edmunds.autotest.sample");
+        autoTestGetterSetter.addValidationListener(report);
+        autoTestGetterSetter.addValidationListener(recorder);
+
+        try {
+            autoTestGetterSetter.validateAll();
+
+            final ValidationMetrics metrics = recorder.metrics;
+            assertTrue(metrics.getScannedCount() > metrics.getFilteredCount());
+            assertEquals(metrics.getValidatedCount(), metrics.getFilteredCount());
+            assertEquals(recorder.classCount, metrics.getValidatedCount());
+            assertTrue(metrics.getNanos(ValidationPhase.SCAN_RESOURCES) > 0);
+            assertTrue(metrics.getNanos(ValidationPhase.DESCRIBE) > 0);
+
+            final List<ValidationReport.ClassTiming> slowest = report.getSlowest();
+            assertEquals(slowest.size(), 2);
+            assertTrue(slowest.get(0).getNanos() >= slowest.get(1).getNanos());
+
+            final String json = new String(Files.readAllBytes(summary.toPath()), "UTF-8");
+            assertTrue(json.contains("\"validated\": " + metrics.getValidatedCount()), json);
+            assertTrue(json.contains("\"VALIDATE_PROPERTIES\""), json);
+            assertTrue(json.contains(slowest.get(0).getClassName()), json);
+        } finally {
+            summary.delete();
+        }
+    }
+
+    private static class RecordingListener implements ValidationListener {
+        private int classCount;
+        private ValidationMetrics metrics;
+
+        public synchronized void classValidated(Class cls, long nanos, long allocatedBytes, boolean passed) {
+            assertTrue(passed);
+            classCount++;
+        }
+
+        public void validationCompleted(ValidationMetrics metrics) {
+            this.metrics = metrics;
+        }
+    }
+}
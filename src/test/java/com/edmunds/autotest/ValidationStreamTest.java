@@ -0,0 +1,94 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest;
+
+import com.edmunds.autotest.badsample.BadIntGetter;
+import com.edmunds.autotest.sample.SimpleBean;
+import com.edmunds.autotest.sample.Stateless;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ValidationStreamTest {
+
+    @Test
+    public void testStream() {
+        final AutoTestGetterSetter autoTestGetterSetter = new AutoTestGetterSetter(
+                getClass().getClassLoader(), "com.edmunds.autotest.sample");
+        autoTestGetterSetter.setParallelism(2);
+
+        final Map<Class, ValidationResult> results = collect(autoTestGetterSetter.validateStream());
+
+        assertTrue(results.get(SimpleBean.class).isPassed());
+        assertTrue(results.containsKey(Stateless.getPackageBeanClass()));
+        assertFalse(results.containsKey(Stateless.class));
+    }
+
+    @Test
+    public void testStreamFailures() {
+        final AutoTestGetterSetter autoTestGetterSetter = new AutoTestGetterSetter(
+                getClass().getClassLoader(), "com.edmunds.autotest.badsample");
+
+        final Map<Class, ValidationResult> results = collect(autoTestGetterSetter.validateStream());
+
+        assertEquals(results.size(), 4);
+        final ValidationResult result = results.get(BadIntGetter.class);
+        assertFalse(result.isPassed());
+        assertEquals(result.getFailure().getMessage(),
+                "Failed to validate Getter: com.edmunds.autotest.badsample.BadIntGetter.getData expected:<42> but was:<0>");
+    }
+
+    @Test
+    public void testHandler() {
+        final AutoTestGetterSetter autoTestGetterSetter = new AutoTestGetterSetter(
+                getClass().getClassLoader(), "com.edmunds.autotest.sample");
+        final Map<Class, ValidationResult> results = new HashMap<Class, ValidationResult>();
+
+        autoTestGetterSetter.validateAll(new ValidationResultHandler() {
+            public void handle(ValidationResult result) {
+                results.put(result.getBeanClass(), result);
+            }
+        });
+
+        assertTrue(results.get(SimpleBean.class).isPassed());
+    }
+
+    @Test
+    public void testClose() {
+        final AutoTestGetterSetter autoTestGetterSetter = new AutoTestGetterSetter(
+                getClass().getClassLoader(), "com.edmunds.autotest.sample");
+        final ValidationStream stream = autoTestGetterSetter.validateStream();
+
+        assertTrue(stream.hasNext());
+        stream.close();
+        assertFalse(stream.hasNext());
+    }
+
+    private static Map<Class, ValidationResult> collect(ValidationStream stream) {
+        final Map<Class, ValidationResult> results = new HashMap<Class, ValidationResult>();
+
+        while (stream.hasNext()) {
+            final ValidationResult result = stream.next();
+            results.put(result.getBeanClass(), result);
+        }
+        return results;
+    }
+}
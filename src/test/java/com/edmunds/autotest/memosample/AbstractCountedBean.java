@@ -0,0 +1,36 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest.memosample;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the calls to its getter, so tests can see which checks were run.
+ */
+public abstract class AbstractCountedBean {
+    public static final AtomicInteger GETTER_CALLS = new AtomicInteger();
+
+    private String value;
+
+    public String getValue() {
+        GETTER_CALLS.incrementAndGet();
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2011 Edmunds.com, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.edmunds.autotest.sample;
+
+public class PrimitiveBean {
+    private byte byteProp;
+    private short shortProp;
+    private int intProp;
+    private long longProp;
+    private float floatProp;
+    private double doubleProp;
+    private boolean booleanProp;
+    private char charProp;
+    private Integer boxedProp;
+
+    public byte getByteProp() {
+        return byteProp;
+    }
+
+    public void setByteProp(byte byteProp) {
+        this.byteProp = byteProp;
+    }
+
+    public short getShortProp() {
+        return shortProp;
+    }
+
+    public void setShortProp(short shortProp) {
+        this.shortProp = shortProp;
+    }
+
+    public int getIntProp() {
+        return intProp;
+    }
+
+    public void setIntProp(int intProp) {
+        this.intProp = intProp;
+    }
+
+    public long getLongProp() {
+        return longProp;
+    }
+
+    public void setLongProp(long longProp) {
+        this.longProp = longProp;
+    }
+
+    public float getFloatProp() {
+        return floatProp;
+    }
+
+    public void setFloatProp(float floatProp) {
+        this.floatProp = floatProp;
+    }
+
+    public double getDoubleProp() {
+        return doubleProp;
+    }
+
+    public void setDoubleProp(double doubleProp) {
+        this.doubleProp = doubleProp;
+    }
+
+    public boolean isBooleanProp() {
+        return booleanProp;
+    }
+
+    public void setBooleanProp(boolean booleanProp) {
+        this.booleanProp = booleanProp;
+    }
+
+    public char getCharProp() {
+        return charProp;
+    }
+
+    public void setCharProp(char charProp) {
+        this.charProp = charProp;
+    }
+
+    public Integer getBoxedProp() {
+        return boxedProp;
+    }
+
+    public void setBoxedProp(Integer boxedProp) {
+        this.boxedProp = boxedProp;
+    }
+}